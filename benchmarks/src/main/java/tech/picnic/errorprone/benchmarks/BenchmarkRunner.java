@@ -0,0 +1,41 @@
+package tech.picnic.errorprone.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks defined in this package, reporting both their execution time and their memory
+ * allocation.
+ *
+ * <p>This class accepts the same arguments as JMH's own entry point. For example, to benchmark only
+ * the {@code StaticImport} bug checker, run:
+ *
+ * <pre>{@code
+ * java -jar benchmarks/target/benchmarks.jar BugCheckerBenchmark -p bugChecker=None,StaticImport
+ * }</pre>
+ *
+ * <p>The allocation rate per operation is reported as {@code gc.alloc.rate.norm}.
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {}
+
+  /**
+   * Runs the benchmarks selected by the given JMH command line arguments.
+   *
+   * @param args The JMH command line arguments.
+   * @throws CommandLineOptionException If the command line arguments are invalid.
+   * @throws RunnerException If benchmark execution fails.
+   */
+  public static void main(String... args) throws CommandLineOptionException, RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+}
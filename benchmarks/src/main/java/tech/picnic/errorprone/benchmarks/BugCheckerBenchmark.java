@@ -0,0 +1,147 @@
+package tech.picnic.errorprone.benchmarks;
+
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.scanner.ScannerSupplier;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of compiling the {@link Corpus#representativeSources() representative corpus}
+ * with each of the bug checkers defined in the {@code tech.picnic.errorprone.bugpatterns} package.
+ *
+ * <p>The {@value #NO_BUG_CHECKER} parameter value denotes a compilation without any bug checkers;
+ * the difference between its results and those of another parameter value approximates the cost of
+ * the associated bug checker.
+ */
+// XXX: JMH cannot discover the bug checkers to be benchmarked at runtime. Keep the `@Param` values
+// below in sync with the bug checkers that exist; `BugCheckerBenchmarkTest` verifies this.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+      "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED"
+    })
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@SuppressWarnings("Nopen" /* JMH generates subclasses of benchmark classes. */)
+public class BugCheckerBenchmark {
+  static final String BUG_PATTERNS_PACKAGE = "tech.picnic.errorprone.bugpatterns";
+  static final String NO_BUG_CHECKER = "None";
+
+  @Param({
+    NO_BUG_CHECKER,
+    "AmbiguousJsonCreator",
+    "AssertJIsNull",
+    "AutowiredConstructor",
+    "BoxedStreamUsage",
+    "CanonicalAnnotationSyntax",
+    "CollectionInitialCapacity",
+    "CollectorMutability",
+    "EmptyMethod",
+    "ErrorProneTestHelperSourceFormat",
+    "ExplicitEnumOrdering",
+    "FluxFlatMapConcurrency",
+    "FluxFlatMapUsage",
+    "FormatStringConcatenation",
+    "IdentityConversion",
+    "ImmutablesSortedSetComparator",
+    "IsInstanceLambdaUsage",
+    "JUnitClassModifiers",
+    "JUnitMethodDeclaration",
+    "LexicographicalAnnotationAttributeListing",
+    "LexicographicalAnnotationListing",
+    "MethodReferenceUsage",
+    "MissingRefasterAnnotation",
+    "MockitoStubbing",
+    "NestedOptionals",
+    "NonEmptyMono",
+    "PrimitiveComparison",
+    "ReactorBlockingCall",
+    "RedundantImmutableCollectionCopy",
+    "RedundantStringConversion",
+    "RefasterAnyOfUsage",
+    "RefasterRuleModifiers",
+    "RequestMappingAnnotation",
+    "RequestParamType",
+    "ScheduledTransactionTrace",
+    "Slf4jEagerLogArgument",
+    "Slf4jLogStatement",
+    "SpringMvcAnnotation",
+    "StaticImport",
+    "StreamOverLoopForSmallCollections",
+    "StringCaseLocaleUsage",
+    "StringFormatUsage",
+    "StringJoin",
+    "TimeZoneUsage"
+  })
+  private String bugChecker = NO_BUG_CHECKER;
+
+  @SuppressWarnings("NullAway.Init" /* Initialized by `#setUp()`. */)
+  private ErrorProneCompilation compilation;
+
+  /**
+   * Prepares a compilation using the bug checker identified by {@link #bugChecker}.
+   *
+   * @throws ClassNotFoundException If the bug checker does not exist.
+   */
+  @Setup
+  public void setUp() throws ClassNotFoundException {
+    compilation = createCompilation(bugChecker);
+  }
+
+  /**
+   * Compiles the corpus.
+   *
+   * @return The reported diagnostics, such that JMH considers them used.
+   */
+  @Benchmark
+  public List<Diagnostic<? extends JavaFileObject>> compile() {
+    return compilation.compile();
+  }
+
+  /**
+   * Prepares a compilation of the corpus using the given bug checker.
+   *
+   * @param bugChecker The simple name of a bug checker, or {@value #NO_BUG_CHECKER}.
+   * @return A new compilation.
+   * @throws ClassNotFoundException If the bug checker does not exist.
+   */
+  static ErrorProneCompilation createCompilation(String bugChecker) throws ClassNotFoundException {
+    return new ErrorProneCompilation(
+        getScannerSupplier(bugChecker), Corpus.representativeSources());
+  }
+
+  private static ScannerSupplier getScannerSupplier(String bugChecker)
+      throws ClassNotFoundException {
+    if (bugChecker.equals(NO_BUG_CHECKER)) {
+      return ScannerSupplier.fromBugCheckerClasses();
+    }
+
+    return ScannerSupplier.fromBugCheckerClasses(
+        Class.forName(BUG_PATTERNS_PACKAGE + '.' + bugChecker).asSubclass(BugChecker.class));
+  }
+}
@@ -0,0 +1,92 @@
+package tech.picnic.errorprone.benchmarks;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.stream.IntStream;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/** Provides the source code compiled by the benchmarks in this package. */
+final class Corpus {
+  private static final ImmutableList<String> REPRESENTATIVE_SOURCES =
+      ImmutableList.of(
+          "ArticleController.java",
+          "CollectionProcessing.java",
+          "CollectionProcessingTest.java",
+          "ReactiveService.java");
+
+  private Corpus() {}
+
+  /**
+   * Returns a set of source files that exercise a wide range of APIs targeted by this project's bug
+   * checkers and Refaster rules.
+   *
+   * @return The non-empty collection of source files.
+   */
+  static ImmutableList<JavaFileObject> representativeSources() {
+    return REPRESENTATIVE_SOURCES.stream()
+        .map(name -> new SourceFile("corpus/" + name, readResource(name)))
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns a single generated source file containing the given number of expressions matched by
+   * Refaster rules, many of which are nested inside one another.
+   *
+   * <p>This source file stresses the Refaster runner's handling of (overlapping) matches, rather
+   * than its rule selection logic.
+   *
+   * @param methodCount The number of methods to generate; each contains several matches.
+   * @return A singleton list containing the generated source file.
+   */
+  static ImmutableList<JavaFileObject> matchHeavySource(int methodCount) {
+    StringBuilder source =
+        new StringBuilder(
+            "package corpus;\n\n"
+                + "import java.util.Collection;\n"
+                + "import java.util.Objects;\n\n"
+                + "public final class MatchHeavy {\n");
+    IntStream.range(0, methodCount)
+        .forEach(
+            i ->
+                source
+                    .append("  boolean m")
+                    .append(i)
+                    .append("(String s, Collection<String> c) {\n")
+                    .append("    return (s.length() == 0) == (c.size() == 0)\n")
+                    .append("        && !Objects.equals(String.valueOf(s.toString()), null)\n")
+                    .append("        && (c.size() > 0 ? s.length() == 0 : c.size() == 0);\n")
+                    .append("  }\n"));
+    source.append("}\n");
+    return ImmutableList.of(new SourceFile("corpus/MatchHeavy.java", source.toString()));
+  }
+
+  private static String readResource(String name) {
+    try {
+      return Resources.toString(Resources.getResource(Corpus.class, "corpus/" + name), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read corpus file " + name, e);
+    }
+  }
+
+  /** An in-memory Java source file. */
+  private static final class SourceFile extends SimpleJavaFileObject {
+    private final String content;
+
+    SourceFile(String path, String content) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public String getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+}
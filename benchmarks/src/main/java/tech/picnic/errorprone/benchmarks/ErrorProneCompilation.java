@@ -0,0 +1,64 @@
+package tech.picnic.errorprone.benchmarks;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.StandardSystemProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BaseErrorProneJavaCompiler;
+import com.google.errorprone.scanner.ScannerSupplier;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * A compilation of a fixed set of source files, analyzed by Error Prone using a fixed set of bug
+ * checkers.
+ *
+ * <p>Compilation stops after flow analysis, as Error Prone does not inspect the code produced by
+ * later compilation phases. As such no class files are written.
+ */
+final class ErrorProneCompilation {
+  private static final ImmutableList<String> OPTIONS =
+      ImmutableList.of(
+          "-classpath",
+          StandardSystemProperty.JAVA_CLASS_PATH.value(),
+          "-proc:none",
+          "-XDshould-stop.ifNoError=FLOW",
+          /* Opt-in checks must be enabled for their cost to be measured. */
+          "-XepOpt:StreamOverLoopForSmallCollections:Enabled=true");
+
+  private final JavaCompiler compiler;
+  private final ImmutableList<JavaFileObject> sources;
+
+  /**
+   * Instantiates a new {@link ErrorProneCompilation} instance.
+   *
+   * @param scannerSupplier The bug checkers to apply.
+   * @param sources The source files to compile.
+   */
+  ErrorProneCompilation(ScannerSupplier scannerSupplier, ImmutableList<JavaFileObject> sources) {
+    this.compiler = new BaseErrorProneJavaCompiler(scannerSupplier);
+    this.sources = sources;
+  }
+
+  /**
+   * Compiles the source files.
+   *
+   * @return The diagnostics reported by the compiler and by Error Prone.
+   */
+  List<Diagnostic<? extends JavaFileObject>> compile() {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, UTF_8)) {
+      compiler.getTask(null, fileManager, diagnostics, OPTIONS, null, sources).call();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close file manager", e);
+    }
+    return diagnostics.getDiagnostics();
+  }
+}
@@ -0,0 +1,90 @@
+package tech.picnic.errorprone.benchmarks;
+
+import com.google.errorprone.scanner.ScannerSupplier;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tech.picnic.errorprone.refaster.runner.Refaster;
+
+/**
+ * Measures the cost of compiling source code with the {@link Refaster} bug checker, using all
+ * Refaster rules defined by this project.
+ *
+ * <p>Two corpora are benchmarked: the {@link Corpus#representativeSources() representative corpus},
+ * which mostly stresses Refaster rule selection and matching, and a {@link
+ * Corpus#matchHeavySource(int) generated corpus} with many (overlapping) matches, which mostly
+ * stresses the application of matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {
+      "--add-exports=jdk.compiler/com.sun.tools.javac.api=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.code=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.file=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.main=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.model=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.parser=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.processing=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.tree=ALL-UNNAMED",
+      "--add-exports=jdk.compiler/com.sun.tools.javac.util=ALL-UNNAMED",
+      "--add-opens=jdk.compiler/com.sun.tools.javac.comp=ALL-UNNAMED"
+    })
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@SuppressWarnings("Nopen" /* JMH generates subclasses of benchmark classes. */)
+public class RefasterBenchmark {
+  static final String REPRESENTATIVE_CORPUS = "Representative";
+  static final String MATCH_HEAVY_CORPUS = "MatchHeavy";
+  private static final int MATCH_HEAVY_METHOD_COUNT = 500;
+
+  @Param({REPRESENTATIVE_CORPUS, MATCH_HEAVY_CORPUS})
+  private String corpus = REPRESENTATIVE_CORPUS;
+
+  @SuppressWarnings("NullAway.Init" /* Initialized by `#setUp()`. */)
+  private ErrorProneCompilation compilation;
+
+  /** Prepares a compilation of the corpus identified by {@link #corpus}. */
+  @Setup
+  public void setUp() {
+    compilation = createCompilation(corpus);
+  }
+
+  /**
+   * Prepares a compilation of the given corpus using the {@link Refaster} bug checker.
+   *
+   * @param corpus The name of the corpus to compile.
+   * @return A new compilation.
+   */
+  static ErrorProneCompilation createCompilation(String corpus) {
+    return new ErrorProneCompilation(
+        ScannerSupplier.fromBugCheckerClasses(Refaster.class),
+        corpus.equals(MATCH_HEAVY_CORPUS)
+            ? Corpus.matchHeavySource(MATCH_HEAVY_METHOD_COUNT)
+            : Corpus.representativeSources());
+  }
+
+  /**
+   * Compiles the corpus.
+   *
+   * @return The reported diagnostics, such that JMH considers them used.
+   */
+  @Benchmark
+  public List<Diagnostic<? extends JavaFileObject>> compile() {
+    return compilation.compile();
+  }
+}
@@ -0,0 +1,4 @@
+/** JMH benchmarks for the bug checkers and Refaster rules provided by this project. */
+@com.google.errorprone.annotations.CheckReturnValue
+@org.jspecify.annotations.NullMarked
+package tech.picnic.errorprone.benchmarks;
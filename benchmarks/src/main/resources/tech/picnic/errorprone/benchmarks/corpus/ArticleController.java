@@ -0,0 +1,86 @@
+package corpus;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping(value = {"/articles"})
+public class ArticleController {
+  private static final Logger LOG = LoggerFactory.getLogger(ArticleController.class);
+
+  private final ReactiveService service;
+
+  @Autowired
+  public ArticleController(ReactiveService service) {
+    this.service = service;
+  }
+
+  public static final class ArticleRequest {
+    private final String name;
+    private final List<String> tags;
+
+    @JsonCreator
+    public ArticleRequest(@JsonProperty("name") String name, @JsonProperty("tags") List<String> tags) {
+      this.name = name;
+      this.tags = tags;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public List<String> getTags() {
+      return tags;
+    }
+  }
+
+  @GetMapping("/{id}")
+  public Mono<Integer> price(@PathVariable("id") String id) {
+    LOG.info("Looking up price of article {}", id);
+    return service.price(id.toLowerCase(Locale.ROOT));
+  }
+
+  @GetMapping
+  public Flux<Integer> prices(@RequestParam("ids") ImmutableList<String> ids) {
+    LOG.info(String.format("Looking up %s prices", ids.size()));
+    return service.prices(ids);
+  }
+
+  @RequestMapping(method = RequestMethod.GET, value = "/tags")
+  public Mono<List<String>> tags(@RequestParam(value = "id") String id) {
+    return service.allTags(id);
+  }
+
+  @PostMapping
+  public Mono<Boolean> create(
+      @RequestBody ArticleRequest request, @RequestParam Optional<String> source) {
+    if (request.getName().isEmpty()) {
+      LOG.warn("Rejecting article without name from {}", source.orElse("unknown"));
+      return Mono.just(false);
+    }
+    LOG.debug("Creating article " + request.getName() + " with tags " + request.getTags());
+    return service.exists(request.getName()).map(exists -> !exists);
+  }
+
+  @GetMapping("/count")
+  public Mono<Long> count(@RequestParam("ids") List<String> ids) {
+    return service.prices(ids).count();
+  }
+}
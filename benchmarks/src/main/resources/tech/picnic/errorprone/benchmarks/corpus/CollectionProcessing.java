@@ -0,0 +1,264 @@
+package corpus;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public final class CollectionProcessing {
+  private final Clock clock;
+  private final Map<String, Integer> stock = new HashMap<>();
+
+  public CollectionProcessing(Clock clock) {
+    this.clock = clock;
+  }
+
+  public enum Category {
+    FRUIT,
+    VEGETABLES,
+    DAIRY,
+    BAKERY
+  }
+
+  public static final class Article {
+    private final String name;
+    private final Category category;
+    private final BigDecimal price;
+    private final Optional<String> description;
+
+    public Article(String name, Category category, BigDecimal price, Optional<String> description) {
+      this.name = Preconditions.checkNotNull(name);
+      this.category = category;
+      this.price = price;
+      this.description = description;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Category getCategory() {
+      return category;
+    }
+
+    public BigDecimal getPrice() {
+      return price;
+    }
+
+    public Optional<String> getDescription() {
+      return description;
+    }
+  }
+
+  public ImmutableList<String> names(Collection<Article> articles) {
+    return articles.stream().map(a -> a.getName()).collect(toImmutableList());
+  }
+
+  public List<String> sortedNames(List<Article> articles) {
+    List<String> names = new ArrayList<>();
+    for (Article article : articles) {
+      names.add(article.getName().toLowerCase());
+    }
+    Collections.sort(names);
+    return Collections.unmodifiableList(names);
+  }
+
+  public ImmutableSet<Category> categories(Stream<Article> articles) {
+    return ImmutableSet.copyOf(articles.map(Article::getCategory).collect(toSet()));
+  }
+
+  public ImmutableSortedSet<String> upperCaseNames(Iterable<Article> articles) {
+    return ImmutableSortedSet.copyOf(
+        Iterables.transform(articles, a -> a.getName().toUpperCase(Locale.ROOT)));
+  }
+
+  public Map<Category, List<Article>> byCategory(List<Article> articles) {
+    return articles.stream().collect(groupingBy(Article::getCategory));
+  }
+
+  public ImmutableMap<String, Article> index(List<Article> articles) {
+    Map<String, Article> index = Maps.newHashMap();
+    for (Article article : articles) {
+      index.put(article.getName(), article);
+    }
+    return ImmutableMap.copyOf(index);
+  }
+
+  public Optional<Article> cheapest(List<Article> articles) {
+    return articles.stream().sorted(Comparator.comparing(Article::getPrice)).findFirst();
+  }
+
+  public Optional<Article> mostExpensive(List<Article> articles) {
+    return articles.stream().max((a, b) -> a.getPrice().compareTo(b.getPrice()));
+  }
+
+  public Comparator<Article> articleOrder() {
+    return Comparator.comparing(Article::getCategory)
+        .thenComparing(a -> a.getName().length())
+        .thenComparing(Article::getName, Comparator.reverseOrder());
+  }
+
+  public String describe(Article article) {
+    return article.getDescription().isPresent()
+        ? article.getDescription().get()
+        : String.format("%s (%s)", article.getName(), article.getCategory());
+  }
+
+  public String descriptionOrDefault(Article article) {
+    return article.getDescription().map(d -> d.trim()).orElse(article.getName());
+  }
+
+  public Optional<Optional<String>> nestedDescription(Optional<Article> article) {
+    return article.map(Article::getDescription);
+  }
+
+  public boolean hasDescription(Article article) {
+    return !article.getDescription().isEmpty() && !article.getDescription().get().isEmpty();
+  }
+
+  public String summary(List<Article> articles) {
+    return articles.stream().map(Article::getName).collect(joining(", "));
+  }
+
+  public String joined(List<String> parts) {
+    return String.join(",", parts.toArray(new String[0]));
+  }
+
+  public String padded(String value) {
+    if (value == null || value.length() == 0) {
+      return Strings.repeat(" ", 10);
+    }
+    return Strings.padStart(String.valueOf(value), 10, ' ');
+  }
+
+  public String label(int amount, String unit) {
+    return "amount: " + String.valueOf(amount) + " " + unit.toString();
+  }
+
+  public int totalStock() {
+    int total = 0;
+    for (Map.Entry<String, Integer> entry : stock.entrySet()) {
+      total += entry.getValue();
+    }
+    return total;
+  }
+
+  public void restock(String name, int amount) {
+    Integer current = stock.get(name);
+    stock.put(name, current == null ? amount : current + amount);
+  }
+
+  public boolean inStock(String name) {
+    return stock.containsKey(name) && stock.get(name) > 0;
+  }
+
+  public Set<String> outOfStock() {
+    Set<String> result = new LinkedHashSet<>();
+    stock.forEach(
+        (name, amount) -> {
+          if (amount == 0) {
+            result.add(name);
+          }
+        });
+    return result;
+  }
+
+  public List<Integer> squares(int count) {
+    return IntStream.range(0, count).map(i -> i * i).boxed().collect(toList());
+  }
+
+  public int sumOfSquares(int count) {
+    return IntStream.range(0, count).map(i -> i * i).sum();
+  }
+
+  public List<List<String>> partition(List<String> values) {
+    return Lists.partition(values, 10);
+  }
+
+  public ImmutableSet<String> distinct(String... values) {
+    return Arrays.stream(values).filter(Objects::nonNull).collect(toImmutableSet());
+  }
+
+  public <T, K> Map<K, T> uniqueIndex(List<T> values, Function<T, K> keyFunction) {
+    Map<K, T> result = new HashMap<>();
+    values.forEach(v -> result.put(keyFunction.apply(v), v));
+    return result;
+  }
+
+  public boolean isWeekend() {
+    LocalDate today = LocalDate.now(clock);
+    return today.getDayOfWeek().getValue() >= 6;
+  }
+
+  public Instant now() {
+    return Instant.now();
+  }
+
+  public ZoneId zone() {
+    return ZoneId.systemDefault();
+  }
+
+  public int compareNames(Article a, Article b) {
+    return a.getName().compareTo(b.getName());
+  }
+
+  public int compareCount(List<?> a, List<?> b) {
+    return Integer.valueOf(a.size()).compareTo(Integer.valueOf(b.size()));
+  }
+
+  public boolean isEmpty(Collection<?> collection) {
+    return collection.size() == 0;
+  }
+
+  public boolean sameSize(Collection<?> a, Collection<?> b) {
+    return Objects.equals(a.size(), b.size());
+  }
+
+  public Article requireArticle(Optional<Article> article) {
+    if (!article.isPresent()) {
+      throw new IllegalArgumentException("Missing article");
+    }
+    return article.get();
+  }
+
+  public List<String> emptyList() {
+    return Collections.emptyList();
+  }
+
+  public Map<String, String> emptyMap() {
+    return Collections.emptyMap();
+  }
+}
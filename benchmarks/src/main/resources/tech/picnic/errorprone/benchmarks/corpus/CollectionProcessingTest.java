@@ -0,0 +1,109 @@
+package corpus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class CollectionProcessingTest {
+  private CollectionProcessing processing;
+
+  @BeforeEach
+  public void setUp() {
+    processing = new CollectionProcessing(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+  }
+
+  private static CollectionProcessing.Article article(String name) {
+    return new CollectionProcessing.Article(
+        name, CollectionProcessing.Category.FRUIT, BigDecimal.ONE, Optional.empty());
+  }
+
+  @Test
+  public void testNames() {
+    List<String> names = processing.names(ImmutableList.of(article("apple"), article("pear")));
+    assertThat(names).isEqualTo(ImmutableList.of("apple", "pear"));
+    assertThat(names.size()).isEqualTo(2);
+    assertThat(names.isEmpty()).isFalse();
+  }
+
+  @Test
+  public void testSortedNames() {
+    assertThat(processing.sortedNames(ImmutableList.of(article("b"), article("a"))))
+        .containsExactly("a", "b");
+  }
+
+  @Test
+  void describe() {
+    assertEquals("pear (FRUIT)", processing.describe(article("pear")));
+    assertThat(processing.descriptionOrDefault(article("pear"))).isEqualTo("pear");
+  }
+
+  @Test
+  void isEmpty() {
+    assertTrue(processing.isEmpty(ImmutableList.of()));
+    assertThat(processing.isEmpty(ImmutableList.of(1))).isEqualTo(false);
+    assertThat(processing.emptyList()).hasSize(0);
+  }
+
+  @Test
+  void requireArticle() {
+    assertThatThrownBy(() -> processing.requireArticle(Optional.empty()))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(processing.requireArticle(Optional.of(article("kiwi"))).getName())
+        .isEqualTo("kiwi");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, 10})
+  void squares(int count) {
+    assertThat(processing.squares(count)).hasSize(count);
+    assertThat(processing.sumOfSquares(count) >= 0).isTrue();
+  }
+
+  @Test
+  void stock() {
+    processing.restock("apple", 3);
+    processing.restock("pear", 0);
+    assertThat(processing.totalStock()).isEqualTo(3);
+    assertThat(processing.inStock("apple")).isTrue();
+    assertThat(processing.outOfStock()).containsExactly("pear");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reactiveService() {
+    Function<String, Mono<Integer>> priceLookup = mock(Function.class);
+    Function<String, Flux<String>> tagLookup = mock(Function.class);
+    when(priceLookup.apply(eq("apple"))).thenReturn(Mono.just(1));
+    when(priceLookup.apply(any())).thenReturn(Mono.just(2));
+    when(tagLookup.apply(any())).thenReturn(Flux.just("fresh", "organic"));
+
+    ReactiveService service = new ReactiveService(priceLookup, tagLookup);
+
+    assertThat(service.price("apple").block()).isEqualTo(2);
+    assertThat(service.allTags("apple").block()).containsExactly("fresh", "organic");
+    assertThat(service.total(Flux.just("apple", "pear")).block()).isEqualTo(4);
+    assertThat(service.exists("apple").block()).isTrue();
+    verify(priceLookup, org.mockito.Mockito.times(4)).apply(any());
+  }
+}
@@ -0,0 +1,106 @@
+package corpus;
+
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+public final class ReactiveService {
+  private static final Logger LOG = LoggerFactory.getLogger(ReactiveService.class);
+
+  private final Function<String, Mono<Integer>> priceLookup;
+  private final Function<String, Flux<String>> tagLookup;
+
+  public ReactiveService(
+      Function<String, Mono<Integer>> priceLookup, Function<String, Flux<String>> tagLookup) {
+    this.priceLookup = priceLookup;
+    this.tagLookup = tagLookup;
+  }
+
+  public Mono<Integer> price(String article) {
+    return priceLookup.apply(article).switchIfEmpty(Mono.empty()).defaultIfEmpty(0);
+  }
+
+  public Flux<Integer> prices(List<String> articles) {
+    return Flux.fromIterable(articles).flatMap(priceLookup::apply);
+  }
+
+  public Flux<Integer> orderedPrices(Flux<String> articles) {
+    return articles.concatMap(a -> priceLookup.apply(a));
+  }
+
+  public Flux<String> tags(Flux<String> articles) {
+    return articles.flatMap(a -> tagLookup.apply(a).flatMap(t -> Mono.just(t.trim())));
+  }
+
+  public Mono<List<String>> allTags(String article) {
+    return tagLookup.apply(article).collectList();
+  }
+
+  public Mono<ImmutableList<String>> immutableTags(String article) {
+    return tagLookup.apply(article).collect(ImmutableList.toImmutableList());
+  }
+
+  public Mono<Integer> total(Flux<String> articles) {
+    return articles.flatMap(priceLookup::apply).reduce(0, Integer::sum);
+  }
+
+  public Mono<Void> touch(String article) {
+    return price(article).then().then(Mono.empty());
+  }
+
+  public Mono<Boolean> exists(String article) {
+    return price(article).map(p -> true).defaultIfEmpty(false);
+  }
+
+  public Mono<Integer> cachedPrice(String article) {
+    return Mono.defer(() -> price(article)).cache(Duration.ofMinutes(1));
+  }
+
+  public Mono<String> fromOptional(Optional<String> value) {
+    return value.map(Mono::just).orElse(Mono.empty());
+  }
+
+  public Mono<String> fromCallable(Callable<String> callable) {
+    return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  public Flux<Integer> retried(String article) {
+    return Flux.just(article)
+        .flatMap(priceLookup::apply)
+        .onErrorResume(e -> Mono.empty())
+        .doOnNext(p -> LOG.debug("Price of {}: {}", article, p))
+        .doOnError(e -> LOG.error("Failed to look up price of " + article, e));
+  }
+
+  public Flux<String> merged(Flux<String> a, Flux<String> b) {
+    return Flux.concat(a, b).distinct().take(100);
+  }
+
+  public Mono<Integer> first(Flux<Integer> values) {
+    return values.next().map(v -> v * 2).filter(v -> v > 0);
+  }
+
+  public Flux<Integer> zipped(Flux<Integer> a, Flux<Integer> b) {
+    return Flux.zip(a, b).map(t -> t.getT1() + t.getT2());
+  }
+
+  public Mono<Integer> sum(Mono<Integer> a, Mono<Integer> b) {
+    return Mono.zip(a, b).map(t -> t.getT1() + t.getT2());
+  }
+
+  public Flux<String> fromArray(String... values) {
+    return Flux.fromArray(values).switchIfEmpty(Flux.empty());
+  }
+
+  public Mono<String> nonEmpty(Mono<String> value) {
+    return value.filter(s -> !s.isEmpty()).switchIfEmpty(Mono.error(IllegalStateException::new));
+  }
+}
@@ -0,0 +1,50 @@
+package tech.picnic.errorprone.benchmarks;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.ClassPath;
+import com.google.errorprone.bugpatterns.BugChecker;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import javax.tools.Diagnostic;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Param;
+
+final class BugCheckerBenchmarkTest {
+  @Test
+  void parametersCoverAllBugCheckers() throws IOException, NoSuchFieldException {
+    ImmutableSet<String> bugCheckers =
+        ClassPath.from(BugChecker.class.getClassLoader())
+            .getTopLevelClasses(BugCheckerBenchmark.BUG_PATTERNS_PACKAGE)
+            .stream()
+            .map(ClassPath.ClassInfo::load)
+            .filter(BugChecker.class::isAssignableFrom)
+            .filter(clazz -> !Modifier.isAbstract(clazz.getModifiers()))
+            .map(Class::getSimpleName)
+            .collect(toImmutableSet());
+
+    assertThat(
+            BugCheckerBenchmark.class
+                .getDeclaredField("bugChecker")
+                .getAnnotation(Param.class)
+                .value())
+        .containsExactlyInAnyOrderElementsOf(
+            ImmutableSet.<String>builder()
+                .add(BugCheckerBenchmark.NO_BUG_CHECKER)
+                .addAll(bugCheckers)
+                .build());
+  }
+
+  @Test
+  void corpusCompiles() throws ClassNotFoundException {
+    assertThat(BugCheckerBenchmark.createCompilation(BugCheckerBenchmark.NO_BUG_CHECKER).compile())
+        .noneMatch(d -> d.getKind() == Diagnostic.Kind.ERROR);
+  }
+
+  @Test
+  void bugCheckersReportFindings() throws ClassNotFoundException {
+    assertThat(BugCheckerBenchmark.createCompilation("StaticImport").compile()).isNotEmpty();
+  }
+}
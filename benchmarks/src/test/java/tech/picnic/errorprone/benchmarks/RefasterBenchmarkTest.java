@@ -0,0 +1,15 @@
+package tech.picnic.errorprone.benchmarks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+final class RefasterBenchmarkTest {
+  @ParameterizedTest
+  @ValueSource(
+      strings = {RefasterBenchmark.REPRESENTATIVE_CORPUS, RefasterBenchmark.MATCH_HEAVY_CORPUS})
+  void compile(String corpus) {
+    assertThat(RefasterBenchmark.createCompilation(corpus).compile()).isNotEmpty();
+  }
+}
@@ -0,0 +1,394 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Types;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.type.TypeKind;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags numeric reductions of {@link Stream}s that can be performed on a
+ * primitive stream instead, thus avoiding the allocation of boxed intermediate values.
+ *
+ * <p>The following reductions are flagged:
+ *
+ * <ul>
+ *   <li>{@code stream.reduce(0, Integer::sum)}, which is replaced with {@code
+ *       stream.mapToInt(Integer::intValue).sum()};
+ *   <li>{@code stream.collect(summingInt(f))} and {@code stream.collect(averagingInt(f))}, which
+ *       are replaced with {@code stream.mapToInt(f).sum()} and {@code
+ *       stream.mapToInt(f).average().orElse(0)}, respectively;
+ *   <li>{@code stream.max(Integer::compare).get()} and similar, which are replaced with {@code
+ *       stream.mapToInt(Integer::intValue).max().getAsInt()}.
+ * </ul>
+ *
+ * <p>The same holds for {@code long} and (except for {@code min} and {@code max}, whose semantics
+ * differ for {@code NaN} values) {@code double} streams. If the stream is produced by a {@code
+ * map(f)} operation with a lambda expression or method reference {@code f}, then this operation is
+ * replaced with {@code mapToInt(f)}, such that boxing is avoided altogether.
+ *
+ * <p>As the suggested replacements yield a primitive rather than a boxed value, expressions are
+ * only flagged if they are used in a context in which this does not change the meaning of the code.
+ * Note that {@link java.util.stream.DoubleStream#sum()} uses compensated summation, so for {@code
+ * double} values the result of a replaced {@code reduce} operation may differ in its least
+ * significant bits.
+ */
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Prefer primitive streams over streams of boxed numbers for numeric reductions",
+    link = BUG_PATTERNS_BASE_URL + "BoxedStreamUsage",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class BoxedStreamUsage extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Supplier<Type> STREAM = Suppliers.typeFromClass(Stream.class);
+  private static final Matcher<ExpressionTree> STREAM_MAP =
+      instanceMethod().onDescendantOf(Stream.class.getName()).named("map");
+  private static final Matcher<ExpressionTree> STREAM_REDUCE =
+      instanceMethod()
+          .onDescendantOf(Stream.class.getName())
+          .named("reduce")
+          .withParameters(Object.class.getName(), BinaryOperator.class.getName());
+  private static final Matcher<ExpressionTree> STREAM_COLLECT =
+      instanceMethod()
+          .onDescendantOf(Stream.class.getName())
+          .named("collect")
+          .withParameters(Collector.class.getName());
+  private static final Matcher<ExpressionTree> STREAM_MIN_MAX =
+      instanceMethod().onDescendantOf(Stream.class.getName()).namedAnyOf("min", "max");
+  private static final Matcher<ExpressionTree> OPTIONAL_ACCESSOR =
+      anyOf(
+          instanceMethod().onExactClass(Optional.class.getName()).namedAnyOf("get", "orElse"),
+          instanceMethod()
+              .onExactClass(Optional.class.getName())
+              .named("orElseThrow")
+              .withNoParameters());
+  private static final Matcher<ExpressionTree> NUMERIC_COLLECTOR =
+      staticMethod()
+          .onClass(Collectors.class.getName())
+          .namedAnyOf(
+              "averagingDouble",
+              "averagingInt",
+              "averagingLong",
+              "summingDouble",
+              "summingInt",
+              "summingLong");
+  private static final Matcher<ExpressionTree> SUM_FUNCTION =
+      staticMethod()
+          .onClassAny(Double.class.getName(), Integer.class.getName(), Long.class.getName())
+          .named("sum");
+  private static final Matcher<ExpressionTree> NATURAL_ORDER_COMPARATOR =
+      anyOf(
+          staticMethod().onClassAny(Integer.class.getName(), Long.class.getName()).named("compare"),
+          instanceMethod()
+              .onExactClassAny(Integer.class.getName(), Long.class.getName())
+              .named("compareTo"),
+          staticMethod().onClass(Comparator.class.getName()).named("naturalOrder"));
+
+  /** Instantiates a new {@link BoxedStreamUsage} instance. */
+  public BoxedStreamUsage() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (STREAM_REDUCE.matches(tree, state)) {
+      return matchSumReduction(tree, state);
+    }
+
+    if (STREAM_COLLECT.matches(tree, state)) {
+      return matchNumericCollector(tree, state);
+    }
+
+    if (OPTIONAL_ACCESSOR.matches(tree, state)) {
+      return matchMinOrMax(tree, state);
+    }
+
+    return Description.NO_MATCH;
+  }
+
+  private Description matchSumReduction(MethodInvocationTree tree, VisitorState state) {
+    ExpressionTree stream = ASTHelpers.getReceiver(tree);
+    if (stream == null
+        || !isZero(tree.getArguments().get(0))
+        || !SUM_FUNCTION.matches(tree.getArguments().get(1), state)
+        || !isUnboxingSafe(state)) {
+      return Description.NO_MATCH;
+    }
+
+    return getBoxedElementType(stream, state)
+        .map(type -> describeMatch(tree, toPrimitiveStream(stream, type, tree, ".sum()", state)))
+        .orElse(Description.NO_MATCH);
+  }
+
+  private Description matchNumericCollector(MethodInvocationTree tree, VisitorState state) {
+    ExpressionTree stream = ASTHelpers.getReceiver(tree);
+    ExpressionTree collector = tree.getArguments().get(0);
+    if (stream == null
+        || !(collector instanceof MethodInvocationTree)
+        || !NUMERIC_COLLECTOR.matches(collector, state)
+        || !isUnboxingSafe(state)) {
+      return Description.NO_MATCH;
+    }
+
+    MethodInvocationTree collectorInvocation = (MethodInvocationTree) collector;
+    String collectorName = ASTHelpers.getSymbol(collectorInvocation).getSimpleName().toString();
+    boolean isAveraging = collectorName.startsWith("averaging");
+    String elementType =
+        collectorName.substring(isAveraging ? "averaging".length() : "summing".length());
+    String replacement =
+        String.format(
+            ".mapTo%s(%s)%s",
+            elementType,
+            SourceCode.treeToString(collectorInvocation.getArguments().get(0), state),
+            isAveraging ? ".average().orElse(0)" : ".sum()");
+
+    return describeMatch(
+        tree,
+        SuggestedFix.replace(
+            state.getEndPosition(stream), state.getEndPosition(tree), replacement));
+  }
+
+  private Description matchMinOrMax(MethodInvocationTree tree, VisitorState state) {
+    ExpressionTree minOrMax = ASTHelpers.getReceiver(tree);
+    if (!(minOrMax instanceof MethodInvocationTree) || !STREAM_MIN_MAX.matches(minOrMax, state)) {
+      return Description.NO_MATCH;
+    }
+
+    MethodInvocationTree minOrMaxInvocation = (MethodInvocationTree) minOrMax;
+    ExpressionTree stream = ASTHelpers.getReceiver(minOrMaxInvocation);
+    if (stream == null
+        || !NATURAL_ORDER_COMPARATOR.matches(minOrMaxInvocation.getArguments().get(0), state)
+        || !isUnboxingSafe(state)) {
+      return Description.NO_MATCH;
+    }
+
+    return getBoxedElementType(stream, state)
+        .filter(type -> type != PrimitiveStream.DOUBLE)
+        .flatMap(
+            type ->
+                getPrimitiveAccessor(tree, type, state)
+                    .map(
+                        accessor ->
+                            String.format(
+                                ".%s().%s",
+                                ASTHelpers.getSymbol(minOrMaxInvocation).getSimpleName(), accessor))
+                    .map(
+                        terminalOperation ->
+                            describeMatch(
+                                tree,
+                                toPrimitiveStream(stream, type, tree, terminalOperation, state))))
+        .orElse(Description.NO_MATCH);
+  }
+
+  /**
+   * Returns the source code of the invocation of the primitive optional's method that is equivalent
+   * to the given {@link Optional} method invocation, if any.
+   */
+  private static Optional<String> getPrimitiveAccessor(
+      MethodInvocationTree tree, PrimitiveStream type, VisitorState state) {
+    switch (ASTHelpers.getSymbol(tree).getSimpleName().toString()) {
+      case "get":
+        return Optional.of(String.format("getAs%s()", type.getName()));
+      case "orElseThrow":
+        return Optional.of("orElseThrow()");
+      case "orElse":
+        /* Unboxing a `null` default value would yield a `NullPointerException`. */
+        ExpressionTree defaultValue = tree.getArguments().get(0);
+        Type defaultValueType = ASTHelpers.getType(defaultValue);
+        return defaultValueType != null && defaultValueType.isPrimitive()
+            ? Optional.of(String.format("orElse(%s)", SourceCode.treeToString(defaultValue, state)))
+            : Optional.empty();
+      default:
+        return Optional.empty();
+    }
+  }
+
+  /**
+   * Suggests replacing the given stream of boxed values with a primitive stream, followed by the
+   * given terminal operation, which replaces the remainder of the given tree.
+   */
+  private static SuggestedFix toPrimitiveStream(
+      ExpressionTree stream,
+      PrimitiveStream type,
+      ExpressionTree tree,
+      String terminalOperation,
+      VisitorState state) {
+    int startPosition = state.getEndPosition(stream);
+    int endPosition = state.getEndPosition(tree);
+    if (isConvertibleMapOperation(stream, state)) {
+      /* Have the mapping function directly produce primitive values. */
+      return SuggestedFix.builder()
+          .merge(
+              SuggestedFixes.renameMethodInvocation(
+                  (MethodInvocationTree) stream, "mapTo" + type.getName(), state))
+          .replace(startPosition, endPosition, terminalOperation)
+          .build();
+    }
+
+    return SuggestedFix.replace(
+        startPosition,
+        endPosition,
+        String.format(
+                ".mapTo%s(%s::%sValue)", type.getName(), type.getBoxedName(), type.getKeyword())
+            + terminalOperation);
+  }
+
+  private static boolean isConvertibleMapOperation(ExpressionTree tree, VisitorState state) {
+    if (!STREAM_MAP.matches(tree, state)) {
+      return false;
+    }
+
+    MethodInvocationTree invocation = (MethodInvocationTree) tree;
+    if (!invocation.getTypeArguments().isEmpty()) {
+      return false;
+    }
+
+    Tree.Kind argumentKind = invocation.getArguments().get(0).getKind();
+    return argumentKind == Tree.Kind.LAMBDA_EXPRESSION
+        || argumentKind == Tree.Kind.MEMBER_REFERENCE;
+  }
+
+  private static Optional<PrimitiveStream> getBoxedElementType(
+      ExpressionTree stream, VisitorState state) {
+    Type streamType = STREAM.get(state);
+    Type type = ASTHelpers.getType(stream);
+    if (streamType == null || type == null) {
+      return Optional.empty();
+    }
+
+    Types types = state.getTypes();
+    Type asStream = types.asSuper(type, streamType.tsym);
+    if (asStream == null || asStream.getTypeArguments().size() != 1) {
+      return Optional.empty();
+    }
+
+    Type elementType = types.wildUpperBound(asStream.getTypeArguments().get(0));
+    return PrimitiveStream.forKind(types.unboxedType(elementType).getKind());
+  }
+
+  private static boolean isZero(ExpressionTree tree) {
+    Object value = ASTHelpers.constValue(tree);
+    return value instanceof Number && Double.compare(((Number) value).doubleValue(), 0.0) == 0;
+  }
+
+  /**
+   * Tells whether the expression currently being matched can be replaced with an expression of the
+   * associated primitive type without changing the meaning of the enclosing code.
+   */
+  private static boolean isUnboxingSafe(VisitorState state) {
+    TreePath expressionPath = skipParentheses(state.getPath());
+    Tree expression = expressionPath.getLeaf();
+    Tree parent = expressionPath.getParentPath().getLeaf();
+    switch (parent.getKind()) {
+      case ASSIGNMENT:
+      case EXPRESSION_STATEMENT:
+      case LAMBDA_EXPRESSION:
+      case RETURN:
+        return true;
+      case EQUAL_TO:
+      case NOT_EQUAL_TO:
+        /* Boxed values may be compared by reference. */
+        return false;
+      case VARIABLE:
+        /* The type of a variable declared using `var` would change. */
+        return !ASTHelpers.hasNoExplicitType((VariableTree) parent, state);
+      case METHOD_INVOCATION:
+        return isPrimitiveArgument((MethodInvocationTree) parent, expression);
+      default:
+        return parent instanceof BinaryTree || parent instanceof CompoundAssignmentTree;
+    }
+  }
+
+  private static TreePath skipParentheses(TreePath path) {
+    TreePath parentPath = path.getParentPath();
+    return parentPath.getLeaf() instanceof ParenthesizedTree ? skipParentheses(parentPath) : path;
+  }
+
+  /**
+   * Tells whether the given expression is passed as an argument to a method parameter of a
+   * primitive type; in other cases the replacement could change which method overload is invoked.
+   */
+  private static boolean isPrimitiveArgument(MethodInvocationTree invocation, Tree expression) {
+    int index = invocation.getArguments().indexOf(expression);
+    MethodSymbol method = ASTHelpers.getSymbol(invocation);
+    List<? extends Type> parameterTypes = method.type.getParameterTypes();
+    return index >= 0
+        && !method.isVarArgs()
+        && index < parameterTypes.size()
+        && parameterTypes.get(index).isPrimitive();
+  }
+
+  /** The primitive stream types to which a stream of boxed values can be converted. */
+  private enum PrimitiveStream {
+    INT(TypeKind.INT, "Int", "Integer"),
+    LONG(TypeKind.LONG, "Long", "Long"),
+    DOUBLE(TypeKind.DOUBLE, "Double", "Double");
+
+    private final TypeKind kind;
+    private final String name;
+    private final String boxedName;
+
+    PrimitiveStream(TypeKind kind, String name, String boxedName) {
+      this.kind = kind;
+      this.name = name;
+      this.boxedName = boxedName;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getBoxedName() {
+      return boxedName;
+    }
+
+    String getKeyword() {
+      return name.toLowerCase(Locale.ROOT);
+    }
+
+    static Optional<PrimitiveStream> forKind(TypeKind kind) {
+      for (PrimitiveStream type : values()) {
+        if (type.kind == kind) {
+          return Optional.of(type);
+        }
+      }
+      return Optional.empty();
+    }
+  }
+}
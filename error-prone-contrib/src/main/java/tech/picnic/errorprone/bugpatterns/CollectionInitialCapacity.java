@@ -0,0 +1,325 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.constructor;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.VariableTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.EnhancedForLoopTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import java.util.List;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+import tech.picnic.errorprone.bugpatterns.util.ThirdPartyLibrary;
+
+/**
+ * A {@link BugChecker} that flags collections that are populated by a loop over a collection or
+ * array of known size, without being created with a matching initial capacity.
+ *
+ * <p>Such collections may need to grow several times while being populated, each time copying their
+ * contents. A collection is only flagged if it is created using a no-argument constructor and the
+ * first subsequent statement that references it is an enhanced {@code for} loop whose body
+ * unconditionally adds exactly one element to it per iteration. Additionally, the loop's source
+ * must be declared before the collection, and may not be referenced between the collection's
+ * declaration and the loop, such that its size is known upon the collection's creation.
+ *
+ * <p>{@link java.util.ArrayList}s and {@link java.util.ArrayDeque}s are assigned an initial
+ * capacity, while hash-based collections are created using Guava's {@code
+ * Maps#newHashMapWithExpectedSize(int)} and related methods, which account for the collection's
+ * load factor.
+ */
+// XXX: Also support indexed `for` loops and `Iterable#forEach` invocations.
+// XXX: Consider suggesting a stream-based alternative if the collection is not subsequently
+// modified.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Specify the initial capacity of collections populated from a source of known size",
+    link = BUG_PATTERNS_BASE_URL + "CollectionInitialCapacity",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class CollectionInitialCapacity extends BugChecker implements VariableTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final ImmutableSet<String> CAPACITY_CONSTRUCTOR_TYPES =
+      ImmutableSet.of("java.util.ArrayDeque", "java.util.ArrayList");
+  private static final ImmutableMap<String, String> GUAVA_FACTORY_METHODS =
+      ImmutableMap.of(
+          "java.util.HashMap", "com.google.common.collect.Maps.newHashMapWithExpectedSize",
+          "java.util.HashSet", "com.google.common.collect.Sets.newHashSetWithExpectedSize",
+          "java.util.LinkedHashMap",
+              "com.google.common.collect.Maps.newLinkedHashMapWithExpectedSize",
+          "java.util.LinkedHashSet",
+              "com.google.common.collect.Sets.newLinkedHashSetWithExpectedSize");
+  private static final Matcher<ExpressionTree> NO_ARG_CONSTRUCTOR =
+      constructor()
+          .forClass(
+              (type, state) ->
+                  CAPACITY_CONSTRUCTOR_TYPES.contains(type.tsym.getQualifiedName().toString())
+                      || GUAVA_FACTORY_METHODS.containsKey(type.tsym.getQualifiedName().toString()))
+          .withNoParameters();
+  private static final Matcher<ExpressionTree> COLLECTION = isSubtypeOf("java.util.Collection");
+  private static final Matcher<ExpressionTree> MAP = isSubtypeOf("java.util.Map");
+
+  /** Instantiates a new {@link CollectionInitialCapacity} instance. */
+  public CollectionInitialCapacity() {}
+
+  @Override
+  public Description matchVariable(VariableTree tree, VisitorState state) {
+    ExpressionTree initializer = tree.getInitializer();
+    Tree parent = state.getPath().getParentPath().getLeaf();
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    if (!(initializer instanceof NewClassTree)
+        || ((NewClassTree) initializer).getClassBody() != null
+        || !NO_ARG_CONSTRUCTOR.matches(initializer, state)
+        || !(parent instanceof BlockTree)
+        || symbol == null) {
+      return Description.NO_MATCH;
+    }
+
+    BlockTree block = (BlockTree) parent;
+    return getPopulatingLoop(tree, block, symbol)
+        .filter(loop -> addsOneElementPerIteration(loop, symbol, state))
+        .filter(loop -> isSourceUnchangedSinceDeclaration(tree, loop, block))
+        .flatMap(loop -> getSourceSize(loop.getExpression(), state))
+        .flatMap(size -> suggestInitialCapacity(tree, (NewClassTree) initializer, size, state))
+        .map(fix -> describeMatch(initializer, fix))
+        .orElse(Description.NO_MATCH);
+  }
+
+  /**
+   * Returns the enhanced {@code for} loop that populates the collection declared by the given
+   * variable, if it is the first statement following the declaration that references it.
+   */
+  private static Optional<EnhancedForLoopTree> getPopulatingLoop(
+      VariableTree declaration, BlockTree block, Symbol symbol) {
+    List<? extends StatementTree> statements = block.getStatements();
+    return statements.subList(statements.indexOf(declaration) + 1, statements.size()).stream()
+        .filter(statement -> references(statement, symbol))
+        .findFirst()
+        .filter(EnhancedForLoopTree.class::isInstance)
+        .map(EnhancedForLoopTree.class::cast);
+  }
+
+  /**
+   * Tells whether the body of the given loop unconditionally adds a single element to the
+   * collection represented by the given symbol, and doesn't otherwise reference it.
+   */
+  private static boolean addsOneElementPerIteration(
+      EnhancedForLoopTree loop, Symbol symbol, VisitorState state) {
+    if (references(loop.getExpression(), symbol) || containsJump(loop.getStatement())) {
+      return false;
+    }
+
+    StatementTree body = loop.getStatement();
+    List<? extends StatementTree> statements =
+        body instanceof BlockTree ? ((BlockTree) body).getStatements() : List.of(body);
+    return statements.stream().filter(statement -> references(statement, symbol)).count() == 1
+        && statements.stream().anyMatch(statement -> isSingleInsertion(statement, symbol, state));
+  }
+
+  /**
+   * Tells whether none of the statements between the given declaration and loop declare or
+   * reference the variables that make up the loop's source, such that the source's size upon
+   * declaration equals the number of loop iterations.
+   */
+  private static boolean isSourceUnchangedSinceDeclaration(
+      VariableTree declaration, EnhancedForLoopTree loop, BlockTree block) {
+    ImmutableSet<Symbol> sourceVariables = getReferencedVariables(loop.getExpression());
+    List<? extends StatementTree> statements = block.getStatements();
+    return statements
+        .subList(statements.indexOf(declaration) + 1, statements.indexOf(loop))
+        .stream()
+        .noneMatch(
+            statement ->
+                sourceVariables.stream()
+                    .anyMatch(
+                        variable ->
+                            variable.equals(ASTHelpers.getSymbol(statement))
+                                || references(statement, variable)));
+  }
+
+  /** Returns the variables that make up the given variable reference, such as {@code a.b.c}. */
+  private static ImmutableSet<Symbol> getReferencedVariables(ExpressionTree tree) {
+    ImmutableSet.Builder<Symbol> variables = ImmutableSet.builder();
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    if (symbol instanceof Symbol.VarSymbol) {
+      variables.add(symbol);
+    }
+    if (tree instanceof MemberSelectTree) {
+      variables.addAll(getReferencedVariables(((MemberSelectTree) tree).getExpression()));
+    }
+    return variables.build();
+  }
+
+  private static boolean isSingleInsertion(
+      StatementTree statement, Symbol symbol, VisitorState state) {
+    if (!(statement instanceof ExpressionStatementTree)
+        || !(((ExpressionStatementTree) statement).getExpression()
+            instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    MethodInvocationTree invocation =
+        (MethodInvocationTree) ((ExpressionStatementTree) statement).getExpression();
+    ExpressionTree receiver = ASTHelpers.getReceiver(invocation);
+    if (!(receiver instanceof IdentifierTree)
+        || !symbol.equals(ASTHelpers.getSymbol(receiver))
+        || invocation.getArguments().stream().anyMatch(argument -> references(argument, symbol))) {
+      return false;
+    }
+
+    String methodName = ASTHelpers.getSymbol(invocation).getSimpleName().toString();
+    return MAP.matches(receiver, state)
+        ? methodName.equals("put") && invocation.getArguments().size() == 2
+        : methodName.equals("add") && invocation.getArguments().size() == 1;
+  }
+
+  /**
+   * Returns an expression that evaluates to the number of elements produced by the given loop
+   * source, provided that this expression can be evaluated cheaply and without side effects.
+   */
+  private static Optional<String> getSourceSize(ExpressionTree source, VisitorState state) {
+    if (!isVariableReference(source)) {
+      return Optional.empty();
+    }
+
+    String sourceCode = SourceCode.treeToString(source, state);
+    Type type = ASTHelpers.getType(source);
+    if (type != null && state.getTypes().isArray(type)) {
+      return Optional.of(sourceCode + ".length");
+    }
+
+    return COLLECTION.matches(source, state)
+        ? Optional.of(sourceCode + ".size()")
+        : Optional.empty();
+  }
+
+  private static Optional<SuggestedFix> suggestInitialCapacity(
+      VariableTree declaration, NewClassTree newClass, String size, VisitorState state) {
+    Type type = ASTHelpers.getType(newClass);
+    if (type == null) {
+      return Optional.empty();
+    }
+
+    String typeName = type.tsym.getQualifiedName().toString();
+    if (CAPACITY_CONSTRUCTOR_TYPES.contains(typeName)) {
+      return Optional.of(
+          SuggestedFix.replace(
+              newClass,
+              String.format(
+                  "new %s(%s)", SourceCode.treeToString(newClass.getIdentifier(), state), size)));
+    }
+
+    String factoryMethod = GUAVA_FACTORY_METHODS.get(typeName);
+    if (factoryMethod == null
+        || !ThirdPartyLibrary.GUAVA.isIntroductionAllowed(state)
+        || ASTHelpers.hasNoExplicitType(declaration, state)) {
+      /* Without an explicit variable type the factory method's type arguments can't be inferred. */
+      return Optional.empty();
+    }
+
+    int lastDot = factoryMethod.lastIndexOf('.');
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String factoryType =
+        SuggestedFixes.qualifyType(state, fix, factoryMethod.substring(0, lastDot));
+    return Optional.of(
+        fix.replace(
+                newClass,
+                String.format("%s.%s(%s)", factoryType, factoryMethod.substring(lastDot + 1), size))
+            .build());
+  }
+
+  private static boolean isVariableReference(ExpressionTree tree) {
+    if (tree instanceof IdentifierTree) {
+      return ASTHelpers.getSymbol(tree) instanceof Symbol.VarSymbol;
+    }
+
+    return tree instanceof MemberSelectTree
+        && ASTHelpers.getSymbol(tree) instanceof Symbol.VarSymbol
+        && (isVariableReference(((MemberSelectTree) tree).getExpression())
+            || ((MemberSelectTree) tree).getExpression() instanceof IdentifierTree);
+  }
+
+  private static boolean references(Tree tree, Symbol symbol) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+            return symbol.equals(ASTHelpers.getSymbol(node));
+          }
+
+          @Override
+          public @Nullable Boolean visitMemberSelect(MemberSelectTree node, @Nullable Void unused) {
+            return symbol.equals(ASTHelpers.getSymbol(node))
+                || Boolean.TRUE.equals(super.visitMemberSelect(node, unused));
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Tells whether the given statement contains a {@code break}, {@code continue}, {@code return} or
+   * {@code throw} statement, any of which could cause an iteration to not add an element.
+   */
+  private static boolean containsJump(StatementTree statement) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean scan(Tree tree, @Nullable Void unused) {
+            if (tree == null) {
+              return false;
+            }
+
+            switch (tree.getKind()) {
+              case BREAK:
+              case CONTINUE:
+              case RETURN:
+              case THROW:
+                return true;
+              case CLASS:
+              case LAMBDA_EXPRESSION:
+                /* Jumps inside nested classes and lambda expressions don't affect the loop. */
+                return false;
+              default:
+                return super.scan(tree, unused);
+            }
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(statement, null));
+  }
+}
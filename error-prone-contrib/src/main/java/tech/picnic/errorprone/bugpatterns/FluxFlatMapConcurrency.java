@@ -0,0 +1,252 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static java.util.stream.Collectors.joining;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.LongMath;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.TypeTag;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A {@link BugChecker} that flags {@code flatMap} operators whose effective concurrency, taking
+ * into account enclosing {@code flatMap} operators and {@code parallel()} rails, exceeds a
+ * configurable threshold.
+ *
+ * <p>The concurrency of a {@code flatMap} operator nested inside the mapping function of another
+ * {@code flatMap} operator is multiplied by the concurrency of the latter: by default two nested
+ * {@link reactor.core.publisher.Flux#flatMap(java.util.function.Function)} invocations allow for
+ * {@code 256 * 256} concurrent inner subscriptions. Likewise, the concurrency of a {@link
+ * reactor.core.publisher.ParallelFlux} operator is multiplied by the number of rails.
+ *
+ * <p>Unless specified explicitly, concurrency and prefetch values are assumed to match Reactor's
+ * defaults. The number of rails created by {@link reactor.core.publisher.Flux#parallel()} depends
+ * on the runtime environment, and is assumed to equal the value of the {@code
+ * FluxFlatMapConcurrency:AssumedParallelism} flag (default: 8). The threshold can be configured
+ * using the {@code FluxFlatMapConcurrency:MaxConcurrency} flag (default: 1024).
+ *
+ * @see FluxFlatMapUsage
+ */
+// XXX: Concurrency levels that are not compile-time constants are currently not supported; consider
+// tracking them through (effectively) final variables.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary =
+        "Nested `flatMap` operators may yield an excessive number of concurrent subscriptions",
+    link = BUG_PATTERNS_BASE_URL + "FluxFlatMapConcurrency",
+    linkType = CUSTOM,
+    severity = WARNING,
+    tags = PERFORMANCE)
+public final class FluxFlatMapConcurrency extends BugChecker
+    implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String MAX_CONCURRENCY_FLAG = "FluxFlatMapConcurrency:MaxConcurrency";
+  private static final String ASSUMED_PARALLELISM_FLAG =
+      "FluxFlatMapConcurrency:AssumedParallelism";
+  private static final int DEFAULT_MAX_CONCURRENCY = 1024;
+  private static final int DEFAULT_ASSUMED_PARALLELISM = 8;
+  /** The default value of {@link reactor.util.concurrent.Queues#SMALL_BUFFER_SIZE}. */
+  private static final int SMALL_BUFFER_SIZE = 256;
+  /** The default value of {@link reactor.util.concurrent.Queues#XS_BUFFER_SIZE}. */
+  private static final int XS_BUFFER_SIZE = 32;
+
+  private static final Matcher<ExpressionTree> FLUX_FLAT_MAP =
+      instanceMethod()
+          .onDescendantOf("reactor.core.publisher.Flux")
+          .namedAnyOf("flatMap", "flatMapDelayError", "flatMapSequential");
+  private static final Matcher<ExpressionTree> PARALLEL_FLUX_FLAT_MAP =
+      instanceMethod().onDescendantOf("reactor.core.publisher.ParallelFlux").named("flatMap");
+  private static final Matcher<ExpressionTree> PARALLEL =
+      instanceMethod().onDescendantOf("reactor.core.publisher.Flux").named("parallel");
+  private static final Matcher<ExpressionTree> PARALLEL_FLUX_METHOD =
+      instanceMethod().onDescendantOf("reactor.core.publisher.ParallelFlux");
+
+  private final int maxConcurrency;
+  private final int assumedParallelism;
+
+  /** Instantiates a default {@link FluxFlatMapConcurrency} instance. */
+  public FluxFlatMapConcurrency() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link FluxFlatMapConcurrency}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public FluxFlatMapConcurrency(ErrorProneFlags flags) {
+    maxConcurrency = flags.getInteger(MAX_CONCURRENCY_FLAG).orElse(DEFAULT_MAX_CONCURRENCY);
+    assumedParallelism =
+        flags.getInteger(ASSUMED_PARALLELISM_FLAG).orElse(DEFAULT_ASSUMED_PARALLELISM);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!isFlatMap(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    return getConcurrencyFactors(state.getPath(), state)
+        .filter(factors -> product(factors) > maxConcurrency)
+        .map(factors -> describe(tree, factors, state))
+        .orElse(Description.NO_MATCH);
+  }
+
+  private Description describe(
+      MethodInvocationTree tree, ImmutableList<Integer> factors, VisitorState state) {
+    long concurrency = product(factors);
+    int prefetch =
+        getPrefetch(tree)
+            .orElse(
+                PARALLEL_FLUX_FLAT_MAP.matches(tree, state) ? SMALL_BUFFER_SIZE : XS_BUFFER_SIZE);
+    return buildDescription(tree)
+        .setMessage(
+            String.format(
+                "This operator allows for up to %s (%s) concurrent inner subscriptions, which "
+                    + "combined may prefetch up to %s elements; this exceeds the configured "
+                    + "maximum of %s. Consider reducing the concurrency or prefetch of this or "
+                    + "enclosing operators",
+                concurrency,
+                factors.stream().map(String::valueOf).collect(joining(" * ")),
+                LongMath.saturatedMultiply(concurrency, prefetch),
+                maxConcurrency))
+        .build();
+  }
+
+  /**
+   * Returns the factors that together determine the effective concurrency of the {@code flatMap}
+   * invocation at the given path, from the outermost enclosing operator to the given invocation
+   * itself.
+   *
+   * <p>An empty result is returned if any of the factors cannot be determined statically.
+   */
+  private Optional<ImmutableList<Integer>> getConcurrencyFactors(
+      TreePath path, VisitorState state) {
+    MethodInvocationTree invocation = (MethodInvocationTree) path.getLeaf();
+    Optional<ImmutableList<Integer>> ownFactors =
+        PARALLEL_FLUX_FLAT_MAP.matches(invocation, state)
+            ? getParallelism(ASTHelpers.getReceiver(invocation), state)
+                .flatMap(
+                    rails ->
+                        getConcurrency(invocation, Integer.MAX_VALUE)
+                            .map(concurrency -> ImmutableList.of(rails, concurrency)))
+            : getConcurrency(invocation, SMALL_BUFFER_SIZE).map(ImmutableList::of);
+
+    return ownFactors.flatMap(
+        factors ->
+            getEnclosingFlatMap(path.getParentPath(), state)
+                .map(
+                    enclosing ->
+                        getConcurrencyFactors(enclosing, state)
+                            .map(
+                                outer ->
+                                    ImmutableList.<Integer>builder()
+                                        .addAll(outer)
+                                        .addAll(factors)
+                                        .build()))
+                .orElseGet(() -> Optional.of(factors)));
+  }
+
+  /**
+   * Returns the path to the {@code flatMap} invocation to whose mapping function the code at the
+   * given path belongs, if any.
+   */
+  private static Optional<TreePath> getEnclosingFlatMap(
+      @Nullable TreePath path, VisitorState state) {
+    if (path == null) {
+      return Optional.empty();
+    }
+
+    switch (path.getLeaf().getKind()) {
+      case CLASS:
+      case METHOD:
+        return Optional.empty();
+      case LAMBDA_EXPRESSION:
+        TreePath parent = path.getParentPath();
+        if (parent.getLeaf() instanceof MethodInvocationTree
+            && ((MethodInvocationTree) parent.getLeaf()).getArguments().contains(path.getLeaf())
+            && isFlatMap((ExpressionTree) parent.getLeaf(), state)) {
+          return Optional.of(parent);
+        }
+        return getEnclosingFlatMap(parent, state);
+      default:
+        return getEnclosingFlatMap(path.getParentPath(), state);
+    }
+  }
+
+  /**
+   * Returns the number of rails of the {@link reactor.core.publisher.ParallelFlux} produced by the
+   * given expression, if it can be determined statically.
+   */
+  private Optional<Integer> getParallelism(@Nullable ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof MethodInvocationTree)) {
+      return Optional.empty();
+    }
+
+    MethodInvocationTree invocation = (MethodInvocationTree) tree;
+    if (PARALLEL.matches(invocation, state)) {
+      return invocation.getArguments().isEmpty()
+          ? Optional.of(assumedParallelism)
+          : getIntArgument(invocation, 0);
+    }
+
+    return PARALLEL_FLUX_METHOD.matches(invocation, state)
+        ? getParallelism(ASTHelpers.getReceiver(invocation), state)
+        : Optional.empty();
+  }
+
+  private static Optional<Integer> getConcurrency(
+      MethodInvocationTree tree, int defaultConcurrency) {
+    ImmutableList<Integer> intParameters = getIntParameterIndices(tree);
+    return intParameters.isEmpty()
+        ? Optional.of(defaultConcurrency)
+        : getIntArgument(tree, intParameters.get(0));
+  }
+
+  private static Optional<Integer> getPrefetch(MethodInvocationTree tree) {
+    ImmutableList<Integer> intParameters = getIntParameterIndices(tree);
+    return intParameters.size() < 2 ? Optional.empty() : getIntArgument(tree, intParameters.get(1));
+  }
+
+  private static ImmutableList<Integer> getIntParameterIndices(MethodInvocationTree tree) {
+    List<VarSymbol> parameters = ASTHelpers.getSymbol(tree).getParameters();
+    return IntStream.range(0, parameters.size())
+        .filter(i -> parameters.get(i).asType().getTag() == TypeTag.INT)
+        .boxed()
+        .collect(toImmutableList());
+  }
+
+  private static Optional<Integer> getIntArgument(MethodInvocationTree tree, int index) {
+    return Optional.ofNullable(
+        ASTHelpers.constValue(tree.getArguments().get(index), Integer.class));
+  }
+
+  private static boolean isFlatMap(ExpressionTree tree, VisitorState state) {
+    return FLUX_FLAT_MAP.matches(tree, state) || PARALLEL_FLUX_FLAT_MAP.matches(tree, state);
+  }
+
+  private static long product(ImmutableList<Integer> factors) {
+    return factors.stream().mapToLong(Integer::longValue).reduce(1, LongMath::saturatedMultiply);
+  }
+}
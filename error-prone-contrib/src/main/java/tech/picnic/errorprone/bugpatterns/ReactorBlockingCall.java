@@ -0,0 +1,248 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static com.google.errorprone.BugPattern.StandardTags.CONCURRENCY;
+import static com.google.errorprone.matchers.Matchers.anyOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MemberReferenceTreeMatcher;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.util.TreePath;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.Flags;
+import tech.picnic.errorprone.bugpatterns.util.MethodMatcherFactory;
+
+/**
+ * A {@link BugChecker} that flags blocking method invocations inside lambda expressions and method
+ * references passed to Reactor operators.
+ *
+ * <p>Such functions are generally executed on the thread that emits the values being processed,
+ * which is often a thread managed by a non-blocking scheduler such as {@code
+ * Schedulers.parallel()}. Blocking such a thread stalls all other work scheduled on it. Blocking
+ * calls should instead be wrapped using e.g. {@code Mono.fromCallable}, with the resulting
+ * publisher being subscribed to on {@code Schedulers.boundedElastic()}.
+ *
+ * <p>Reactor pipelines that explicitly publish or subscribe on {@code Schedulers.boundedElastic()}
+ * are assumed to be safe. Additional blocking methods can be specified using the {@code
+ * ReactorBlockingCall:ExtraBlockingMethods} flag.
+ */
+// XXX: Pipelines that publish or subscribe on a scheduler stored in a field or variable are not
+// recognized as safe, even if said scheduler is a bounded elastic scheduler.
+// XXX: Consider also flagging blocking calls inside methods that are only invoked from within
+// Reactor operators.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary =
+        "Avoid blocking calls inside Reactor operators; wrap them in `Mono#fromCallable` and "
+            + "subscribe on `Schedulers#boundedElastic()` instead",
+    link = BUG_PATTERNS_BASE_URL + "ReactorBlockingCall",
+    linkType = CUSTOM,
+    severity = WARNING,
+    tags = CONCURRENCY)
+public final class ReactorBlockingCall extends BugChecker
+    implements MemberReferenceTreeMatcher, MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String EXTRA_BLOCKING_METHODS_FLAG =
+      "ReactorBlockingCall:ExtraBlockingMethods";
+  private static final Matcher<ExpressionTree> WELL_KNOWN_BLOCKING_METHODS =
+      anyOf(
+          instanceMethod()
+              .onDescendantOf("reactor.core.publisher.Mono")
+              .namedAnyOf("block", "blockOptional"),
+          instanceMethod()
+              .onDescendantOf("reactor.core.publisher.Flux")
+              .namedAnyOf("blockFirst", "blockLast", "toIterable", "toStream"),
+          staticMethod().onClass("java.lang.Thread").named("sleep"),
+          instanceMethod().onDescendantOf("java.lang.Thread").named("join"),
+          instanceMethod().onDescendantOf("java.util.concurrent.Future").named("get"),
+          instanceMethod().onDescendantOf("java.util.concurrent.CompletableFuture").named("join"),
+          instanceMethod()
+              .onDescendantOfAny(
+                  "java.util.concurrent.CountDownLatch", "java.util.concurrent.CyclicBarrier")
+              .named("await"),
+          instanceMethod()
+              .onDescendantOf("java.util.concurrent.BlockingQueue")
+              .namedAnyOf("put", "take"),
+          staticMethod().onClass("java.sql.DriverManager").named("getConnection"),
+          instanceMethod().onDescendantOf("javax.sql.DataSource").named("getConnection"),
+          instanceMethod()
+              .onDescendantOf("java.sql.Connection")
+              .namedAnyOf("commit", "prepareCall", "prepareStatement", "rollback"),
+          instanceMethod()
+              .onDescendantOf("java.sql.Statement")
+              .namedAnyOf(
+                  "execute",
+                  "executeBatch",
+                  "executeLargeUpdate",
+                  "executeQuery",
+                  "executeUpdate"));
+  private static final Matcher<ExpressionTree> REACTOR_METHOD =
+      anyOf(
+          instanceMethod()
+              .onDescendantOfAny(
+                  "reactor.core.publisher.Flux",
+                  "reactor.core.publisher.Mono",
+                  "reactor.core.publisher.ParallelFlux"),
+          staticMethod().onClassAny("reactor.core.publisher.Flux", "reactor.core.publisher.Mono"));
+  private static final Matcher<ExpressionTree> PUBLISHING_OPERATOR =
+      instanceMethod()
+          .onDescendantOfAny(
+              "reactor.core.publisher.Flux",
+              "reactor.core.publisher.Mono",
+              "reactor.core.publisher.ParallelFlux")
+          .namedAnyOf("publishOn", "runOn");
+  private static final Matcher<ExpressionTree> SUBSCRIBE_ON =
+      instanceMethod()
+          .onDescendantOfAny("reactor.core.publisher.Flux", "reactor.core.publisher.Mono")
+          .named("subscribeOn");
+  private static final Matcher<ExpressionTree> BOUNDED_ELASTIC_SCHEDULER =
+      staticMethod()
+          .onClass("reactor.core.scheduler.Schedulers")
+          .namedAnyOf("boundedElastic", "newBoundedElastic");
+
+  private final Matcher<ExpressionTree> blockingMethodMatcher;
+
+  /** Instantiates a default {@link ReactorBlockingCall} instance. */
+  public ReactorBlockingCall() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link ReactorBlockingCall}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public ReactorBlockingCall(ErrorProneFlags flags) {
+    blockingMethodMatcher = createBlockingMethodMatcher(flags);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    return match(tree, state);
+  }
+
+  @Override
+  public Description matchMemberReference(MemberReferenceTree tree, VisitorState state) {
+    return match(tree, state);
+  }
+
+  private Description match(ExpressionTree tree, VisitorState state) {
+    if (!blockingMethodMatcher.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    return getEnclosingReactorMethod(state.getPath(), state)
+        .filter(path -> !isScheduledOnBoundedElastic(path, state))
+        .map(path -> describeMatch(tree))
+        .orElse(Description.NO_MATCH);
+  }
+
+  /**
+   * Returns the path to the Reactor method invocation to which the code at the given path is passed
+   * as (part of) a lambda expression or method reference, if any.
+   *
+   * <p>Lambda expressions passed to other methods, such as {@link java.util.stream.Stream}
+   * operations, are assumed to be evaluated synchronously, and are thus looked through.
+   */
+  private static Optional<TreePath> getEnclosingReactorMethod(
+      @Nullable TreePath path, VisitorState state) {
+    if (path == null) {
+      return Optional.empty();
+    }
+
+    switch (path.getLeaf().getKind()) {
+      case CLASS:
+      case METHOD:
+        return Optional.empty();
+      case LAMBDA_EXPRESSION:
+      case MEMBER_REFERENCE:
+        TreePath parent = path.getParentPath();
+        if (parent.getLeaf() instanceof MethodInvocationTree
+            && ((MethodInvocationTree) parent.getLeaf()).getArguments().contains(path.getLeaf())
+            && REACTOR_METHOD.matches((ExpressionTree) parent.getLeaf(), state)) {
+          return Optional.of(parent);
+        }
+        return getEnclosingReactorMethod(parent, state);
+      default:
+        return getEnclosingReactorMethod(path.getParentPath(), state);
+    }
+  }
+
+  /**
+   * Tells whether the Reactor method invocation at the given path is part of a fluent chain that
+   * makes sure it is executed on a bounded elastic scheduler.
+   *
+   * <p>If the chain publishes on a specific scheduler upstream of the invocation, then only the
+   * nearest such scheduler is relevant; otherwise the invocation is executed on the scheduler on
+   * which the chain is subscribed.
+   */
+  private static boolean isScheduledOnBoundedElastic(TreePath path, VisitorState state) {
+    ExpressionTree tree = (ExpressionTree) path.getLeaf();
+    return getNearestUpstreamPublishingOperator(tree, state)
+        .map(operator -> hasBoundedElasticArgument(operator, state))
+        .orElseGet(
+            () ->
+                isSubscribedOnBoundedElasticUpstream(tree, state)
+                    || isSubscribedOnBoundedElasticDownstream(path, state));
+  }
+
+  private static Optional<ExpressionTree> getNearestUpstreamPublishingOperator(
+      @Nullable ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof MethodInvocationTree)) {
+      return Optional.empty();
+    }
+
+    return PUBLISHING_OPERATOR.matches(tree, state)
+        ? Optional.of(tree)
+        : getNearestUpstreamPublishingOperator(ASTHelpers.getReceiver(tree), state);
+  }
+
+  private static boolean isSubscribedOnBoundedElasticUpstream(
+      @Nullable ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    return (SUBSCRIBE_ON.matches(tree, state) && hasBoundedElasticArgument(tree, state))
+        || isSubscribedOnBoundedElasticUpstream(ASTHelpers.getReceiver(tree), state);
+  }
+
+  private static boolean isSubscribedOnBoundedElasticDownstream(TreePath path, VisitorState state) {
+    TreePath parent = path.getParentPath();
+    if (!(parent.getLeaf() instanceof MemberSelectTree)
+        || !(parent.getParentPath().getLeaf() instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    ExpressionTree invocation = (ExpressionTree) parent.getParentPath().getLeaf();
+    return (SUBSCRIBE_ON.matches(invocation, state) && hasBoundedElasticArgument(invocation, state))
+        || isSubscribedOnBoundedElasticDownstream(parent.getParentPath(), state);
+  }
+
+  private static boolean hasBoundedElasticArgument(ExpressionTree tree, VisitorState state) {
+    return ((MethodInvocationTree) tree)
+        .getArguments().stream().anyMatch(arg -> BOUNDED_ELASTIC_SCHEDULER.matches(arg, state));
+  }
+
+  private static Matcher<ExpressionTree> createBlockingMethodMatcher(ErrorProneFlags flags) {
+    return anyOf(
+        WELL_KNOWN_BLOCKING_METHODS,
+        new MethodMatcherFactory().create(Flags.getList(flags, EXTRA_BLOCKING_METHODS_FLAG)));
+  }
+}
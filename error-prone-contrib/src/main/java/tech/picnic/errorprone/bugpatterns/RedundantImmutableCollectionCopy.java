@@ -0,0 +1,334 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.staticMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ConditionalExpressionTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Types;
+import java.util.Optional;
+import javax.lang.model.element.ElementKind;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags immutable collection copies of expressions that are provably
+ * already immutable collections, even if their static type doesn't reflect this.
+ *
+ * <p>To this end the checker tracks immutability through effectively final local variables and
+ * through non-overridable methods declared in the same compilation unit. Copies of an expression
+ * that is already of the target type are redundant, while {@link
+ * com.google.common.collect.ImmutableList} copies of other immutable collections are more clearly
+ * expressed using {@link com.google.common.collect.ImmutableCollection#asList()}.
+ *
+ * <p>Where possible the suggested fix narrows the declared type of the local variable or private
+ * method that produces the immutable collection, such that the copy can be dropped.
+ *
+ * @see IdentityConversion
+ */
+// XXX: Also track immutability through fields that are initialized exactly once.
+// XXX: Consider supporting the `ImmutableMap` family of types.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Avoid copying collections that are already immutable",
+    link = BUG_PATTERNS_BASE_URL + "RedundantImmutableCollectionCopy",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class RedundantImmutableCollectionCopy extends BugChecker
+    implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Supplier<Type> IMMUTABLE_COLLECTION =
+      Suppliers.typeFromString("com.google.common.collect.ImmutableCollection");
+  private static final Supplier<Type> IMMUTABLE_LIST =
+      Suppliers.typeFromString("com.google.common.collect.ImmutableList");
+  private static final Matcher<ExpressionTree> IMMUTABLE_COLLECTION_COPY =
+      staticMethod()
+          .onClassAny(
+              "com.google.common.collect.ImmutableList",
+              "com.google.common.collect.ImmutableMultiset",
+              "com.google.common.collect.ImmutableSet")
+          .named("copyOf");
+
+  /** Instantiates a new {@link RedundantImmutableCollectionCopy} instance. */
+  public RedundantImmutableCollectionCopy() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (tree.getArguments().size() != 1 || !IMMUTABLE_COLLECTION_COPY.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree argument = ASTHelpers.stripParentheses(tree.getArguments().get(0));
+    Type argumentType = ASTHelpers.getType(argument);
+    Type resultType = ASTHelpers.getType(tree);
+    if (argumentType == null
+        || resultType == null
+        || isSubtype(argumentType, state.getTypes().erasure(resultType), state)) {
+      /* Copies of expressions whose static type matches the result are `IdentityConversion`s. */
+      return Description.NO_MATCH;
+    }
+
+    return getProvableType(argument, ImmutableSet.of(), state)
+        .filter(type -> hasSameElementType(type, resultType, state))
+        .flatMap(type -> describeCopy(tree, argument, type, resultType, state))
+        .orElse(Description.NO_MATCH);
+  }
+
+  private Optional<Description> describeCopy(
+      MethodInvocationTree tree,
+      ExpressionTree argument,
+      Type provableType,
+      Type resultType,
+      VisitorState state) {
+    Types types = state.getTypes();
+    boolean isRedundant = types.isSameType(types.erasure(provableType), types.erasure(resultType));
+    if (!isRedundant
+        && !types.isSameType(types.erasure(resultType), types.erasure(IMMUTABLE_LIST.get(state)))) {
+      /* Other conversions between immutable collection types do require a copy. */
+      return Optional.empty();
+    }
+
+    Description.Builder description =
+        buildDescription(tree)
+            .setMessage(
+                isRedundant
+                    ? "Argument is already an immutable collection of the target type; avoid the copy"
+                    : "Argument is already an immutable collection; prefer `asList()` over copying");
+    exposeType(argument, provableType, state)
+        .map(
+            fix ->
+                fix.replace(
+                    tree,
+                    SourceCode.treeToString(argument, state) + (isRedundant ? "" : ".asList()")))
+        .ifPresent(fix -> description.addFix(fix.build()));
+    return Optional.of(description.build());
+  }
+
+  /**
+   * Returns the immutable collection type that the given expression is guaranteed to evaluate to,
+   * if any.
+   */
+  private static Optional<Type> getProvableType(
+      ExpressionTree tree, ImmutableSet<Symbol> visited, VisitorState state) {
+    ExpressionTree expression = ASTHelpers.stripParentheses(tree);
+    Type type = ASTHelpers.getType(expression);
+    if (type == null) {
+      return Optional.empty();
+    }
+
+    if (isSubtype(type, IMMUTABLE_COLLECTION.get(state), state)) {
+      return Optional.of(type);
+    }
+
+    if (expression instanceof ConditionalExpressionTree) {
+      ConditionalExpressionTree conditional = (ConditionalExpressionTree) expression;
+      return getCommonProvableType(
+          ImmutableList.of(conditional.getTrueExpression(), conditional.getFalseExpression()),
+          visited,
+          state);
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(expression);
+    if (symbol == null || visited.contains(symbol)) {
+      /* Guard against (mutually) recursive methods. */
+      return Optional.empty();
+    }
+
+    ImmutableSet<Symbol> newVisited =
+        ImmutableSet.<Symbol>builder().addAll(visited).add(symbol).build();
+    switch (expression.getKind()) {
+      case IDENTIFIER:
+        return getLocalVariableDeclaration(symbol, state)
+            .map(VariableTree::getInitializer)
+            .flatMap(initializer -> getProvableType(initializer, newVisited, state));
+      case METHOD_INVOCATION:
+        return getMethodDeclaration(symbol, state)
+            .flatMap(
+                method -> getCommonProvableType(getReturnedExpressions(method), newVisited, state));
+      default:
+        return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns the immutable collection type that all the given expressions are guaranteed to evaluate
+   * to, if any.
+   */
+  private static Optional<Type> getCommonProvableType(
+      ImmutableList<? extends ExpressionTree> expressions,
+      ImmutableSet<Symbol> visited,
+      VisitorState state) {
+    if (expressions.isEmpty()) {
+      return Optional.empty();
+    }
+
+    ImmutableList<Optional<Type>> types =
+        expressions.stream()
+            .map(expression -> getProvableType(expression, visited, state))
+            .collect(toImmutableList());
+    return types
+        .get(0)
+        .filter(
+            type ->
+                types.stream()
+                    .allMatch(
+                        other ->
+                            other.filter(t -> state.getTypes().isSameType(t, type)).isPresent()));
+  }
+
+  /**
+   * Returns a fix that narrows the declared type of the given expression's origin to the given
+   * type, if the expression doesn't already have this type and the origin can safely be updated.
+   */
+  private static Optional<SuggestedFix.Builder> exposeType(
+      ExpressionTree expression, Type type, VisitorState state) {
+    Type currentType = ASTHelpers.getType(expression);
+    if (currentType != null && isSubtype(currentType, IMMUTABLE_COLLECTION.get(state), state)) {
+      return Optional.of(SuggestedFix.builder());
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(expression);
+    if (symbol == null) {
+      return Optional.empty();
+    }
+
+    switch (expression.getKind()) {
+      case IDENTIFIER:
+        return getLocalVariableDeclaration(symbol, state)
+            .filter(declaration -> !ASTHelpers.hasNoExplicitType(declaration, state))
+            .filter(declaration -> hasType(declaration.getInitializer(), type, state))
+            .map(declaration -> narrowType(declaration.getType(), type, state));
+      case METHOD_INVOCATION:
+        return getMethodDeclaration(symbol, state)
+            .filter(method -> ASTHelpers.getSymbol(method).isPrivate())
+            .filter(
+                method ->
+                    getReturnedExpressions(method).stream()
+                        .allMatch(returned -> hasType(returned, type, state)))
+            .map(method -> narrowType(method.getReturnType(), type, state));
+      default:
+        return Optional.empty();
+    }
+  }
+
+  private static SuggestedFix.Builder narrowType(Tree typeTree, Type type, VisitorState state) {
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    return fix.replace(typeTree, SuggestedFixes.prettyType(state, fix, type));
+  }
+
+  private static Optional<VariableTree> getLocalVariableDeclaration(
+      Symbol symbol, VisitorState state) {
+    if (symbol.getKind() != ElementKind.LOCAL_VARIABLE
+        || (symbol.flags() & (Flags.FINAL | Flags.EFFECTIVELY_FINAL)) == 0) {
+      return Optional.empty();
+    }
+
+    return findDeclaration(symbol, VariableTree.class, state)
+        .filter(declaration -> declaration.getInitializer() != null);
+  }
+
+  private static Optional<MethodTree> getMethodDeclaration(Symbol symbol, VisitorState state) {
+    if (!(symbol instanceof MethodSymbol)
+        || ASTHelpers.methodCanBeOverridden((MethodSymbol) symbol)) {
+      return Optional.empty();
+    }
+
+    return findDeclaration(symbol, MethodTree.class, state)
+        .filter(method -> method.getBody() != null);
+  }
+
+  private static <T extends Tree> Optional<T> findDeclaration(
+      Symbol symbol, Class<T> declarationType, VisitorState state) {
+    return Optional.ofNullable(
+        new TreeScanner<@Nullable T, @Nullable Void>() {
+          @Override
+          public @Nullable T scan(Tree tree, @Nullable Void unused) {
+            if (declarationType.isInstance(tree) && symbol.equals(ASTHelpers.getSymbol(tree))) {
+              return declarationType.cast(tree);
+            }
+
+            return super.scan(tree, unused);
+          }
+
+          @Override
+          public @Nullable T reduce(@Nullable T r1, @Nullable T r2) {
+            return r1 != null ? r1 : r2;
+          }
+        }.scan(state.getPath().getCompilationUnit(), null));
+  }
+
+  private static ImmutableList<ExpressionTree> getReturnedExpressions(MethodTree method) {
+    ImmutableList.Builder<ExpressionTree> expressions = ImmutableList.builder();
+    new TreeScanner<@Nullable Void, @Nullable Void>() {
+      @Override
+      public @Nullable Void scan(Tree tree, @Nullable Void unused) {
+        if (tree == null
+            || tree.getKind() == Tree.Kind.CLASS
+            || tree.getKind() == Tree.Kind.LAMBDA_EXPRESSION) {
+          /* Return statements in nested classes and lambda expressions aren't relevant. */
+          return null;
+        }
+
+        return super.scan(tree, unused);
+      }
+
+      @Override
+      public @Nullable Void visitReturn(ReturnTree node, @Nullable Void unused) {
+        if (node.getExpression() != null) {
+          expressions.add(node.getExpression());
+        }
+        return super.visitReturn(node, unused);
+      }
+    }.scan(method.getBody(), null);
+    return expressions.build();
+  }
+
+  private static boolean hasSameElementType(Type type, Type other, VisitorState state) {
+    Types types = state.getTypes();
+    Symbol iterable = state.getSymtab().iterableType.tsym;
+    Type typeAsIterable = types.asSuper(type, iterable);
+    Type otherAsIterable = types.asSuper(other, iterable);
+    return typeAsIterable != null
+        && otherAsIterable != null
+        && types.isSameTypes(typeAsIterable.getTypeArguments(), otherAsIterable.getTypeArguments());
+  }
+
+  private static boolean hasType(@Nullable ExpressionTree tree, Type type, VisitorState state) {
+    Type treeType = tree == null ? null : ASTHelpers.getType(tree);
+    return treeType != null && state.getTypes().isSameType(treeType, type);
+  }
+
+  private static boolean isSubtype(Type type, Type supertype, VisitorState state) {
+    Types types = state.getTypes();
+    return types.isSubtype(types.erasure(type), types.erasure(supertype));
+  }
+}
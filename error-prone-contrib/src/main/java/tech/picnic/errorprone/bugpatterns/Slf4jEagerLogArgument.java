@@ -0,0 +1,343 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.suppliers.Supplier;
+import com.google.errorprone.suppliers.Suppliers;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ArrayAccessTree;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ConditionalExpressionTree;
+import com.sun.source.tree.ExpressionStatementTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.IfTree;
+import com.sun.source.tree.InstanceOfTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ParenthesizedTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import java.util.List;
+import java.util.Locale;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags SLF4J {@code trace} and {@code debug} log statements with
+ * arguments that are computed even if the associated log level is disabled.
+ *
+ * <p>Arguments are considered expensive to compute if they involve method invocations, object or
+ * array instantiations or string concatenation. Log statements in the {@code then} branch of an
+ * {@code if} statement whose condition is, or is a conjunction that includes, a check whether the
+ * log level is enabled are not flagged.
+ *
+ * <p>Two fixes are suggested: wrapping the log statement in such an {@code if} statement, or, if
+ * SLF4J 2 is on the classpath, using the fluent logging API with a supplier for each expensive
+ * argument. The latter fix is not suggested if a supplier would capture a local variable that is
+ * not effectively final.
+ */
+// XXX: Also recognize guards of the form `if (!LOG.isDebugEnabled()) { return; }`.
+// XXX: Consider introducing a list of known-cheap methods, such as simple getters.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Avoid computing log arguments if the associated log level may be disabled",
+    link = BUG_PATTERNS_BASE_URL + "Slf4jEagerLogArgument",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class Slf4jEagerLogArgument extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String LOGGER = "org.slf4j.Logger";
+  private static final Supplier<Type> LOGGING_EVENT_BUILDER =
+      Suppliers.typeFromString("org.slf4j.spi.LoggingEventBuilder");
+  private static final Matcher<ExpressionTree> MARKER = isSubtypeOf("org.slf4j.Marker");
+  private static final Matcher<ExpressionTree> THROWABLE = isSubtypeOf(Throwable.class);
+  private static final Matcher<ExpressionTree> DEBUG_OR_TRACE_INVOCATION =
+      instanceMethod().onDescendantOf(LOGGER).namedAnyOf("debug", "trace");
+  private static final Matcher<ExpressionTree> DEBUG_GUARD =
+      instanceMethod().onDescendantOf(LOGGER).namedAnyOf("isDebugEnabled", "isTraceEnabled");
+  private static final Matcher<ExpressionTree> TRACE_GUARD =
+      instanceMethod().onDescendantOf(LOGGER).named("isTraceEnabled");
+  private static final ImmutableSet<Tree.Kind> PURE_UNARY_OPERATORS =
+      ImmutableSet.of(
+          Tree.Kind.BITWISE_COMPLEMENT,
+          Tree.Kind.LOGICAL_COMPLEMENT,
+          Tree.Kind.UNARY_MINUS,
+          Tree.Kind.UNARY_PLUS);
+
+  /** Instantiates a new {@link Slf4jEagerLogArgument} instance. */
+  public Slf4jEagerLogArgument() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!DEBUG_OR_TRACE_INVOCATION.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    List<? extends ExpressionTree> arguments = tree.getArguments();
+    int formatStringIndex = MARKER.matches(arguments.get(0), state) ? 1 : 0;
+    List<? extends ExpressionTree> logArguments =
+        arguments.subList(formatStringIndex + 1, arguments.size());
+    if (logArguments.stream().allMatch(Slf4jEagerLogArgument::isCheap)) {
+      return Description.NO_MATCH;
+    }
+
+    String level = ASTHelpers.getSymbol(tree).getSimpleName().toString();
+    Matcher<ExpressionTree> guard = level.equals("trace") ? TRACE_GUARD : DEBUG_GUARD;
+    if (isGuarded(state.getPath(), guard, state)) {
+      return Description.NO_MATCH;
+    }
+
+    Description.Builder description = buildDescription(tree);
+    String receiver = getReceiverPrefix(tree, state);
+    String capitalizedLevel = level.substring(0, 1).toUpperCase(Locale.ROOT) + level.substring(1);
+    Tree parent = state.getPath().getParentPath().getLeaf();
+    if (parent instanceof ExpressionStatementTree
+        && state.getPath().getParentPath().getParentPath().getLeaf() instanceof BlockTree) {
+      String marker =
+          formatStringIndex == 0 ? "" : SourceCode.treeToString(arguments.get(0), state);
+      description.addFix(
+          wrapInGuard(
+              parent,
+              String.format("%sis%sEnabled(%s)", receiver, capitalizedLevel, marker),
+              state));
+    }
+
+    if (LOGGING_EVENT_BUILDER.get(state) != null
+        && !(logArguments.size() == 1 && isArray(logArguments.get(0), state))
+        && logArguments.stream()
+            .allMatch(argument -> isCheap(argument) || !capturesNonFinalLocal(argument))) {
+      description.addFix(
+          SuggestedFix.replace(
+              tree,
+              toFluentLogStatement(
+                  receiver, capitalizedLevel, arguments, formatStringIndex, state)));
+    }
+
+    return description.build();
+  }
+
+  private static String getReceiverPrefix(MethodInvocationTree tree, VisitorState state) {
+    ExpressionTree receiver = ASTHelpers.getReceiver(tree);
+    return receiver == null ? "" : SourceCode.treeToString(receiver, state) + '.';
+  }
+
+  private static SuggestedFix wrapInGuard(Tree statement, String guard, VisitorState state) {
+    String indentation = getIndentation(statement, state);
+    return SuggestedFix.builder()
+        .prefixWith(statement, String.format("if (%s) {\n%s  ", guard, indentation))
+        .postfixWith(statement, String.format("\n%s}", indentation))
+        .build();
+  }
+
+  private static String getIndentation(Tree tree, VisitorState state) {
+    CharSequence source = state.getSourceCode();
+    int start = ASTHelpers.getStartPosition(tree);
+    if (source == null || start < 0) {
+      return "";
+    }
+
+    String code = source.toString();
+    String linePrefix = code.substring(code.lastIndexOf('\n', start - 1) + 1, start);
+    return CharMatcher.whitespace().matchesAllOf(linePrefix) ? linePrefix : "";
+  }
+
+  private static String toFluentLogStatement(
+      String receiver,
+      String capitalizedLevel,
+      List<? extends ExpressionTree> arguments,
+      int formatStringIndex,
+      VisitorState state) {
+    StringBuilder statement =
+        new StringBuilder(receiver).append("at").append(capitalizedLevel).append("()");
+    if (formatStringIndex > 0) {
+      statement
+          .append(".addMarker(")
+          .append(SourceCode.treeToString(arguments.get(0), state))
+          .append(')');
+    }
+
+    List<? extends ExpressionTree> logArguments =
+        arguments.subList(formatStringIndex + 1, arguments.size());
+    boolean hasCause =
+        !logArguments.isEmpty() && THROWABLE.matches(Iterables.getLast(logArguments), state);
+    for (ExpressionTree argument :
+        logArguments.subList(0, logArguments.size() - (hasCause ? 1 : 0))) {
+      String source = SourceCode.treeToString(argument, state);
+      statement
+          .append(".addArgument(")
+          .append(isCheap(argument) ? source : "() -> " + source)
+          .append(')');
+    }
+
+    if (hasCause) {
+      statement
+          .append(".setCause(")
+          .append(SourceCode.treeToString(Iterables.getLast(logArguments), state))
+          .append(')');
+    }
+
+    return statement
+        .append(".log(")
+        .append(SourceCode.treeToString(arguments.get(formatStringIndex), state))
+        .append(')')
+        .toString();
+  }
+
+  /**
+   * Tells whether the leaf of the given path is only evaluated if the given log level guard holds.
+   */
+  private static boolean isGuarded(
+      TreePath path, Matcher<ExpressionTree> guard, VisitorState state) {
+    TreePath parentPath = path.getParentPath();
+    if (parentPath == null) {
+      return false;
+    }
+
+    Tree parent = parentPath.getLeaf();
+    if (parent instanceof MethodTree
+        || parent instanceof LambdaExpressionTree
+        || parent instanceof ClassTree) {
+      return false;
+    }
+
+    if (parent instanceof IfTree
+        && ((IfTree) parent).getThenStatement().equals(path.getLeaf())
+        && containsGuard(((IfTree) parent).getCondition(), guard, state)) {
+      return true;
+    }
+
+    return isGuarded(parentPath, guard, state);
+  }
+
+  /**
+   * Tells whether the given condition can only hold if the given log level guard holds; that is,
+   * whether it is the guard itself or a conjunction of which the guard is an operand.
+   */
+  private static boolean containsGuard(
+      ExpressionTree condition, Matcher<ExpressionTree> guard, VisitorState state) {
+    ExpressionTree expression = ASTHelpers.stripParentheses(condition);
+    if (expression.getKind() == Tree.Kind.CONDITIONAL_AND) {
+      BinaryTree conjunction = (BinaryTree) expression;
+      return containsGuard(conjunction.getLeftOperand(), guard, state)
+          || containsGuard(conjunction.getRightOperand(), guard, state);
+    }
+
+    return guard.matches(expression, state);
+  }
+
+  /**
+   * Tells whether the given expression references a local variable that is not effectively final,
+   * and which thus cannot be captured by a lambda expression.
+   */
+  private static boolean capturesNonFinalLocal(ExpressionTree tree) {
+    return Boolean.TRUE.equals(
+        new TreeScanner<@Nullable Boolean, @Nullable Void>() {
+          @Override
+          public @Nullable Boolean visitIdentifier(IdentifierTree node, @Nullable Void unused) {
+            Symbol symbol = ASTHelpers.getSymbol(node);
+            return symbol != null
+                && ASTHelpers.isLocal(symbol)
+                && !ASTHelpers.isConsideredFinal(symbol);
+          }
+
+          @Override
+          public @Nullable Boolean reduce(@Nullable Boolean r1, @Nullable Boolean r2) {
+            return Boolean.TRUE.equals(r1) || Boolean.TRUE.equals(r2);
+          }
+        }.scan(tree, null));
+  }
+
+  /**
+   * Tells whether the given expression is cheap to evaluate, in the sense that it doesn't invoke
+   * methods, instantiate objects or concatenate strings.
+   */
+  private static boolean isCheap(ExpressionTree tree) {
+    if (tree instanceof LiteralTree
+        || tree instanceof IdentifierTree
+        || tree instanceof LambdaExpressionTree
+        || tree instanceof MemberReferenceTree) {
+      return true;
+    }
+
+    if (tree instanceof MemberSelectTree) {
+      return isCheap(((MemberSelectTree) tree).getExpression());
+    }
+
+    if (tree instanceof ParenthesizedTree) {
+      return isCheap(((ParenthesizedTree) tree).getExpression());
+    }
+
+    if (tree instanceof TypeCastTree) {
+      return isCheap(((TypeCastTree) tree).getExpression());
+    }
+
+    if (tree instanceof InstanceOfTree) {
+      return isCheap(((InstanceOfTree) tree).getExpression());
+    }
+
+    if (tree instanceof UnaryTree) {
+      return PURE_UNARY_OPERATORS.contains(tree.getKind())
+          && isCheap(((UnaryTree) tree).getExpression());
+    }
+
+    if (tree instanceof ArrayAccessTree) {
+      ArrayAccessTree arrayAccess = (ArrayAccessTree) tree;
+      return isCheap(arrayAccess.getExpression()) && isCheap(arrayAccess.getIndex());
+    }
+
+    if (tree instanceof ConditionalExpressionTree) {
+      ConditionalExpressionTree conditional = (ConditionalExpressionTree) tree;
+      return isCheap(conditional.getCondition())
+          && isCheap(conditional.getTrueExpression())
+          && isCheap(conditional.getFalseExpression());
+    }
+
+    if (tree instanceof BinaryTree) {
+      BinaryTree binary = (BinaryTree) tree;
+      return !isStringConcatenation(binary)
+          && isCheap(binary.getLeftOperand())
+          && isCheap(binary.getRightOperand());
+    }
+
+    return false;
+  }
+
+  private static boolean isStringConcatenation(BinaryTree tree) {
+    Type type = ASTHelpers.getType(tree);
+    return tree.getKind() == Tree.Kind.PLUS && type != null && !type.isPrimitive();
+  }
+
+  private static boolean isArray(ExpressionTree tree, VisitorState state) {
+    Type type = ASTHelpers.getType(tree);
+    return type != null && state.getTypes().isArray(type);
+  }
+}
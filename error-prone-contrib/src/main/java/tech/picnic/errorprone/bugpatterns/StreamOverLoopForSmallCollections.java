@@ -0,0 +1,483 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static java.util.stream.Collectors.joining;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.ErrorProneFlags;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.fixes.SuggestedFixes;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.InstanceOfTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree.BodyKind;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberReferenceTree.ReferenceMode;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeCastTree;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+import tech.picnic.errorprone.bugpatterns.util.ThirdPartyLibrary;
+
+/**
+ * A {@link BugChecker} that flags trivial stream pipelines over fixed-arity sources, arrays and
+ * collections.
+ *
+ * <p>A stream pipeline is considered trivial if it consists of at most one {@code filter} or {@code
+ * map} operation, followed by a short-circuiting or {@code forEach} terminal operation. Setting up
+ * such a pipeline is relatively expensive compared to the work it performs, making an equivalent
+ * loop or {@link com.google.common.collect.Iterables} or {@link java.util.Collection} method
+ * invocation several times faster and allocation-free. Where possible, an equivalent expression is
+ * suggested.
+ *
+ * <p>Direct {@code forEach} invocations on a collection's stream are not flagged, as these are
+ * already rewritten by the {@code CollectionRules.CollectionForEach} Refaster rule.
+ *
+ * <p>As the difference only matters in performance-sensitive code, this check is opt-in: it reports
+ * nothing unless the {@code StreamOverLoopForSmallCollections:Enabled} flag is set to {@code true}.
+ * Projects may wish to enable it only for modules that contain hot code paths.
+ */
+// XXX: Consider also suggesting an explicit loop for `forEach` invocations on fixed-arity sources
+// in statement context.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary =
+        "In performance-sensitive code, prefer a loop or `Iterables`/`Collection` method over "
+            + "a trivial stream pipeline",
+    link = BUG_PATTERNS_BASE_URL + "StreamOverLoopForSmallCollections",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class StreamOverLoopForSmallCollections extends BugChecker
+    implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final String ENABLED_FLAG = "StreamOverLoopForSmallCollections:Enabled";
+  private static final String[] STREAM_TYPES = {
+    "java.util.stream.DoubleStream",
+    "java.util.stream.IntStream",
+    "java.util.stream.LongStream",
+    "java.util.stream.Stream"
+  };
+  private static final Matcher<ExpressionTree> MATCH_OPERATION =
+      instanceMethod()
+          .onDescendantOfAny(STREAM_TYPES)
+          .namedAnyOf("allMatch", "anyMatch", "noneMatch");
+  private static final Matcher<ExpressionTree> OTHER_TERMINAL_OPERATION =
+      instanceMethod()
+          .onDescendantOfAny(STREAM_TYPES)
+          .namedAnyOf("findAny", "findFirst", "forEach");
+  private static final Matcher<ExpressionTree> FOR_EACH =
+      instanceMethod().onDescendantOfAny(STREAM_TYPES).named("forEach");
+  private static final Matcher<ExpressionTree> INTERMEDIATE_OPERATION =
+      instanceMethod().onDescendantOfAny(STREAM_TYPES).namedAnyOf("filter", "map");
+  private static final Matcher<ExpressionTree> FILTER =
+      instanceMethod().onDescendantOf("java.util.stream.Stream").named("filter");
+  private static final Matcher<ExpressionTree> FIXED_ARITY_SOURCE =
+      staticMethod().onClassAny(STREAM_TYPES).named("of");
+  private static final Matcher<ExpressionTree> ARRAY_SOURCE =
+      staticMethod().onClass("java.util.Arrays").named("stream");
+  private static final Matcher<ExpressionTree> COLLECTION_SOURCE =
+      instanceMethod().onDescendantOf("java.util.Collection").named("stream");
+
+  private final boolean enabled;
+
+  /** Instantiates a default {@link StreamOverLoopForSmallCollections} instance. */
+  public StreamOverLoopForSmallCollections() {
+    this(ErrorProneFlags.empty());
+  }
+
+  /**
+   * Instantiates a customized {@link StreamOverLoopForSmallCollections}.
+   *
+   * @param flags Any provided command line flags.
+   */
+  public StreamOverLoopForSmallCollections(ErrorProneFlags flags) {
+    enabled = flags.getBoolean(ENABLED_FLAG).orElse(false);
+  }
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!enabled) {
+      return Description.NO_MATCH;
+    }
+
+    if (!MATCH_OPERATION.matches(tree, state) && !OTHER_TERMINAL_OPERATION.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    ExpressionTree upstream = ASTHelpers.getReceiver(tree);
+    if (upstream == null) {
+      return Description.NO_MATCH;
+    }
+
+    boolean hasIntermediateOperation = INTERMEDIATE_OPERATION.matches(upstream, state);
+    ExpressionTree source = hasIntermediateOperation ? ASTHelpers.getReceiver(upstream) : upstream;
+    if (!(source instanceof MethodInvocationTree)) {
+      return Description.NO_MATCH;
+    }
+
+    MethodInvocationTree sourceInvocation = (MethodInvocationTree) source;
+    if (isFixedAritySource(sourceInvocation, state)) {
+      return describeMatch(
+          tree,
+          hasIntermediateOperation
+              ? Optional.empty()
+              : trySuggestInlining(tree, sourceInvocation, state));
+    }
+
+    if (ARRAY_SOURCE.matches(source, state) && sourceInvocation.getArguments().size() == 1) {
+      return describeMatch(tree);
+    }
+
+    if (COLLECTION_SOURCE.matches(source, state)
+        && (hasIntermediateOperation || !FOR_EACH.matches(tree, state))) {
+      return describeMatch(
+          tree, trySuggestCollectionMethod(tree, upstream, sourceInvocation, state));
+    }
+
+    return Description.NO_MATCH;
+  }
+
+  private Description describeMatch(MethodInvocationTree tree, Optional<SuggestedFix> fix) {
+    return fix.map(f -> describeMatch(tree, f)).orElseGet(() -> describeMatch(tree));
+  }
+
+  /**
+   * Tells whether the given invocation creates a stream from an explicitly enumerated set of
+   * elements, as opposed to from an array passed to a varargs parameter.
+   */
+  private static boolean isFixedAritySource(MethodInvocationTree tree, VisitorState state) {
+    if (!FIXED_ARITY_SOURCE.matches(tree, state)) {
+      return false;
+    }
+
+    List<? extends ExpressionTree> arguments = tree.getArguments();
+    return arguments.size() != 1
+        || !(ASTHelpers.getType(arguments.get(0)) instanceof Type.ArrayType);
+  }
+
+  /**
+   * Attempts to replace a match operation over a fixed-arity source with an equivalent boolean
+   * expression in which the predicate is applied to each of the elements in turn.
+   */
+  private static Optional<SuggestedFix> trySuggestInlining(
+      MethodInvocationTree tree, MethodInvocationTree source, VisitorState state) {
+    if (!MATCH_OPERATION.matches(tree, state)) {
+      return Optional.empty();
+    }
+
+    Type elementType = getElementType(source, state);
+    List<? extends ExpressionTree> elements = source.getArguments();
+    if (elementType == null
+        || elements.isEmpty()
+        || !elements.stream()
+            .allMatch(
+                e ->
+                    isSideEffectFree(e)
+                        && ASTHelpers.isSameType(ASTHelpers.getType(e), elementType, state))) {
+      return Optional.empty();
+    }
+
+    ExpressionTree predicate = ASTHelpers.stripParentheses(tree.getArguments().get(0));
+    List<String> conditions = new ArrayList<>();
+    for (ExpressionTree element : elements) {
+      Optional<String> condition = tryApply(predicate, element, state);
+      if (condition.isEmpty()) {
+        return Optional.empty();
+      }
+      conditions.add(condition.orElseThrow());
+    }
+
+    String operation = ASTHelpers.getSymbol(tree).getSimpleName().toString();
+    String condition =
+        conditions.stream().collect(joining(operation.equals("allMatch") ? " && " : " || "));
+    boolean isCompound = conditions.size() > 1;
+    String replacement =
+        operation.equals("noneMatch")
+            ? (isCompound ? String.format("!(%s)", condition) : "!" + condition)
+            : condition;
+    return Optional.of(
+        SuggestedFix.replace(
+            tree,
+            isCompound && requiresParenthesesAsOperandOf(state.getPath().getParentPath().getLeaf())
+                ? String.format("(%s)", replacement)
+                : replacement));
+  }
+
+  /**
+   * Returns the type of the elements of the stream created by the given fixed-arity source, if it
+   * can be determined.
+   */
+  private static @Nullable Type getElementType(MethodInvocationTree source, VisitorState state) {
+    Type streamType = ASTHelpers.getType(source);
+    if (streamType == null) {
+      return null;
+    }
+
+    List<Type> typeArguments = streamType.getTypeArguments();
+    if (!typeArguments.isEmpty()) {
+      return typeArguments.get(0);
+    }
+
+    /* This is a primitive stream; its element type is that of the source's parameters. */
+    List<Symbol.VarSymbol> parameters = ASTHelpers.getSymbol(source).getParameters();
+    return parameters.isEmpty()
+        ? null
+        : state.getTypes().elemtypeOrType(parameters.get(0).asType());
+  }
+
+  /**
+   * Returns the source code of an expression that applies the given lambda expression or method
+   * reference to the given element, if such an expression can be constructed.
+   */
+  private static Optional<String> tryApply(
+      ExpressionTree function, ExpressionTree element, VisitorState state) {
+    if (function instanceof LambdaExpressionTree) {
+      return tryInlineLambda((LambdaExpressionTree) function, element, state);
+    }
+
+    if (function instanceof MemberReferenceTree) {
+      return tryInlineMethodReference((MemberReferenceTree) function, element, state);
+    }
+
+    return Optional.empty();
+  }
+
+  private static Optional<String> tryInlineLambda(
+      LambdaExpressionTree lambda, ExpressionTree element, VisitorState state) {
+    if (lambda.getBodyKind() != BodyKind.EXPRESSION || lambda.getParameters().size() != 1) {
+      return Optional.empty();
+    }
+
+    Tree body = lambda.getBody();
+    String bodySource = state.getSourceForNode(body);
+    Optional<ImmutableList<IdentifierTree>> references =
+        getParameterReferences(body, ASTHelpers.getSymbol(lambda.getParameters().get(0)));
+    if (bodySource == null || references.isEmpty()) {
+      return Optional.empty();
+    }
+
+    /* Replace the parameter references back to front, such that earlier offsets remain valid. */
+    StringBuilder result = new StringBuilder(bodySource);
+    int bodyStart = ASTHelpers.getStartPosition(body);
+    String elementSource = SourceCode.treeToString(element, state);
+    for (IdentifierTree reference : references.orElseThrow().reverse()) {
+      result.replace(
+          ASTHelpers.getStartPosition(reference) - bodyStart,
+          state.getEndPosition(reference) - bodyStart,
+          elementSource);
+    }
+
+    return Optional.of(
+        ASTHelpers.requiresParentheses((ExpressionTree) body, state)
+            ? String.format("(%s)", result)
+            : result.toString());
+  }
+
+  private static Optional<String> tryInlineMethodReference(
+      MemberReferenceTree methodReference, ExpressionTree element, VisitorState state) {
+    Symbol symbol = ASTHelpers.getSymbol(methodReference);
+    if (methodReference.getMode() != ReferenceMode.INVOKE
+        || methodReference.getTypeArguments() != null
+        || !(symbol instanceof MethodSymbol)
+        || ((MethodSymbol) symbol).isVarArgs()) {
+      return Optional.empty();
+    }
+
+    ExpressionTree qualifier = methodReference.getQualifierExpression();
+    String qualifierSource = SourceCode.treeToString(qualifier, state);
+    String elementSource = SourceCode.treeToString(element, state);
+    int parameterCount = ((MethodSymbol) symbol).getParameters().size();
+    if (ASTHelpers.getSymbol(qualifier) instanceof ClassSymbol && !ASTHelpers.isStatic(symbol)) {
+      /* This is a reference to an instance method of an arbitrary object of a particular type. */
+      return parameterCount == 0
+          ? Optional.of(String.format("%s.%s()", elementSource, methodReference.getName()))
+          : Optional.empty();
+    }
+
+    return parameterCount == 1 && (ASTHelpers.isStatic(symbol) || isSideEffectFree(qualifier))
+        ? Optional.of(
+            String.format("%s.%s(%s)", qualifierSource, methodReference.getName(), elementSource))
+        : Optional.empty();
+  }
+
+  /**
+   * Returns the references to the given lambda parameter in the given lambda body, ordered by
+   * source position, unless any of them is located inside a nested lambda expression or class.
+   */
+  private static Optional<ImmutableList<IdentifierTree>> getParameterReferences(
+      Tree body, Symbol parameter) {
+    List<IdentifierTree> references = new ArrayList<>();
+    List<IdentifierTree> nestedReferences = new ArrayList<>();
+    new TreeScanner<@Nullable Void, Boolean>() {
+      @Override
+      public @Nullable Void visitIdentifier(IdentifierTree node, Boolean nested) {
+        if (parameter.equals(ASTHelpers.getSymbol(node))) {
+          (nested ? nestedReferences : references).add(node);
+        }
+        return null;
+      }
+
+      @Override
+      public @Nullable Void visitLambdaExpression(LambdaExpressionTree node, Boolean nested) {
+        return super.visitLambdaExpression(node, true);
+      }
+
+      @Override
+      public @Nullable Void visitClass(ClassTree node, Boolean nested) {
+        return super.visitClass(node, true);
+      }
+    }.scan(body, false);
+
+    return nestedReferences.isEmpty()
+        ? Optional.of(
+            references.stream()
+                .sorted(Comparator.comparingInt(ASTHelpers::getStartPosition))
+                .collect(toImmutableList()))
+        : Optional.empty();
+  }
+
+  /**
+   * Attempts to replace a trivial stream pipeline over a collection with an equivalent {@link
+   * java.util.Collection} or Guava {@link com.google.common.collect.Iterables} method invocation.
+   */
+  private static Optional<SuggestedFix> trySuggestCollectionMethod(
+      MethodInvocationTree tree,
+      ExpressionTree upstream,
+      MethodInvocationTree source,
+      VisitorState state) {
+    ExpressionTree collection = ASTHelpers.getReceiver(source);
+    if (collection == null) {
+      return Optional.empty();
+    }
+
+    String operation = ASTHelpers.getSymbol(tree).getSimpleName().toString();
+    String collectionSource = SourceCode.treeToString(collection, state);
+    if (upstream == source) {
+      return MATCH_OPERATION.matches(tree, state)
+          ? suggestIterablesMethod(
+              tree,
+              operation.equals("allMatch") ? "all" : "any",
+              collectionSource,
+              tree.getArguments().get(0),
+              operation.equals("noneMatch"),
+              state)
+          : Optional.empty();
+    }
+
+    if (!FILTER.matches(upstream, state)
+        || !operation.equals("findFirst")
+        || !ThirdPartyLibrary.GUAVA.isIntroductionAllowed(state)) {
+      return Optional.empty();
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String iterables =
+        SuggestedFixes.qualifyType(state, fix, "com.google.common.collect.Iterables");
+    return Optional.of(
+        fix.replace(
+                tree,
+                String.format(
+                    "%s.tryFind(%s, %s).toJavaUtil()",
+                    iterables,
+                    collectionSource,
+                    toGuavaPredicate(
+                        ((MethodInvocationTree) upstream).getArguments().get(0), state)))
+            .build());
+  }
+
+  private static Optional<SuggestedFix> suggestIterablesMethod(
+      MethodInvocationTree tree,
+      String method,
+      String collectionSource,
+      ExpressionTree predicate,
+      boolean negate,
+      VisitorState state) {
+    if (!ThirdPartyLibrary.GUAVA.isIntroductionAllowed(state)) {
+      return Optional.empty();
+    }
+
+    SuggestedFix.Builder fix = SuggestedFix.builder();
+    String iterables =
+        SuggestedFixes.qualifyType(state, fix, "com.google.common.collect.Iterables");
+    return Optional.of(
+        fix.replace(
+                tree,
+                String.format(
+                    "%s%s.%s(%s, %s)",
+                    negate ? "!" : "",
+                    iterables,
+                    method,
+                    collectionSource,
+                    toGuavaPredicate(predicate, state)))
+            .build());
+  }
+
+  /**
+   * Returns the source code of the given {@link java.util.function.Predicate} expression, adapted
+   * such that it can be passed to a method accepting a Guava {@link
+   * com.google.common.base.Predicate}.
+   */
+  private static String toGuavaPredicate(ExpressionTree predicate, VisitorState state) {
+    String source = SourceCode.treeToString(predicate, state);
+    ExpressionTree expression = ASTHelpers.stripParentheses(predicate);
+    return expression instanceof LambdaExpressionTree || expression instanceof MemberReferenceTree
+        ? source
+        : String.format("%s::test", source);
+  }
+
+  /**
+   * Tells whether the given expression can be evaluated any number of times without observable side
+   * effects.
+   */
+  private static boolean isSideEffectFree(ExpressionTree tree) {
+    if (tree instanceof IdentifierTree || tree instanceof LiteralTree) {
+      return true;
+    }
+
+    return tree instanceof MemberSelectTree
+        && isSideEffectFree(((MemberSelectTree) tree).getExpression());
+  }
+
+  /**
+   * Tells whether a boolean expression composed using a binary operator requires parentheses when
+   * it replaces an operand of the given tree.
+   */
+  private static boolean requiresParenthesesAsOperandOf(Tree parent) {
+    return parent instanceof BinaryTree
+        || parent instanceof InstanceOfTree
+        || parent instanceof MemberSelectTree
+        || parent instanceof TypeCastTree
+        || parent instanceof UnaryTree;
+  }
+}
@@ -0,0 +1,324 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import static com.google.errorprone.BugPattern.LinkType.CUSTOM;
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+import static com.google.errorprone.BugPattern.StandardTags.PERFORMANCE;
+import static com.google.errorprone.matchers.Matchers.isSameType;
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.staticMethod;
+import static java.util.stream.Collectors.joining;
+import static tech.picnic.errorprone.bugpatterns.util.Documentation.BUG_PATTERNS_BASE_URL;
+import static tech.picnic.errorprone.bugpatterns.util.Slf4jLogStatements.LOG_STATEMENT;
+
+import com.google.auto.service.AutoService;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.fixes.SuggestedFix;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.LiteralTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.util.Convert;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import javax.lang.model.type.TypeKind;
+import tech.picnic.errorprone.bugpatterns.util.Slf4jLogStatements;
+import tech.picnic.errorprone.bugpatterns.util.SourceCode;
+
+/**
+ * A {@link BugChecker} that flags {@link String#format(String, Object...)} invocations that merely
+ * concatenate their arguments, in contexts where the cost of parsing the format string and
+ * instantiating a {@link java.util.Formatter} is likely to add up.
+ *
+ * <p>Such invocations are flagged if they:
+ *
+ * <ul>
+ *   <li>produce the format string of an SLF4J log statement; in this case string formatting is
+ *       deferred to SLF4J by using {@code {}} placeholders, such that no formatting takes place if
+ *       the log statement is disabled.
+ *   <li>are part of a loop; in this case string concatenation is suggested instead.
+ * </ul>
+ *
+ * <p>Only format strings consisting of literal text and {@code %s} and {@code %d} format specifiers
+ * are considered. Note that this check assumes that the default locale formats integers using ASCII
+ * digits.
+ */
+// XXX: Invocations whose format string consists of uniformly separated `%s` format specifiers are
+// left alone, as the `StringJoin` check suggests a `String#join` invocation instead.
+// XXX: The suggested string concatenation may subsequently be flagged by the
+// `FormatStringConcatenation` check, if the concatenation is passed to a method that accepts a
+// format string.
+@AutoService(BugChecker.class)
+@BugPattern(
+    summary = "Avoid `String#format` for simple string concatenation in performance-sensitive code",
+    link = BUG_PATTERNS_BASE_URL + "StringFormatUsage",
+    linkType = CUSTOM,
+    severity = SUGGESTION,
+    tags = PERFORMANCE)
+public final class StringFormatUsage extends BugChecker implements MethodInvocationTreeMatcher {
+  private static final long serialVersionUID = 1L;
+  private static final Splitter FORMAT_SPECIFIER_SPLITTER = Splitter.on('%');
+  private static final Matcher<ExpressionTree> STRING_FORMAT_INVOCATION =
+      staticMethod().onClass(String.class.getName()).named("format");
+  private static final Matcher<ExpressionTree> FORMATTABLE = isSubtypeOf(Formattable.class);
+  private static final Matcher<ExpressionTree> STRING = isSameType(String.class);
+  private static final ImmutableSet<TypeKind> INTEGRAL_TYPE_KINDS =
+      Sets.immutableEnumSet(TypeKind.BYTE, TypeKind.INT, TypeKind.LONG, TypeKind.SHORT);
+  private static final ImmutableSet<Kind> LOOP_KINDS =
+      ImmutableSet.of(Kind.DO_WHILE_LOOP, Kind.ENHANCED_FOR_LOOP, Kind.FOR_LOOP, Kind.WHILE_LOOP);
+  private static final ImmutableSet<Kind> PRIMARY_EXPRESSION_KINDS =
+      ImmutableSet.of(
+          Kind.ARRAY_ACCESS,
+          Kind.IDENTIFIER,
+          Kind.MEMBER_SELECT,
+          Kind.METHOD_INVOCATION,
+          Kind.NEW_CLASS,
+          Kind.PARENTHESIZED);
+
+  /** Instantiates a new {@link StringFormatUsage} instance. */
+  public StringFormatUsage() {}
+
+  @Override
+  public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+    if (!STRING_FORMAT_INVOCATION.matches(tree, state)) {
+      return Description.NO_MATCH;
+    }
+
+    /*
+     * We only suggest a replacement if the format string is a literal, as it is otherwise not
+     * clear whether the referenced constant should be updated or inlined.
+     */
+    List<? extends ExpressionTree> arguments = tree.getArguments();
+    ExpressionTree formatArgument = arguments.get(0);
+    String format = ASTHelpers.constValue(formatArgument, String.class);
+    if (formatArgument.getKind() != Kind.STRING_LITERAL || format == null) {
+      return Description.NO_MATCH;
+    }
+
+    List<? extends ExpressionTree> formatArguments = arguments.subList(1, arguments.size());
+    return SimpleFormatString.parse(format, formatArguments, state)
+        .map(formatString -> suggestAlternative(tree, formatString, formatArguments, state))
+        .orElse(Description.NO_MATCH);
+  }
+
+  private Description suggestAlternative(
+      MethodInvocationTree tree,
+      SimpleFormatString formatString,
+      List<? extends ExpressionTree> formatArguments,
+      VisitorState state) {
+    Tree parent = state.getPath().getParentPath().getLeaf();
+    if (parent instanceof MethodInvocationTree
+        && LOG_STATEMENT.matches((MethodInvocationTree) parent, state)) {
+      return suggestSlf4jPlaceholders(
+          tree, (MethodInvocationTree) parent, formatString, formatArguments, state);
+    }
+
+    if (isInLoop(state.getPath()) && !formatString.isJoinable()) {
+      return buildDescription(tree)
+          .setMessage("Prefer string concatenation over `String#format` inside loops")
+          .addFix(
+              SuggestedFix.replace(
+                  tree, toStringConcatenation(formatString, formatArguments, state)))
+          .build();
+    }
+
+    return Description.NO_MATCH;
+  }
+
+  private Description suggestSlf4jPlaceholders(
+      MethodInvocationTree tree,
+      MethodInvocationTree logStatement,
+      SimpleFormatString formatString,
+      List<? extends ExpressionTree> formatArguments,
+      VisitorState state) {
+    List<? extends ExpressionTree> logFormatArguments =
+        Slf4jLogStatements.getFormatArguments(logStatement, state);
+    if (logFormatArguments.size() != 1 || logFormatArguments.get(0) != tree) {
+      /* The `String#format` invocation is not the sole input to the log message. */
+      return Description.NO_MATCH;
+    }
+
+    Optional<String> logFormatString =
+        Slf4jLogStatements.toFormatString(formatString.getSegments());
+    if (logFormatString.isEmpty()
+        || Slf4jLogStatements.hasTrailingThrowable(formatArguments, state)) {
+      /*
+       * SLF4J would interpret the literal text or the final argument differently from
+       * `String#format`.
+       */
+      return Description.NO_MATCH;
+    }
+
+    String placeholders = '"' + Convert.quote(logFormatString.orElseThrow()) + '"';
+    String replacement =
+        formatArguments.isEmpty()
+            ? placeholders
+            : formatArguments.stream()
+                .map(argument -> SourceCode.treeToString(argument, state))
+                .collect(joining(", ", placeholders + ", ", ""));
+
+    return buildDescription(tree)
+        .setMessage("Defer string formatting to SLF4J by using `{}` placeholders")
+        .addFix(SuggestedFix.replace(tree, replacement))
+        .build();
+  }
+
+  private static boolean isInLoop(TreePath path) {
+    for (Tree tree : path) {
+      if (LOOP_KINDS.contains(tree.getKind())) {
+        return true;
+      }
+
+      if (tree instanceof MethodTree
+          || tree instanceof ClassTree
+          || tree instanceof LambdaExpressionTree) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+
+  private static String toStringConcatenation(
+      SimpleFormatString formatString,
+      List<? extends ExpressionTree> formatArguments,
+      VisitorState state) {
+    ImmutableList<String> segments = formatString.getSegments();
+    List<String> operands = new ArrayList<>();
+    for (int i = 0; i < segments.size(); i++) {
+      if (!segments.get(i).isEmpty()) {
+        operands.add('"' + Convert.quote(segments.get(i)) + '"');
+      }
+
+      if (i < formatArguments.size()) {
+        ExpressionTree argument = formatArguments.get(i);
+        String source = SourceCode.treeToString(argument, state);
+        if (operands.isEmpty()
+            && segments.get(i + 1).isEmpty()
+            && !STRING.matches(argument, state)) {
+          /*
+           * The argument is neither preceded nor followed by literal text, so make sure that the
+           * `+` operator denotes string concatenation (or that the expression is a string at all).
+           * Non-primitive arguments are cast to `Object`, such that e.g. a `char[]` is not passed
+           * to `String#valueOf(char[])`.
+           */
+          Type type = ASTHelpers.getType(argument);
+          operands.add(
+              String.format(
+                  type != null && type.isPrimitive()
+                      ? "String.valueOf(%s)"
+                      : "String.valueOf((Object) %s)",
+                  source));
+        } else {
+          operands.add(
+              PRIMARY_EXPRESSION_KINDS.contains(argument.getKind())
+                      || argument instanceof LiteralTree
+                  ? source
+                  : '(' + source + ')');
+        }
+      }
+    }
+
+    return operands.isEmpty() ? "\"\"" : String.join(" + ", operands);
+  }
+
+  /**
+   * A format string that consists solely of literal text and {@code %s} and {@code %d} format
+   * specifiers.
+   */
+  private static final class SimpleFormatString {
+    private final ImmutableList<String> segments;
+    private final ImmutableList<Character> conversions;
+
+    private SimpleFormatString(
+        ImmutableList<String> segments, ImmutableList<Character> conversions) {
+      this.segments = segments;
+      this.conversions = conversions;
+    }
+
+    /** Returns the literal text surrounding the format specifiers. */
+    ImmutableList<String> getSegments() {
+      return segments;
+    }
+
+    /**
+     * Tells whether this format string consists of uniformly separated {@code %s} format
+     * specifiers, such that the {@link StringJoin} check applies.
+     */
+    boolean isJoinable() {
+      return !conversions.isEmpty()
+          && conversions.stream().allMatch(c -> c == 's')
+          && segments.get(0).isEmpty()
+          && Iterables.getLast(segments).isEmpty()
+          && ImmutableSet.copyOf(segments.subList(1, segments.size() - 1)).size() <= 1;
+    }
+
+    /**
+     * Parses the given format string, provided that it consists solely of literal text and {@code
+     * %s} and {@code %d} format specifiers that match the given arguments.
+     */
+    static Optional<SimpleFormatString> parse(
+        String formatString, List<? extends ExpressionTree> arguments, VisitorState state) {
+      List<String> parts = FORMAT_SPECIFIER_SPLITTER.splitToList(formatString);
+      ImmutableList.Builder<String> segments = ImmutableList.<String>builder().add(parts.get(0));
+      ImmutableList.Builder<Character> conversions = ImmutableList.builder();
+      for (String part : parts.subList(1, parts.size())) {
+        if (part.isEmpty() || (part.charAt(0) != 's' && part.charAt(0) != 'd')) {
+          /* This is a format specifier other than `%s` or `%d`. */
+          return Optional.empty();
+        }
+
+        conversions.add(part.charAt(0));
+        segments.add(part.substring(1));
+      }
+
+      SimpleFormatString result = new SimpleFormatString(segments.build(), conversions.build());
+      return result.accepts(arguments, state) ? Optional.of(result) : Optional.empty();
+    }
+
+    private boolean accepts(List<? extends ExpressionTree> arguments, VisitorState state) {
+      if (arguments.size() != conversions.size()
+          || (arguments.size() == 1 && isArray(arguments.get(0), state))) {
+        /* The arguments don't (obviously) match the format specifiers. */
+        return false;
+      }
+
+      return IntStream.range(0, arguments.size())
+          .allMatch(
+              i ->
+                  conversions.get(i) == 's'
+                      ? !FORMATTABLE.matches(arguments.get(i), state)
+                      : isIntegral(arguments.get(i), state));
+    }
+
+    private static boolean isArray(ExpressionTree tree, VisitorState state) {
+      Type type = ASTHelpers.getType(tree);
+      return type != null && state.getTypes().isArray(type);
+    }
+
+    private static boolean isIntegral(ExpressionTree tree, VisitorState state) {
+      Type type = ASTHelpers.getType(tree);
+      return type != null
+          && INTEGRAL_TYPE_KINDS.contains(state.getTypes().unboxedTypeOrType(type).getKind());
+    }
+  }
+}
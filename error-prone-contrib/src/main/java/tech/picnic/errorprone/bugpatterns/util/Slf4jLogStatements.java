@@ -0,0 +1,94 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static com.google.errorprone.matchers.Matchers.isSubtypeOf;
+import static com.google.errorprone.matchers.method.MethodMatchers.instanceMethod;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import java.util.List;
+import java.util.Optional;
+
+/** A set of helper methods for analyzing and constructing SLF4J log statements. */
+public final class Slf4jLogStatements {
+  /** The placeholder that SLF4J replaces with the string representation of an argument. */
+  public static final String PLACEHOLDER = "{}";
+  /** A matcher of SLF4J {@code Logger} method invocations that produce a log statement. */
+  public static final Matcher<ExpressionTree> LOG_STATEMENT =
+      instanceMethod()
+          .onDescendantOf("org.slf4j.Logger")
+          .namedAnyOf("trace", "debug", "info", "warn", "error");
+
+  private static final Splitter PLACEHOLDER_SPLITTER = Splitter.on(PLACEHOLDER);
+  private static final Matcher<ExpressionTree> MARKER = isSubtypeOf("org.slf4j.Marker");
+  private static final Matcher<ExpressionTree> THROWABLE = isSubtypeOf(Throwable.class);
+
+  private Slf4jLogStatements() {}
+
+  /**
+   * Returns the arguments of the given log statement that correspond to its format string and
+   * placeholders.
+   *
+   * <p>This excludes a leading "marker" argument and a trailing {@link Throwable} argument, if any;
+   * SLF4J always renders the stacktrace of the latter, even if it has a matching placeholder.
+   *
+   * @param logStatement The SLF4J log statement of interest.
+   * @param state The visitor state.
+   * @return The format string argument, followed by the arguments that it references.
+   */
+  public static List<? extends ExpressionTree> getFormatArguments(
+      MethodInvocationTree logStatement, VisitorState state) {
+    List<? extends ExpressionTree> args = logStatement.getArguments();
+    if (args.isEmpty()) {
+      return args;
+    }
+
+    int lTrim = MARKER.matches(args.get(0), state) ? 1 : 0;
+    int rTrim = args.size() > lTrim && hasTrailingThrowable(args, state) ? 1 : 0;
+    return args.subList(lTrim, args.size() - rTrim);
+  }
+
+  /**
+   * Tells whether SLF4J would treat the last of the given log statement arguments as a {@link
+   * Throwable} whose stacktrace to render, rather than as a placeholder argument.
+   *
+   * @param args The log statement arguments of interest.
+   * @param state The visitor state.
+   * @return Whether the last argument is a {@link Throwable}.
+   */
+  public static boolean hasTrailingThrowable(
+      List<? extends ExpressionTree> args, VisitorState state) {
+    return !args.isEmpty() && THROWABLE.matches(Iterables.getLast(args), state);
+  }
+
+  /**
+   * Counts the number of placeholders in the given format string.
+   *
+   * @param formatString The SLF4J format string of interest.
+   * @return The number of {@value #PLACEHOLDER} occurrences.
+   */
+  public static int countPlaceholders(CharSequence formatString) {
+    return PLACEHOLDER_SPLITTER.splitToList(formatString).size() - 1;
+  }
+
+  /**
+   * Constructs a format string that interleaves the given literal text with placeholders.
+   *
+   * @param segments The literal text preceding, separating and following the placeholders.
+   * @return The resultant format string, unless SLF4J would interpret the given literal text
+   *     differently; i.e., if it contains a placeholder, or if a placeholder would be escaped by a
+   *     preceding backslash.
+   */
+  public static Optional<String> toFormatString(List<String> segments) {
+    if (segments.stream().anyMatch(segment -> segment.contains(PLACEHOLDER))
+        || segments.subList(0, segments.size() - 1).stream()
+            .anyMatch(segment -> segment.endsWith("\\"))) {
+      return Optional.empty();
+    }
+
+    return Optional.of(String.join(PLACEHOLDER, segments));
+  }
+}
@@ -1,11 +1,28 @@
 package tech.picnic.errorprone.bugpatterns.util;
 
+import static com.google.common.collect.Sets.toImmutableEnumSet;
+import static java.util.stream.Collectors.joining;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.VisitorState;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.suppliers.Supplier;
 import com.sun.tools.javac.code.ClassFinder;
 import com.sun.tools.javac.code.Symbol.CompletionFailure;
 import com.sun.tools.javac.util.Name;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import javax.tools.JavaFileManager;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
 
 /**
  * Utility class that helps decide whether it is appropriate to introduce references to (well-known)
@@ -29,6 +46,24 @@ public enum ThirdPartyLibrary {
    * @see <a href="https://github.com/google/guava">Guava on GitHub</a>
    */
   GUAVA("com.google.common.collect.ImmutableList"),
+  /**
+   * FasterXML's Jackson (annotations).
+   *
+   * @see <a href="https://github.com/FasterXML/jackson">Jackson on GitHub</a>
+   */
+  JACKSON("com.fasterxml.jackson.annotation.JsonProperty"),
+  /**
+   * JUnit 5's Jupiter API.
+   *
+   * @see <a href="https://junit.org/junit5">Home page</a>
+   */
+  JUNIT_JUPITER("org.junit.jupiter.api.Test"),
+  /**
+   * Mockito.
+   *
+   * @see <a href="https://site.mockito.org">Home page</a>
+   */
+  MOCKITO("org.mockito.Mockito"),
   /**
    * New Relic's Java agent API.
    *
@@ -41,13 +76,46 @@ public enum ThirdPartyLibrary {
    *
    * @see <a href="https://projectreactor.io">Home page</a>
    */
-  REACTOR("reactor.core.publisher.Flux");
+  REACTOR("reactor.core.publisher.Flux"),
+  /**
+   * VMWare's Spring Framework.
+   *
+   * @see <a href="https://spring.io/projects/spring-framework">Home page</a>
+   */
+  SPRING("org.springframework.core.SpringVersion"),
+  /**
+   * TestNG.
+   *
+   * @see <a href="https://testng.org">Home page</a>
+   */
+  TESTNG("org.testng.annotations.Test");
 
   private static final String IGNORE_CLASSPATH_COMPAT_FLAG =
       "ErrorProneSupport:IgnoreClasspathCompat";
+  /**
+   * The maximum number of distinct classpaths for which the available libraries are cached.
+   *
+   * <p>Each change to a classpath entry yields a new classpath key, so the cache must be bounded.
+   */
+  private static final int MAX_CACHED_CLASSPATHS = 64;
+  /**
+   * The libraries known to be available, by classpath.
+   *
+   * <p>This cache is shared across compilations, such that e.g. a long-lived build daemon need not
+   * repeatedly probe the same classpath. See {@link #getClasspathEntryKey(Path)} for how classpath
+   * entries are identified.
+   */
+  private static final ConcurrentMap<ImmutableList<String>, ImmutableSet<ThirdPartyLibrary>>
+      AVAILABLE_LIBRARIES_BY_CLASSPATH =
+          Caffeine.newBuilder()
+              .maximumSize(MAX_CACHED_CLASSPATHS)
+              .<ImmutableList<String>, ImmutableSet<ThirdPartyLibrary>>build()
+              .asMap();
+
+  private static final Supplier<ImmutableSet<ThirdPartyLibrary>> AVAILABLE_LIBRARIES =
+      VisitorState.memoize(ThirdPartyLibrary::getAvailableLibraries);
 
-  @SuppressWarnings("ImmutableEnumChecker" /* Supplier is deterministic. */)
-  private final Supplier<Boolean> canUse;
+  private final String witnessFqcn;
 
   /**
    * Instantiates a {@link ThirdPartyLibrary} enum value.
@@ -56,7 +124,7 @@ public enum ThirdPartyLibrary {
    *     classpath iff the associated third-party library is on the classpath.
    */
   ThirdPartyLibrary(String witnessFqcn) {
-    this.canUse = VisitorState.memoize(state -> canIntroduceUsage(witnessFqcn, state));
+    this.witnessFqcn = witnessFqcn;
   }
 
   /**
@@ -67,11 +135,87 @@ public enum ThirdPartyLibrary {
    * @return {@code true} iff it is okay to assume or create a dependency on this library.
    */
   public boolean isIntroductionAllowed(VisitorState state) {
-    return canUse.get(state);
+    return shouldIgnoreClasspath(state) || AVAILABLE_LIBRARIES.get(state).contains(this);
+  }
+
+  /**
+   * Determines which libraries are on the classpath of the current compilation.
+   *
+   * <p>If the classpath can be determined, then the result is shared with other compilations
+   * against the same, unmodified classpath.
+   */
+  private static ImmutableSet<ThirdPartyLibrary> getAvailableLibraries(VisitorState state) {
+    return getClasspathKey(state)
+        .map(
+            classpath ->
+                AVAILABLE_LIBRARIES_BY_CLASSPATH.computeIfAbsent(
+                    classpath, k -> probeAvailableLibraries(state)))
+        .orElseGet(() -> probeAvailableLibraries(state));
+  }
+
+  private static Optional<ImmutableList<String>> getClasspathKey(VisitorState state) {
+    JavaFileManager fileManager = state.context.get(JavaFileManager.class);
+    if (!(fileManager instanceof StandardJavaFileManager)) {
+      return Optional.empty();
+    }
+
+    Iterable<? extends Path> classpath =
+        ((StandardJavaFileManager) fileManager).getLocationAsPaths(StandardLocation.CLASS_PATH);
+    if (classpath == null) {
+      return Optional.empty();
+    }
+
+    ImmutableList.Builder<String> key = ImmutableList.builder();
+    for (Path entry : classpath) {
+      Optional<String> entryKey = getClasspathEntryKey(entry);
+      if (entryKey.isEmpty()) {
+        return Optional.empty();
+      }
+      key.add(entryKey.orElseThrow());
+    }
+    return Optional.of(key.build());
+  }
+
+  /**
+   * Identifies the given classpath entry, unless its attributes cannot be read.
+   *
+   * <p>A file, such as a JAR file, is identified by its path, size and modification time. The
+   * content of a directory may change without its modification time being updated, so a directory
+   * is instead identified by its path and the witness classes it contains.
+   */
+  private static Optional<String> getClasspathEntryKey(Path entry) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+      return attributes.isDirectory()
+          ? Optional.of(entry + ":" + getContainedWitnesses(entry))
+          : Optional.of(
+              String.join(
+                  ":",
+                  entry.toString(),
+                  String.valueOf(attributes.size()),
+                  String.valueOf(attributes.lastModifiedTime().toMillis())));
+    } catch (NoSuchFileException e) {
+      return Optional.of(entry + ":absent");
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static String getContainedWitnesses(Path directory) {
+    return Arrays.stream(values())
+        .filter(library -> Files.exists(directory.resolve(library.getWitnessResourceName())))
+        .map(ThirdPartyLibrary::name)
+        .collect(joining(","));
+  }
+
+  private String getWitnessResourceName() {
+    return witnessFqcn.replace('.', '/') + ".class";
   }
 
-  private static boolean canIntroduceUsage(String className, VisitorState state) {
-    return shouldIgnoreClasspath(state) || isKnownClass(className, state);
+  private static ImmutableSet<ThirdPartyLibrary> probeAvailableLibraries(VisitorState state) {
+    return Arrays.stream(values())
+        .filter(library -> isKnownClass(library.witnessFqcn, state))
+        .collect(toImmutableEnumSet());
   }
 
   /**
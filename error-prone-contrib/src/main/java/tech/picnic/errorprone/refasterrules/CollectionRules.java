@@ -40,7 +40,9 @@ final class CollectionRules {
           collection.size() == 0,
           collection.size() <= 0,
           collection.size() < 1,
-          Iterables.isEmpty(collection));
+          Iterables.isEmpty(collection),
+          collection.stream().findAny().isEmpty(),
+          collection.stream().findFirst().isEmpty());
     }
 
     @BeforeTemplate
@@ -55,6 +57,20 @@ final class CollectionRules {
     }
   }
 
+  /** Don't stream a {@link Collection} just to determine whether it is non-empty. */
+  static final class CollectionIsNotEmpty<T> {
+    @BeforeTemplate
+    boolean before(Collection<T> collection) {
+      return Refaster.anyOf(
+          collection.stream().findAny().isPresent(), collection.stream().findFirst().isPresent());
+    }
+
+    @AfterTemplate
+    boolean after(Collection<T> collection) {
+      return !collection.isEmpty();
+    }
+  }
+
   /** Prefer {@link Collection#size()} over more contrived alternatives. */
   static final class CollectionSize<T> {
     @BeforeTemplate
@@ -0,0 +1,73 @@
+package tech.picnic.errorprone.refasterrules;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
+
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.refaster.annotation.Matches;
+import com.google.errorprone.refaster.annotation.Placeholder;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
+import tech.picnic.errorprone.refaster.annotation.Severity;
+import tech.picnic.errorprone.refaster.matchers.IsLocalVariable;
+
+/**
+ * Refaster rules that avoid the allocation of short-lived {@link Optional}s.
+ *
+ * <p>Unlike the rules in {@link OptionalRules}, these rules trade some expressiveness for
+ * performance, and are thus mainly relevant to frequently executed code. They can be enabled
+ * independently of other rules by passing e.g. {@code
+ * -XepOpt:Refaster:NamePattern=.*PerformanceRules.*} to Error Prone.
+ */
+@OnlineDocumentation
+@Severity(SUGGESTION)
+final class OptionalPerformanceRules {
+  private OptionalPerformanceRules() {}
+
+  /**
+   * Prefer a null check over wrapping a nullable value in an {@link Optional} just to transform it.
+   */
+  abstract static class OptionalOfNullableMapOrElseNull<T, R> {
+    @Placeholder
+    abstract @Nullable R function(T value);
+
+    @BeforeTemplate
+    @Nullable
+    R before(@Matches(IsLocalVariable.class) @Nullable T value) {
+      return Optional.ofNullable(value).map(v -> function(v)).orElse(null);
+    }
+
+    @AfterTemplate
+    @Nullable
+    R after(@Nullable T value) {
+      return value == null ? null : function(value);
+    }
+  }
+
+  /** Prefer a null check over wrapping a nullable value in an {@link Optional}. */
+  static final class OptionalOfNullableIsPresent<T> {
+    @BeforeTemplate
+    boolean before(@Nullable T value) {
+      return Optional.ofNullable(value).isPresent();
+    }
+
+    @AfterTemplate
+    boolean after(@Nullable T value) {
+      return value != null;
+    }
+  }
+
+  /** Prefer a null check over wrapping a nullable value in an {@link Optional}. */
+  static final class OptionalOfNullableIsEmpty<T> {
+    @BeforeTemplate
+    boolean before(@Nullable T value) {
+      return Optional.ofNullable(value).isEmpty();
+    }
+
+    @AfterTemplate
+    boolean after(@Nullable T value) {
+      return value == null;
+    }
+  }
+}
@@ -7,11 +7,13 @@ import static java.util.function.Function.identity;
 import static org.assertj.core.api.Assertions.assertThat;
 import static reactor.function.TupleUtils.function;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.MoreCollectors;
 import com.google.errorprone.refaster.Refaster;
 import com.google.errorprone.refaster.annotation.AfterTemplate;
 import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.refaster.annotation.Matches;
 import com.google.errorprone.refaster.annotation.MayOptionallyUse;
 import com.google.errorprone.refaster.annotation.NotMatches;
 import com.google.errorprone.refaster.annotation.Placeholder;
@@ -19,6 +21,7 @@ import com.google.errorprone.refaster.annotation.UseImportPolicy;
 import java.time.Duration;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.function.BiConsumer;
@@ -38,6 +41,7 @@ import reactor.util.function.Tuple2;
 import tech.picnic.errorprone.refaster.annotation.Description;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
 import tech.picnic.errorprone.refaster.annotation.Severity;
+import tech.picnic.errorprone.refaster.matchers.IsEffectivelyFinalLocalVariable;
 import tech.picnic.errorprone.refaster.matchers.ThrowsCheckedException;
 
 /** Refaster rules related to Reactor expressions and statements. */
@@ -1119,6 +1123,146 @@ final class ReactorRules {
     }
   }
 
+  /**
+   * Prefer a single {@link Mono#map(Function)} invocation over a chain of such invocations, as the
+   * former requires fewer operators and subscribers.
+   *
+   * <p>NB: Unlike the original code, the rewritten code does not reject {@code null} intermediate
+   * values.
+   */
+  abstract static class MonoMapMap<T, S, R> {
+    @Placeholder(allowsIdentity = true)
+    abstract S firstTransformation(@MayOptionallyUse T value);
+
+    @Placeholder(allowsIdentity = true)
+    abstract R secondTransformation(@MayOptionallyUse S value);
+
+    @BeforeTemplate
+    Mono<R> before(Mono<T> mono) {
+      return mono.map(x -> firstTransformation(x)).map(y -> secondTransformation(y));
+    }
+
+    @AfterTemplate
+    Mono<R> after(Mono<T> mono) {
+      return mono.map(x -> secondTransformation(firstTransformation(x)));
+    }
+  }
+
+  /**
+   * Prefer a single {@link Flux#map(Function)} invocation over a chain of such invocations, as the
+   * former requires fewer operators and subscribers.
+   *
+   * <p>NB: Unlike the original code, the rewritten code does not reject {@code null} intermediate
+   * values.
+   */
+  abstract static class FluxMapMap<T, S, R> {
+    @Placeholder(allowsIdentity = true)
+    abstract S firstTransformation(@MayOptionallyUse T value);
+
+    @Placeholder(allowsIdentity = true)
+    abstract R secondTransformation(@MayOptionallyUse S value);
+
+    @BeforeTemplate
+    Flux<R> before(Flux<T> flux) {
+      return flux.map(x -> firstTransformation(x)).map(y -> secondTransformation(y));
+    }
+
+    @AfterTemplate
+    Flux<R> after(Flux<T> flux) {
+      return flux.map(x -> secondTransformation(firstTransformation(x)));
+    }
+  }
+
+  /**
+   * Don't unnecessarily wrap the elements of a {@link Flux} in a publisher, only to immediately
+   * unwrap them again.
+   */
+  static final class FluxIdentity<T> {
+    @BeforeTemplate
+    Flux<T> before(Flux<T> flux) {
+      return Refaster.anyOf(
+          flux.concatMap(Mono::just),
+          flux.concatMap(Flux::just),
+          flux.flatMap(Mono::just),
+          flux.flatMap(Flux::just),
+          flux.flatMapSequential(Mono::just),
+          flux.flatMapSequential(Flux::just),
+          flux.switchMap(Mono::just),
+          flux.switchMap(Flux::just));
+    }
+
+    @AfterTemplate
+    Flux<T> after(Flux<T> flux) {
+      return flux;
+    }
+  }
+
+  /**
+   * Prefer {@link Mono#defer(Supplier)} over {@link Mono#flatMap(Function) flat mapping} a {@link
+   * Mono#just(Object)} instance, as the former requires fewer operators and subscribers, while
+   * similarly deferring evaluation of the function.
+   */
+  // XXX: The matched expressions are restricted to effectively final local variables, as other
+  // expressions may not be safe to evaluate lazily, or cannot be captured by a lambda expression.
+  static final class MonoJustFlatMap<T, S> {
+    @BeforeTemplate
+    Mono<S> before(
+        @Matches(IsEffectivelyFinalLocalVariable.class) T value,
+        @Matches(IsEffectivelyFinalLocalVariable.class)
+            Function<? super T, ? extends Mono<? extends S>> function) {
+      return Mono.just(value).flatMap(function);
+    }
+
+    @AfterTemplate
+    Mono<S> after(T value, Function<? super T, ? extends Mono<? extends S>> function) {
+      return Mono.defer(() -> function.apply(value));
+    }
+  }
+
+  /**
+   * Prefer {@link Flux#defer(Supplier)} over flat mapping a {@link Flux#just(Object)} or {@link
+   * Mono#just(Object)} instance, as the former requires fewer operators and subscribers, while
+   * similarly deferring evaluation of the function.
+   */
+  // XXX: The matched expressions are restricted to effectively final local variables, as other
+  // expressions may not be safe to evaluate lazily, or cannot be captured by a lambda expression.
+  static final class FluxJustFlatMap<T, S> {
+    @BeforeTemplate
+    Flux<S> before(
+        @Matches(IsEffectivelyFinalLocalVariable.class) T value,
+        @Matches(IsEffectivelyFinalLocalVariable.class)
+            Function<? super T, ? extends Publisher<S>> function) {
+      return Refaster.anyOf(
+          Flux.just(value).concatMap(function),
+          Flux.just(value).flatMap(function),
+          Flux.just(value).flatMapSequential(function),
+          Mono.just(value).flatMapMany(function));
+    }
+
+    @AfterTemplate
+    Flux<S> after(T value, Function<? super T, ? extends Publisher<S>> function) {
+      return Flux.defer(() -> function.apply(value));
+    }
+  }
+
+  /**
+   * Don't unnecessarily emit the elements of an already-materialized {@link ImmutableList} one by
+   * one, only to collect them into a new list.
+   *
+   * <p>NB: Unlike the original code, the rewritten code emits an immutable list.
+   */
+  static final class FluxFromIterableCollectList<T> {
+    @BeforeTemplate
+    Mono<List<T>> before(ImmutableList<T> list) {
+      return Flux.fromIterable(list).collectList();
+    }
+
+    @AfterTemplate
+    Mono<List<T>> after(ImmutableList<T> list) {
+      return Mono.just(list);
+    }
+  }
+
   /** Prefer {@link reactor.util.context.Context#empty()}} over more verbose alternatives. */
   // XXX: Consider introducing an `IsEmpty` matcher that identifies a wide range of guaranteed-empty
   // `Collection` and `Map` expressions.
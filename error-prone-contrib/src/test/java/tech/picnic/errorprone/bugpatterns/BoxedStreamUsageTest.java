@@ -0,0 +1,114 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class BoxedStreamUsageTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(BoxedStreamUsage.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import static java.util.stream.Collectors.averagingInt;",
+            "import static java.util.stream.Collectors.counting;",
+            "import static java.util.stream.Collectors.summingLong;",
+            "",
+            "import java.math.BigDecimal;",
+            "import java.util.Comparator;",
+            "import java.util.function.Function;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m() {",
+            "    Stream.of(1).reduce(1, Integer::sum);",
+            "    Stream.of(1).reduce(0, Integer::max);",
+            "    Stream.of(BigDecimal.ONE).reduce(BigDecimal.ZERO, BigDecimal::add);",
+            "    Stream.of(1).collect(counting());",
+            "    Stream.of(1.0).max(Double::compare).get();",
+            "    Stream.of(1).max(Comparator.reverseOrder()).get();",
+            "    Stream.of(1).max(Integer::compare);",
+            "    Stream.of(1).max(Integer::compare).orElse(null);",
+            "    boolean b1 = Stream.of(1).reduce(0, Integer::sum) == 0;",
+            "    Object o = String.valueOf(Stream.of(1).reduce(0, Integer::sum));",
+            "    var v = Stream.of(1).reduce(0, Integer::sum);",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    int i1 = Stream.of(1).reduce(0, Integer::sum);",
+            "    // BUG: Diagnostic contains:",
+            "    long l1 = Stream.of(\"foo\").map(String::length).map(Long::valueOf).reduce(0L, Long::sum);",
+            "    // BUG: Diagnostic contains:",
+            "    double d1 = Stream.of(1.0).reduce(0.0, Double::sum);",
+            "    // BUG: Diagnostic contains:",
+            "    long l2 = Stream.of(\"foo\").collect(summingLong(String::length));",
+            "    // BUG: Diagnostic contains:",
+            "    double d2 = Stream.of(\"foo\").collect(averagingInt(String::length));",
+            "    // BUG: Diagnostic contains:",
+            "    int i2 = Stream.of(1).max(Integer::compare).get();",
+            "    // BUG: Diagnostic contains:",
+            "    long l3 = Stream.of(1L).min(Comparator.naturalOrder()).orElseThrow();",
+            "    // BUG: Diagnostic contains:",
+            "    int i3 = Stream.of(1).min(Integer::compareTo).orElse(0);",
+            "    // BUG: Diagnostic contains:",
+            "    boolean b2 = Stream.of(1).reduce(0, Integer::sum) > 0;",
+            "    // BUG: Diagnostic contains:",
+            "    Function<Stream<Integer>, Integer> f = s -> s.reduce(0, Integer::sum);",
+            "  }",
+            "",
+            "  int returnValue() {",
+            "    // BUG: Diagnostic contains:",
+            "    return Stream.of(1).reduce(0, Integer::sum);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    BugCheckerRefactoringTestHelper.newInstance(BoxedStreamUsage.class, getClass())
+        .addInputLines(
+            "A.java",
+            "import static java.util.stream.Collectors.averagingDouble;",
+            "import static java.util.stream.Collectors.summingInt;",
+            "",
+            "import java.util.Comparator;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m() {",
+            "    int i1 = Stream.of(1).reduce(0, Integer::sum);",
+            "    int i2 = Stream.of(\"foo\").map(String::length).reduce(0, Integer::sum);",
+            "    long l1 = Stream.of(\"foo\").map(s -> (long) s.length()).reduce(0L, Long::sum);",
+            "    double d1 = Stream.of(1.0).reduce(0.0, Double::sum);",
+            "    int i3 = Stream.of(\"foo\").collect(summingInt(String::length));",
+            "    double d2 = Stream.of(\"foo\").collect(averagingDouble(s -> s.length() / 2.0));",
+            "    int i4 = Stream.of(1).max(Integer::compare).get();",
+            "    long l2 = Stream.of(1L).min(Comparator.naturalOrder()).orElseThrow();",
+            "    int i5 = Stream.of(\"foo\").map(String::length).min(Integer::compareTo).orElse(-1);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import static java.util.stream.Collectors.averagingDouble;",
+            "import static java.util.stream.Collectors.summingInt;",
+            "",
+            "import java.util.Comparator;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m() {",
+            "    int i1 = Stream.of(1).mapToInt(Integer::intValue).sum();",
+            "    int i2 = Stream.of(\"foo\").mapToInt(String::length).sum();",
+            "    long l1 = Stream.of(\"foo\").mapToLong(s -> (long) s.length()).sum();",
+            "    double d1 = Stream.of(1.0).mapToDouble(Double::doubleValue).sum();",
+            "    int i3 = Stream.of(\"foo\").mapToInt(String::length).sum();",
+            "    double d2 = Stream.of(\"foo\").mapToDouble(s -> s.length() / 2.0).average().orElse(0);",
+            "    int i4 = Stream.of(1).mapToInt(Integer::intValue).max().getAsInt();",
+            "    long l2 = Stream.of(1L).mapToLong(Long::longValue).min().orElseThrow();",
+            "    int i5 = Stream.of(\"foo\").mapToInt(String::length).min().orElse(-1);",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,245 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class CollectionInitialCapacityTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(CollectionInitialCapacity.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.util.ArrayDeque;",
+            "import java.util.ArrayList;",
+            "import java.util.Collection;",
+            "import java.util.HashMap;",
+            "import java.util.HashSet;",
+            "import java.util.LinkedHashMap;",
+            "import java.util.LinkedHashSet;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "import java.util.TreeSet;",
+            "",
+            "class A {",
+            "  private final List<String> strings = new ArrayList<>();",
+            "",
+            "  void m(List<String> list, Iterable<String> iterable, String[] array) {",
+            "    List<String> l1 = new ArrayList<>(list.size());",
+            "    for (String s : list) {",
+            "      l1.add(s);",
+            "    }",
+            "",
+            "    List<String> l2 = new ArrayList<>();",
+            "    for (String s : iterable) {",
+            "      l2.add(s);",
+            "    }",
+            "",
+            "    List<String> l3 = new ArrayList<>();",
+            "    for (String s : list.subList(0, 1)) {",
+            "      l3.add(s);",
+            "    }",
+            "",
+            "    List<String> l4 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      if (!s.isEmpty()) {",
+            "        l4.add(s);",
+            "      }",
+            "    }",
+            "",
+            "    List<String> l5 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      l5.add(s);",
+            "      l5.add(s);",
+            "    }",
+            "",
+            "    List<String> l6 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      if (s.isEmpty()) {",
+            "        continue;",
+            "      }",
+            "      l6.add(s);",
+            "    }",
+            "",
+            "    List<String> l7 = new ArrayList<>();",
+            "    l7.add(\"foo\");",
+            "    for (String s : list) {",
+            "      l7.add(s);",
+            "    }",
+            "",
+            "    List<String> l8 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      l8.add(l8.size() + s);",
+            "    }",
+            "",
+            "    List<String> l9 = new ArrayList<>() {};",
+            "    for (String s : list) {",
+            "      l9.add(s);",
+            "    }",
+            "",
+            "    Set<String> s1 = new TreeSet<>();",
+            "    for (String s : list) {",
+            "      s1.add(s);",
+            "    }",
+            "",
+            "    Collection<String> c1 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      c1.addAll(List.of(s));",
+            "    }",
+            "",
+            "    var s2 = new HashSet<String>();",
+            "    for (String s : list) {",
+            "      s2.add(s);",
+            "    }",
+            "",
+            "    List<String> l12 = new ArrayList<>();",
+            "    List<String> source = List.of(\"foo\");",
+            "    for (String s : source) {",
+            "      l12.add(s);",
+            "    }",
+            "",
+            "    List<String> l13 = new ArrayList<>();",
+            "    list = List.of(\"foo\");",
+            "    for (String s : list) {",
+            "      l13.add(s);",
+            "    }",
+            "",
+            "    List<String> l14 = new ArrayList<>();",
+            "    this.strings.clear();",
+            "    for (String s : strings) {",
+            "      l14.add(s);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    List<String> l10 = new ArrayList<>();",
+            "    for (String s : list) {",
+            "      l10.add(s);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    List<Integer> l11 = new ArrayList<>();",
+            "    for (String s : array) {",
+            "      String trimmed = s.trim();",
+            "      l11.add(trimmed.length());",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    ArrayDeque<String> d1 = new ArrayDeque<>();",
+            "    for (String s : this.strings) d1.add(s);",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Map<String, Integer> m1 = new HashMap<>();",
+            "    for (String s : strings) {",
+            "      m1.put(s, s.length());",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Map<String, Integer> m2 = new LinkedHashMap<>();",
+            "    for (String s : list) {",
+            "      m2.put(s, s.length());",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Set<String> s3 = new HashSet<>();",
+            "    for (String s : list) {",
+            "      s3.add(s);",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Set<String> s4 = new LinkedHashSet<>();",
+            "    for (String s : list) {",
+            "      s4.add(s);",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    BugCheckerRefactoringTestHelper.newInstance(CollectionInitialCapacity.class, getClass())
+        .addInputLines(
+            "A.java",
+            "import java.util.ArrayList;",
+            "import java.util.HashMap;",
+            "import java.util.HashSet;",
+            "import java.util.LinkedHashMap;",
+            "import java.util.LinkedHashSet;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "",
+            "class A {",
+            "  void m(List<String> list, String[] array) {",
+            "    List<String> l1 = new ArrayList<String>();",
+            "    for (String s : array) {",
+            "      l1.add(s);",
+            "    }",
+            "",
+            "    Map<String, Integer> m1 = new HashMap<>();",
+            "    for (String s : list) {",
+            "      m1.put(s, s.length());",
+            "    }",
+            "",
+            "    Map<String, Integer> m2 = new LinkedHashMap<>();",
+            "    for (String s : list) {",
+            "      m2.put(s, s.length());",
+            "    }",
+            "",
+            "    Set<String> s1 = new HashSet<>();",
+            "    for (String s : list) {",
+            "      s1.add(s);",
+            "    }",
+            "",
+            "    Set<String> s2 = new LinkedHashSet<>();",
+            "    for (String s : list) {",
+            "      s2.add(s);",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import com.google.common.collect.Maps;",
+            "import com.google.common.collect.Sets;",
+            "import java.util.ArrayList;",
+            "import java.util.HashMap;",
+            "import java.util.HashSet;",
+            "import java.util.LinkedHashMap;",
+            "import java.util.LinkedHashSet;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "",
+            "class A {",
+            "  void m(List<String> list, String[] array) {",
+            "    List<String> l1 = new ArrayList<String>(array.length);",
+            "    for (String s : array) {",
+            "      l1.add(s);",
+            "    }",
+            "",
+            "    Map<String, Integer> m1 = Maps.newHashMapWithExpectedSize(list.size());",
+            "    for (String s : list) {",
+            "      m1.put(s, s.length());",
+            "    }",
+            "",
+            "    Map<String, Integer> m2 = Maps.newLinkedHashMapWithExpectedSize(list.size());",
+            "    for (String s : list) {",
+            "      m2.put(s, s.length());",
+            "    }",
+            "",
+            "    Set<String> s1 = Sets.newHashSetWithExpectedSize(list.size());",
+            "    for (String s : list) {",
+            "      s1.add(s);",
+            "    }",
+            "",
+            "    Set<String> s2 = Sets.newLinkedHashSetWithExpectedSize(list.size());",
+            "    for (String s : list) {",
+            "      s2.add(s);",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
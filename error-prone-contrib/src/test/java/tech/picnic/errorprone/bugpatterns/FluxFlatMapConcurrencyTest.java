@@ -0,0 +1,93 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class FluxFlatMapConcurrencyTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(FluxFlatMapConcurrency.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "import reactor.core.publisher.ParallelFlux;",
+            "import reactor.core.scheduler.Schedulers;",
+            "",
+            "class A {",
+            "  private static final int MAX_CONCURRENCY = 8;",
+            "",
+            "  void m(Flux<Integer> flux, ParallelFlux<Integer> parallelFlux, int concurrency) {",
+            "    flux.flatMap(Flux::just);",
+            "    flux.flatMap(Flux::just, 1024, 1);",
+            "    flux.flatMap(i -> flux.flatMap(Flux::just, MAX_CONCURRENCY), MAX_CONCURRENCY);",
+            "    flux.flatMap(i -> flux.flatMap(Flux::just, concurrency));",
+            "    flux.flatMap(i -> flux.flatMap(Flux::just), concurrency);",
+            "    flux.flatMap(i -> flux.concatMap(Flux::just));",
+            "    flux.flatMap(i -> Mono.just(i).flatMap(Mono::just));",
+            "    flux.flatMap(i -> Flux.just(i).flatMap(Flux::just, 4), 4);",
+            "    flux.concatMap(i -> flux.flatMap(Flux::just));",
+            "    flux.flatMap(Flux::just).flatMap(Flux::just);",
+            "    flux.parallel(2).runOn(Schedulers.parallel()).flatMap(Flux::just, false, 512);",
+            "    parallelFlux.flatMap(Flux::just);",
+            "    flux.flatMap(",
+            "        i ->",
+            "            new Object() {",
+            "              Flux<Integer> m() {",
+            "                return flux.flatMap(Flux::just);",
+            "              }",
+            "            }.m());",
+            "",
+            "    // BUG: Diagnostic contains: up to 4096 (4096) concurrent inner subscriptions",
+            "    flux.flatMap(Flux::just, 4096);",
+            "    flux.flatMap(",
+            "        i ->",
+            "            // BUG: Diagnostic contains: 65536 (256 * 256) concurrent inner subscriptions, which combined may prefetch up to 2097152 elements",
+            "            flux.flatMap(Flux::just));",
+            "    flux.flatMapSequential(",
+            "        i ->",
+            "            // BUG: Diagnostic contains: up to 2048 (8 * 256)",
+            "            flux.flatMapDelayError(Flux::just, 256, 1),",
+            "        MAX_CONCURRENCY);",
+            "    flux.flatMap(",
+            "        i ->",
+            "            flux.flatMap(",
+            "                j ->",
+            "                    // BUG: Diagnostic contains: up to 2048 (8 * 16 * 16)",
+            "                    flux.flatMap(Flux::just, 16),",
+            "                16),",
+            "        MAX_CONCURRENCY);",
+            "    // BUG: Diagnostic contains: up to 2048 (8 * 256) concurrent inner subscriptions,",
+            "    flux.parallel().runOn(Schedulers.parallel()).flatMap(Flux::just, false, 256);",
+            "    // BUG: Diagnostic contains: up to 4294967294 (2 * 2147483647)",
+            "    flux.parallel(2).runOn(Schedulers.parallel()).flatMap(Flux::just);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationWithCustomFlags() {
+    CompilationTestHelper.newInstance(FluxFlatMapConcurrency.class, getClass())
+        .setArgs(
+            "-XepOpt:FluxFlatMapConcurrency:MaxConcurrency=64",
+            "-XepOpt:FluxFlatMapConcurrency:AssumedParallelism=4")
+        .addSourceLines(
+            "A.java",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.scheduler.Schedulers;",
+            "",
+            "class A {",
+            "  void m(Flux<Integer> flux) {",
+            "    flux.flatMap(i -> flux.flatMap(Flux::just, 8), 8);",
+            "    flux.parallel().runOn(Schedulers.parallel()).flatMap(Flux::just, false, 16);",
+            "",
+            "    // BUG: Diagnostic contains: up to 256 (256)",
+            "    flux.flatMap(Flux::just);",
+            "    // BUG: Diagnostic contains: up to 68 (4 * 17)",
+            "    flux.parallel().runOn(Schedulers.parallel()).flatMap(Flux::just, false, 17);",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
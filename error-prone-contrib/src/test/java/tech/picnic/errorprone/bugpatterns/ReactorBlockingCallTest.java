@@ -0,0 +1,160 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class ReactorBlockingCallTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(ReactorBlockingCall.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.sql.Connection;",
+            "import java.sql.SQLException;",
+            "import java.util.List;",
+            "import java.util.concurrent.CompletableFuture;",
+            "import java.util.concurrent.ExecutionException;",
+            "import java.util.concurrent.Future;",
+            "import javax.sql.DataSource;",
+            "import reactor.core.publisher.Flux;",
+            "import reactor.core.publisher.Mono;",
+            "import reactor.core.scheduler.Schedulers;",
+            "",
+            "class A {",
+            "  void m(",
+            "      Flux<Integer> flux,",
+            "      Mono<Integer> mono,",
+            "      CompletableFuture<Integer> future,",
+            "      Flux<Mono<Integer>> monos,",
+            "      Flux<CompletableFuture<Integer>> futures) {",
+            "    mono.block();",
+            "    flux.blockFirst();",
+            "    Runnable r = () -> mono.block();",
+            "    flux.map(i -> i + 1);",
+            "    flux.map(i -> mono);",
+            "    flux.map(i -> future.getNow(i));",
+            "    flux.map(i -> Mono.just(i).hashCode());",
+            "    flux.map(",
+            "        i ->",
+            "            new Object() {",
+            "              int get() {",
+            "                return mono.block();",
+            "              }",
+            "            });",
+            "",
+            "    Mono.fromCallable(() -> future.get()).subscribeOn(Schedulers.boundedElastic());",
+            "    flux.flatMap(",
+            "        i ->",
+            "            Mono.fromCallable(() -> future.join())",
+            "                .map(j -> mono.block())",
+            "                .subscribeOn(Schedulers.boundedElastic()));",
+            "    flux.publishOn(Schedulers.boundedElastic()).map(i -> mono.block());",
+            "    flux.subscribeOn(Schedulers.newBoundedElastic(1, 1, \"foo\")).map(i -> mono.block());",
+            "    flux.parallel().runOn(Schedulers.boundedElastic()).map(i -> mono.block());",
+            "    flux.publishOn(Schedulers.parallel())",
+            "        .publishOn(Schedulers.boundedElastic())",
+            "        .map(i -> mono.block());",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    flux.map(i -> mono.block());",
+            "    // BUG: Diagnostic contains:",
+            "    flux.map(i -> mono.blockOptional());",
+            "    // BUG: Diagnostic contains:",
+            "    flux.flatMap(i -> Flux.fromIterable(flux.toIterable()));",
+            "    // BUG: Diagnostic contains:",
+            "    flux.flatMap(i -> Mono.just(mono.block()));",
+            "    // BUG: Diagnostic contains:",
+            "    monos.map(Mono::block);",
+            "    // BUG: Diagnostic contains:",
+            "    futures.map(CompletableFuture::join);",
+            "    // BUG: Diagnostic contains:",
+            "    flux.flatMap(i -> Mono.fromCallable(() -> future.get()));",
+            "    // BUG: Diagnostic contains:",
+            "    flux.flatMap(i -> Mono.fromSupplier(future::join));",
+            "    // BUG: Diagnostic contains:",
+            "    flux.publishOn(Schedulers.parallel()).map(i -> mono.block());",
+            "    // BUG: Diagnostic contains:",
+            "    flux.map(i -> mono.block()).publishOn(Schedulers.boundedElastic());",
+            "    // BUG: Diagnostic contains:",
+            "    flux.parallel().runOn(Schedulers.parallel()).map(i -> mono.block());",
+            "    flux.publishOn(Schedulers.boundedElastic())",
+            "        .publishOn(Schedulers.parallel())",
+            "        // BUG: Diagnostic contains:",
+            "        .map(i -> mono.block());",
+            "    flux.publishOn(Schedulers.parallel())",
+            "        // BUG: Diagnostic contains:",
+            "        .map(i -> mono.block())",
+            "        .subscribeOn(Schedulers.boundedElastic());",
+            "    flux.doOnNext(",
+            "        i -> {",
+            "          try {",
+            "            // BUG: Diagnostic contains:",
+            "            Thread.sleep(i);",
+            "          } catch (InterruptedException e) {",
+            "            Thread.currentThread().interrupt();",
+            "          }",
+            "        });",
+            "    flux.map(",
+            "        i ->",
+            "            List.of(i).stream()",
+            "                // BUG: Diagnostic contains:",
+            "                .map(j -> future.join())",
+            "                .count());",
+            "  }",
+            "",
+            "  void jdbc(Flux<String> flux, DataSource dataSource, Future<Connection> connection) {",
+            "    flux.map(",
+            "        query -> {",
+            "          try {",
+            "            // BUG: Diagnostic contains:",
+            "            return dataSource.getConnection()",
+            "                // BUG: Diagnostic contains:",
+            "                .prepareStatement(query)",
+            "                // BUG: Diagnostic contains:",
+            "                .executeQuery();",
+            "          } catch (SQLException e) {",
+            "            throw new IllegalStateException(e);",
+            "          }",
+            "        });",
+            "    flux.map(",
+            "        query -> {",
+            "          try {",
+            "            // BUG: Diagnostic contains:",
+            "            return connection.get();",
+            "          } catch (InterruptedException | ExecutionException e) {",
+            "            throw new IllegalStateException(e);",
+            "          }",
+            "        });",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationWithExtraBlockingMethods() {
+    CompilationTestHelper.newInstance(ReactorBlockingCall.class, getClass())
+        .setArgs("-XepOpt:ReactorBlockingCall:ExtraBlockingMethods=A.B#load(java.lang.String)")
+        .addSourceLines(
+            "A.java",
+            "import reactor.core.publisher.Flux;",
+            "",
+            "class A {",
+            "  void m(Flux<String> flux, B b) {",
+            "    flux.filter(b::equals);",
+            "    flux.map(s -> b.load(s, s));",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    flux.map(b::load);",
+            "    // BUG: Diagnostic contains:",
+            "    flux.map(s -> b.load(s));",
+            "  }",
+            "",
+            "  interface B {",
+            "    String load(String key);",
+            "",
+            "    String load(String key, String defaultValue);",
+            "  }",
+            "}")
+        .doTest();
+  }
+}
@@ -0,0 +1,175 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class RedundantImmutableCollectionCopyTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(RedundantImmutableCollectionCopy.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import static com.google.common.collect.ImmutableList.toImmutableList;",
+            "",
+            "import com.google.common.collect.ImmutableList;",
+            "import com.google.common.collect.ImmutableMultiset;",
+            "import com.google.common.collect.ImmutableSet;",
+            "import com.google.common.collect.ImmutableSortedSet;",
+            "import java.util.ArrayList;",
+            "import java.util.Collection;",
+            "import java.util.List;",
+            "import java.util.Set;",
+            "",
+            "class A {",
+            "  void m(List<String> list, Set<String> set) {",
+            "    ImmutableList.copyOf(list);",
+            "    ImmutableList.copyOf(ImmutableList.of(1));",
+            "    ImmutableList.copyOf(list.stream().collect(toImmutableList()));",
+            "    ImmutableSet.copyOf(ImmutableList.of(1));",
+            "    ImmutableSet.copyOf(ImmutableSortedSet.of(1));",
+            "    ImmutableMultiset.copyOf(ImmutableSet.of(1));",
+            "    ImmutableList.copyOf(mutableList());",
+            "    ImmutableList.copyOf(overridableMethod());",
+            "    ImmutableList.copyOf(recursiveMethod());",
+            "    ImmutableList.copyOf(sometimesMutableList(true));",
+            "",
+            "    List<String> mutable = new ArrayList<>();",
+            "    ImmutableList.copyOf(mutable);",
+            "",
+            "    List<String> reassigned = ImmutableList.of();",
+            "    reassigned = list;",
+            "    ImmutableList.copyOf(reassigned);",
+            "",
+            "    Collection<? extends Number> widened = ImmutableList.<Integer>of(1);",
+            "    ImmutableList.copyOf(widened);",
+            "",
+            "    List<String> l1 = ImmutableList.of(\"foo\");",
+            "    // BUG: Diagnostic contains: avoid the copy",
+            "    ImmutableList.copyOf(l1);",
+            "",
+            "    Set<String> s1 = ImmutableSet.of(\"foo\");",
+            "    // BUG: Diagnostic contains: avoid the copy",
+            "    ImmutableSet.copyOf(s1);",
+            "",
+            "    Collection<String> c1 = ImmutableSet.of(\"foo\");",
+            "    Collection<String> c2 = c1;",
+            "    // BUG: Diagnostic contains: prefer `asList()`",
+            "    ImmutableList.copyOf(c2);",
+            "",
+            "    // BUG: Diagnostic contains: prefer `asList()`",
+            "    ImmutableList.copyOf(ImmutableSet.of(1));",
+            "    // BUG: Diagnostic contains: avoid the copy",
+            "    ImmutableList.copyOf(immutableList());",
+            "    // BUG: Diagnostic contains: avoid the copy",
+            "    ImmutableList.copyOf(immutableListDelegate());",
+            "    // BUG: Diagnostic contains: prefer `asList()`",
+            "    ImmutableList.copyOf(immutableSet(true));",
+            "  }",
+            "",
+            "  private List<String> mutableList() {",
+            "    return new ArrayList<>();",
+            "  }",
+            "",
+            "  List<String> overridableMethod() {",
+            "    return ImmutableList.of();",
+            "  }",
+            "",
+            "  private List<String> recursiveMethod() {",
+            "    return recursiveMethod();",
+            "  }",
+            "",
+            "  private List<String> sometimesMutableList(boolean b) {",
+            "    if (b) {",
+            "      return ImmutableList.of();",
+            "    }",
+            "    return new ArrayList<>();",
+            "  }",
+            "",
+            "  private List<String> immutableList() {",
+            "    return ImmutableList.of();",
+            "  }",
+            "",
+            "  private static List<String> immutableListDelegate() {",
+            "    List<String> list = ImmutableList.of();",
+            "    return list;",
+            "  }",
+            "",
+            "  final Collection<String> immutableSet(boolean b) {",
+            "    Runnable r =",
+            "        () -> {",
+            "          return;",
+            "        };",
+            "    return b ? ImmutableSet.of() : ImmutableSet.of(\"foo\");",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    BugCheckerRefactoringTestHelper.newInstance(RedundantImmutableCollectionCopy.class, getClass())
+        .addInputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import com.google.common.collect.ImmutableSet;",
+            "import java.util.Collection;",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  ImmutableList<String> m1() {",
+            "    List<String> list = ImmutableList.of(\"foo\");",
+            "    return ImmutableList.copyOf(list);",
+            "  }",
+            "",
+            "  ImmutableList<String> m2() {",
+            "    Collection<String> set = ImmutableSet.of(\"foo\");",
+            "    return ImmutableList.copyOf(set);",
+            "  }",
+            "",
+            "  ImmutableList<Integer> m3() {",
+            "    return ImmutableList.copyOf(ImmutableSet.of(1));",
+            "  }",
+            "",
+            "  ImmutableList<String> m4() {",
+            "    return ImmutableList.copyOf(list());",
+            "  }",
+            "",
+            "  private List<String> list() {",
+            "    return ImmutableList.of(\"foo\");",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableList;",
+            "import com.google.common.collect.ImmutableSet;",
+            "import java.util.Collection;",
+            "import java.util.List;",
+            "",
+            "class A {",
+            "  ImmutableList<String> m1() {",
+            "    ImmutableList<String> list = ImmutableList.of(\"foo\");",
+            "    return list;",
+            "  }",
+            "",
+            "  ImmutableList<String> m2() {",
+            "    ImmutableSet<String> set = ImmutableSet.of(\"foo\");",
+            "    return set.asList();",
+            "  }",
+            "",
+            "  ImmutableList<Integer> m3() {",
+            "    return ImmutableSet.of(1).asList();",
+            "  }",
+            "",
+            "  ImmutableList<String> m4() {",
+            "    return list();",
+            "  }",
+            "",
+            "  private ImmutableList<String> list() {",
+            "    return ImmutableList.of(\"foo\");",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
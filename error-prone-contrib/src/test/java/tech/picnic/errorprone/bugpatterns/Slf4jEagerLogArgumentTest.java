@@ -0,0 +1,226 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.FixChoosers;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class Slf4jEagerLogArgumentTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(Slf4jEagerLogArgument.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  private final int[] values = new int[1];",
+            "",
+            "  void m(Marker marker, List<String> list, Throwable throwable, int i, String s) {",
+            "    LOG.debug(\"foo\");",
+            "    LOG.debug(toString());",
+            "    LOG.debug(\"foo {} {} {} {}\", i, s, this.values, values[i + 1]);",
+            "    LOG.debug(\"foo {}\", i > 0 ? -i : (long) i, throwable);",
+            "    LOG.debug(\"foo {}\", (Runnable) () -> list.size());",
+            "    LOG.trace(marker, \"foo {}\", s);",
+            "    LOG.info(\"foo {}\", list.size());",
+            "    LOG.atDebug().addArgument(() -> list.size()).log(\"foo {}\");",
+            "",
+            "    if (LOG.isDebugEnabled()) {",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (i > 0 && LOG.isTraceEnabled()) {",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "      for (String e : list) {",
+            "        LOG.trace(\"foo {}\", e.length());",
+            "      }",
+            "    }",
+            "",
+            "    if (LOG.isDebugEnabled()) {",
+            "      // BUG: Diagnostic contains:",
+            "      LOG.trace(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (LOG.isDebugEnabled()) {",
+            "      LOG.debug(\"foo\");",
+            "    } else {",
+            "      // BUG: Diagnostic contains:",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if ((LOG.isDebugEnabled() && i > 0) && s != null) {",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (!LOG.isDebugEnabled()) {",
+            "      // BUG: Diagnostic contains:",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (i > 0 || LOG.isDebugEnabled()) {",
+            "      // BUG: Diagnostic contains:",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (LOG.isDebugEnabled() == list.isEmpty()) {",
+            "      // BUG: Diagnostic contains:",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "",
+            "    if (LOG.isDebugEnabled()) {",
+            "      Runnable r =",
+            "          () -> {",
+            "            // BUG: Diagnostic contains:",
+            "            LOG.debug(\"foo {}\", list.size());",
+            "          };",
+            "    }",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {}\", list.size());",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {}\", \"bar\" + s);",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {}\", new Object());",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {}\", String.valueOf(i));",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {}\", list.stream().count());",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.debug(\"foo {} {}\", s, toString(), throwable);",
+            "    // BUG: Diagnostic contains:",
+            "    LOG.trace(marker, \"foo {}\", s.length());",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacementFirstSuggestedFix() {
+    BugCheckerRefactoringTestHelper.newInstance(Slf4jEagerLogArgument.class, getClass())
+        .setFixChooser(FixChoosers.FIRST)
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(Marker marker, List<String> list) {",
+            "    LOG.debug(\"foo {}\", list.size());",
+            "    for (String s : list) {",
+            "      LOG.trace(marker, \"foo {} {}\", s, s.length());",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(Marker marker, List<String> list) {",
+            "    if (LOG.isDebugEnabled()) {",
+            "      LOG.debug(\"foo {}\", list.size());",
+            "    }",
+            "    for (String s : list) {",
+            "      if (LOG.isTraceEnabled(marker)) {",
+            "        LOG.trace(marker, \"foo {} {}\", s, s.length());",
+            "      }",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementSecondSuggestedFix() {
+    BugCheckerRefactoringTestHelper.newInstance(Slf4jEagerLogArgument.class, getClass())
+        .setFixChooser(FixChoosers.SECOND)
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(Marker marker, List<String> list, Throwable throwable) {",
+            "    LOG.debug(\"foo {}\", list.size());",
+            "    LOG.trace(marker, \"foo {} {}\", list, list.get(0), throwable);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(Marker marker, List<String> list, Throwable throwable) {",
+            "    LOG.atDebug().addArgument(() -> list.size()).log(\"foo {}\");",
+            "    LOG.atTrace().addMarker(marker).addArgument(list).addArgument(() -> list.get(0)).setCause(throwable).log(\"foo {} {}\");",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+
+  @Test
+  void replacementNonEffectivelyFinalCapturedVariable() {
+    BugCheckerRefactoringTestHelper.newInstance(Slf4jEagerLogArgument.class, getClass())
+        .setFixChooser(FixChoosers.SECOND)
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(List<String> list) {",
+            "    for (int i = 0; i < list.size(); i++) LOG.debug(\"foo {}\", list.get(i));",
+            "    for (int i = 0; i < list.size(); i++) {",
+            "      int j = i;",
+            "      LOG.debug(\"foo {} {}\", i, list.get(j));",
+            "    }",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(List<String> list) {",
+            "    for (int i = 0; i < list.size(); i++) LOG.debug(\"foo {}\", list.get(i));",
+            "    for (int i = 0; i < list.size(); i++) {",
+            "      int j = i;",
+            "      LOG.atDebug().addArgument(i).addArgument(() -> list.get(j)).log(\"foo {} {}\");",
+            "    }",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,160 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class StreamOverLoopForSmallCollectionsTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(StreamOverLoopForSmallCollections.class, getClass())
+        .setArgs("-XepOpt:StreamOverLoopForSmallCollections:Enabled=true")
+        .addSourceLines(
+            "A.java",
+            "import java.util.Arrays;",
+            "import java.util.List;",
+            "import java.util.stream.IntStream;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m(String a, String b, String[] array, List<String> list, Stream<String> stream) {",
+            "    Stream.of(a, b).count();",
+            "    Stream.of(array).anyMatch(String::isEmpty);",
+            "    Stream.of(a, b).map(String::length).filter(i -> i > 0).findFirst();",
+            "    Arrays.stream(array, 0, 1).anyMatch(String::isEmpty);",
+            "    list.stream().filter(String::isEmpty).map(String::length).findAny();",
+            "    list.stream().sorted().findFirst();",
+            "    stream.anyMatch(String::isEmpty);",
+            "    list.parallelStream().anyMatch(String::isEmpty);",
+            "    list.stream().forEach(System.out::println);",
+            "",
+            "    // BUG: Diagnostic contains:",
+            "    Stream.of(a, b).anyMatch(String::isEmpty);",
+            "    // BUG: Diagnostic contains:",
+            "    Stream.of(a).map(String::length).forEach(System.out::println);",
+            "    // BUG: Diagnostic contains:",
+            "    IntStream.of(1, 2, 3).noneMatch(i -> i > 2);",
+            "    // BUG: Diagnostic contains:",
+            "    Arrays.stream(array).filter(String::isEmpty).findFirst();",
+            "    // BUG: Diagnostic contains:",
+            "    list.stream().map(String::length).forEach(System.out::println);",
+            "    // BUG: Diagnostic contains:",
+            "    list.stream().allMatch(String::isEmpty);",
+            "    // BUG: Diagnostic contains:",
+            "    list.stream().map(String::length).findAny();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void identificationDisabledByDefault() {
+    CompilationTestHelper.newInstance(StreamOverLoopForSmallCollections.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.util.List;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  void m(String a, String b, List<String> list) {",
+            "    Stream.of(a, b).anyMatch(String::isEmpty);",
+            "    list.stream().allMatch(String::isEmpty);",
+            "    list.stream().filter(String::isEmpty).findFirst();",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    BugCheckerRefactoringTestHelper.newInstance(StreamOverLoopForSmallCollections.class, getClass())
+        .setArgs("-XepOpt:StreamOverLoopForSmallCollections:Enabled=true")
+        .addInputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableSet;",
+            "import java.util.List;",
+            "import java.util.Optional;",
+            "import java.util.function.Predicate;",
+            "import java.util.stream.IntStream;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  private static final String FOO = \"foo\";",
+            "",
+            "  void m(",
+            "      String a,",
+            "      String b,",
+            "      int i,",
+            "      List<String> list,",
+            "      ImmutableSet<String> set,",
+            "      Predicate<String> predicate) {",
+            "    boolean b1 = Stream.of(a, b).anyMatch(String::isEmpty);",
+            "    boolean b2 = Stream.of(a, FOO).allMatch(s -> s.length() > s.indexOf('x'));",
+            "    boolean b3 = Stream.of(a).noneMatch(set::contains);",
+            "    boolean b4 = Stream.of(a, A.FOO).noneMatch(A::isValid);",
+            "    boolean b5 = !IntStream.of(1, i).anyMatch(j -> j > 2);",
+            "    boolean b6 = Stream.of(a).noneMatch(s -> s == null);",
+            "    boolean b7 = Stream.of(a, \"bar\").anyMatch(s -> s.startsWith(b));",
+            "    boolean b8 = Stream.of(a, b.trim()).anyMatch(String::isEmpty);",
+            "    boolean b9 = Stream.of(a, b).anyMatch(predicate);",
+            "    boolean b10 = Stream.of(a, b).anyMatch(s -> list.stream().anyMatch(t -> t.equals(s)));",
+            "    boolean b11 = Stream.<CharSequence>of(a, b).anyMatch(A::isValid);",
+            "",
+            "    boolean b12 = list.stream().anyMatch(String::isEmpty);",
+            "    boolean b13 = list.stream().allMatch(s -> s.length() > 2);",
+            "    boolean b14 = set.stream().noneMatch(predicate);",
+            "    Optional<String> o = list.stream().filter(predicate.negate()).findFirst();",
+            "    list.stream().forEach(System.out::println);",
+            "  }",
+            "",
+            "  private static boolean isValid(CharSequence s) {",
+            "    return s.length() > 0;",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import com.google.common.collect.ImmutableSet;",
+            "import com.google.common.collect.Iterables;",
+            "import java.util.List;",
+            "import java.util.Optional;",
+            "import java.util.function.Predicate;",
+            "import java.util.stream.IntStream;",
+            "import java.util.stream.Stream;",
+            "",
+            "class A {",
+            "  private static final String FOO = \"foo\";",
+            "",
+            "  void m(",
+            "      String a,",
+            "      String b,",
+            "      int i,",
+            "      List<String> list,",
+            "      ImmutableSet<String> set,",
+            "      Predicate<String> predicate) {",
+            "    boolean b1 = a.isEmpty() || b.isEmpty();",
+            "    boolean b2 = (a.length() > a.indexOf('x')) && (FOO.length() > FOO.indexOf('x'));",
+            "    boolean b3 = !set.contains(a);",
+            "    boolean b4 = !(A.isValid(a) || A.isValid(A.FOO));",
+            "    boolean b5 = !((1 > 2) || (i > 2));",
+            "    boolean b6 = !(a == null);",
+            "    boolean b7 = a.startsWith(b) || \"bar\".startsWith(b);",
+            "    boolean b8 = Stream.of(a, b.trim()).anyMatch(String::isEmpty);",
+            "    boolean b9 = Stream.of(a, b).anyMatch(predicate);",
+            "    boolean b10 = Stream.of(a, b).anyMatch(s -> Iterables.any(list, t -> t.equals(s)));",
+            "    boolean b11 = Stream.<CharSequence>of(a, b).anyMatch(A::isValid);",
+            "",
+            "    boolean b12 = Iterables.any(list, String::isEmpty);",
+            "    boolean b13 = Iterables.all(list, s -> s.length() > 2);",
+            "    boolean b14 = !Iterables.any(set, predicate::test);",
+            "    Optional<String> o = Iterables.tryFind(list, predicate.negate()::test).toJavaUtil();",
+            "    list.stream().forEach(System.out::println);",
+            "  }",
+            "",
+            "  private static boolean isValid(CharSequence s) {",
+            "    return s.length() > 0;",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
@@ -0,0 +1,155 @@
+package tech.picnic.errorprone.bugpatterns;
+
+import com.google.errorprone.BugCheckerRefactoringTestHelper;
+import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
+import com.google.errorprone.CompilationTestHelper;
+import org.junit.jupiter.api.Test;
+
+final class StringFormatUsageTest {
+  @Test
+  void identification() {
+    CompilationTestHelper.newInstance(StringFormatUsage.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.util.Formattable;",
+            "import java.util.List;",
+            "import java.util.Locale;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "  private static final String FORMAT = \"foo %s\";",
+            "",
+            "  void outsideLoop() {",
+            "    String.format(\"foo %s\", 1);",
+            "    String.format(\"foo %s-%d\", \"bar\", 1);",
+            "  }",
+            "",
+            "  void loops(List<String> list, Formattable formattable, Object[] array) {",
+            "    for (String s : list) {",
+            "      String.format(FORMAT, s);",
+            "      String.format(Locale.ROOT, \"foo %s\", s);",
+            "      String.format(\"foo %s %n\", s);",
+            "      String.format(\"foo %5s\", s);",
+            "      String.format(\"foo %%s\", s);",
+            "      String.format(\"foo %s %s\", s);",
+            "      String.format(\"foo %d\", s);",
+            "      String.format(\"foo %d\", 1.0);",
+            "      String.format(\"foo %s\", formattable);",
+            "      String.format(\"foo %s\", array);",
+            "      String.format(\"%s\", s);",
+            "      String.format(\"%s, %s\", s, s);",
+            "      Runnable r = () -> String.format(\"foo %s\", s);",
+            "",
+            "      // BUG: Diagnostic contains: Prefer string concatenation",
+            "      String.format(\"foo %s\", s);",
+            "      // BUG: Diagnostic contains: Prefer string concatenation",
+            "      String.format(\"%s-%d\", s, 1L);",
+            "    }",
+            "",
+            "    for (int i = 0; i < 10; i++) {",
+            "      // BUG: Diagnostic contains: Prefer string concatenation",
+            "      String.format(\"%d\", i);",
+            "    }",
+            "",
+            "    while (true) {",
+            "      // BUG: Diagnostic contains: Prefer string concatenation",
+            "      String.format(\"foo %s\", 1);",
+            "    }",
+            "  }",
+            "",
+            "  void slf4j(Marker marker, Throwable throwable) {",
+            "    LOG.info(String.format(FORMAT, \"bar\"));",
+            "    LOG.info(\"foo {}\", String.format(\"bar %s\", 1));",
+            "    LOG.info(String.format(\"foo %s\", 1), 2);",
+            "    LOG.info(String.format(\"foo {} %s\", 1));",
+            "    LOG.info(String.format(\"foo %s\", throwable));",
+            "    LOG.info(String.format(\"foo\\\\%s\", 1));",
+            "",
+            "    // BUG: Diagnostic contains: Defer string formatting to SLF4J",
+            "    LOG.info(String.format(\"foo %s\", 1));",
+            "    // BUG: Diagnostic contains: Defer string formatting to SLF4J",
+            "    LOG.info(String.format(\"%s, %s\", 1, 2));",
+            "    // BUG: Diagnostic contains: Defer string formatting to SLF4J",
+            "    LOG.warn(marker, String.format(\"foo %d\", 1));",
+            "    // BUG: Diagnostic contains: Defer string formatting to SLF4J",
+            "    LOG.error(String.format(\"foo %s\", 1), throwable);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void replacement() {
+    BugCheckerRefactoringTestHelper.newInstance(StringFormatUsage.class, getClass())
+        .addInputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void loop(List<String> list, StringBuilder sb, char[] chars, Integer i) {",
+            "    for (String s : list) {",
+            "      sb.append(String.format(\"foo %s\", s));",
+            "      sb.append(String.format(\"%s-%s!\", chars, s));",
+            "      sb.append(String.format(\"%d!\", i));",
+            "      sb.append(String.format(\"%s-%d\", s, s.length()));",
+            "      sb.append(String.format(\"%d:%d\", 1, 2));",
+            "      sb.append(String.format(\"%d%d\", 1, 2));",
+            "      sb.append(String.format(\"%s%s!\", chars, s));",
+            "      sb.append(String.format(\"%d\", i));",
+            "      sb.append(String.format(\"foo %s bar\", s.isEmpty() ? \"a\" : \"b\"));",
+            "      sb.append(String.format(\"\\\"%s\\\"\\n\", s));",
+            "      sb.append(String.format(\"\"));",
+            "    }",
+            "  }",
+            "",
+            "  void slf4j(Marker marker, Throwable throwable) {",
+            "    LOG.info(String.format(\"foo\"));",
+            "    LOG.info(String.format(\"foo %s, %d\", \"bar\", 1));",
+            "    LOG.warn(marker, String.format(\"foo %s\", 1));",
+            "    LOG.error(String.format(\"\\\"%s\\\"\", 1), throwable);",
+            "  }",
+            "}")
+        .addOutputLines(
+            "A.java",
+            "import java.util.List;",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void loop(List<String> list, StringBuilder sb, char[] chars, Integer i) {",
+            "    for (String s : list) {",
+            "      sb.append(\"foo \" + s);",
+            "      sb.append(chars + \"-\" + s + \"!\");",
+            "      sb.append(i + \"!\");",
+            "      sb.append(s + \"-\" + s.length());",
+            "      sb.append(1 + \":\" + 2);",
+            "      sb.append(String.valueOf(1) + 2);",
+            "      sb.append(String.valueOf((Object) chars) + s + \"!\");",
+            "      sb.append(String.valueOf((Object) i));",
+            "      sb.append(\"foo \" + (s.isEmpty() ? \"a\" : \"b\") + \" bar\");",
+            "      sb.append(\"\\\"\" + s + \"\\\"\\n\");",
+            "      sb.append(\"\");",
+            "    }",
+            "  }",
+            "",
+            "  void slf4j(Marker marker, Throwable throwable) {",
+            "    LOG.info(\"foo\");",
+            "    LOG.info(\"foo {}, {}\", \"bar\", 1);",
+            "    LOG.warn(marker, \"foo {}\", 1);",
+            "    LOG.error(\"\\\"{}\\\"\", 1, throwable);",
+            "  }",
+            "}")
+        .doTest(TestMode.TEXT_MATCH);
+  }
+}
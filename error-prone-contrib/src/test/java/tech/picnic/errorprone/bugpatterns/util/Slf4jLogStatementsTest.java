@@ -0,0 +1,116 @@
+package tech.picnic.errorprone.bugpatterns.util;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.MethodInvocationTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.MethodInvocationTree;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+final class Slf4jLogStatementsTest {
+  @Test
+  void getFormatArguments() {
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import org.slf4j.Logger;",
+            "import org.slf4j.LoggerFactory;",
+            "import org.slf4j.Marker;",
+            "",
+            "class A {",
+            "  private static final Logger LOG = LoggerFactory.getLogger(A.class);",
+            "",
+            "  void m(Marker marker, Throwable throwable) {",
+            "    String.format(\"foo\");",
+            "    toString();",
+            "",
+            "    // BUG: Diagnostic contains: Format arguments: [\"foo\"]",
+            "    LOG.info(\"foo\");",
+            "    // BUG: Diagnostic contains: Format arguments: [\"foo {}\", 1]",
+            "    LOG.info(\"foo {}\", 1);",
+            "    // BUG: Diagnostic contains: Format arguments: [\"foo {}\", 1]",
+            "    LOG.warn(marker, \"foo {}\", 1);",
+            "    // BUG: Diagnostic contains: Format arguments: [\"foo {}\"]",
+            "    LOG.error(\"foo {}\", throwable);",
+            "    // BUG: Diagnostic contains: Format arguments: [\"foo {} {}\", 1, 2]",
+            "    LOG.error(marker, \"foo {} {}\", 1, 2, throwable);",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  private static Stream<Arguments> countPlaceholdersTestCases() {
+    /* { formatString, expected } */
+    return Stream.of(
+        arguments("", 0),
+        arguments("foo", 0),
+        arguments("{", 0),
+        arguments("{}", 1),
+        arguments("foo {} bar", 1),
+        arguments("{}{}", 2),
+        arguments("{{}}", 1));
+  }
+
+  @MethodSource("countPlaceholdersTestCases")
+  @ParameterizedTest
+  void countPlaceholders(String formatString, int expected) {
+    assertThat(Slf4jLogStatements.countPlaceholders(formatString)).isEqualTo(expected);
+  }
+
+  private static Stream<Arguments> toFormatStringTestCases() {
+    /* { segments, expected } */
+    return Stream.of(
+        arguments(ImmutableList.of(""), Optional.of("")),
+        arguments(ImmutableList.of("foo"), Optional.of("foo")),
+        arguments(ImmutableList.of("foo ", ""), Optional.of("foo {}")),
+        arguments(ImmutableList.of("", ", ", "!"), Optional.of("{}, {}!")),
+        arguments(ImmutableList.of("foo\\"), Optional.of("foo\\")),
+        arguments(ImmutableList.of("foo\\", ""), Optional.empty()),
+        arguments(ImmutableList.of("foo {}"), Optional.empty()),
+        arguments(ImmutableList.of("", "{}"), Optional.empty()));
+  }
+
+  @MethodSource("toFormatStringTestCases")
+  @ParameterizedTest
+  void toFormatString(ImmutableList<String> segments, Optional<String> expected) {
+    assertThat(Slf4jLogStatements.toFormatString(segments)).isEqualTo(expected);
+  }
+
+  /**
+   * A {@link BugChecker} that flags SLF4J log statements and lists the arguments identified by
+   * {@link Slf4jLogStatements#getFormatArguments(MethodInvocationTree, VisitorState)}.
+   */
+  @BugPattern(
+      summary = "Interacts with `Slf4jLogStatements` for testing purposes",
+      severity = ERROR)
+  public static final class TestChecker extends BugChecker implements MethodInvocationTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchMethodInvocation(MethodInvocationTree tree, VisitorState state) {
+      if (!Slf4jLogStatements.LOG_STATEMENT.matches(tree, state)) {
+        return Description.NO_MATCH;
+      }
+
+      return buildDescription(tree)
+          .setMessage(
+              Slf4jLogStatements.getFormatArguments(tree, state).stream()
+                  .map(argument -> SourceCode.treeToString(argument, state))
+                  .collect(joining(", ", "Format arguments: [", "]")))
+          .build();
+    }
+  }
+}
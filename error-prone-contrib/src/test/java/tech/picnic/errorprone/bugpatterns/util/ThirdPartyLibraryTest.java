@@ -1,8 +1,10 @@
 package tech.picnic.errorprone.bugpatterns.util;
 
+import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static java.util.stream.Collectors.joining;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.CompilationTestHelper;
@@ -11,8 +13,13 @@ import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
 import com.google.errorprone.matchers.Description;
 import com.sun.source.tree.ClassTree;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import reactor.core.publisher.Flux;
@@ -26,7 +33,7 @@ final class ThirdPartyLibraryTest {
     compilationTestHelper
         .addSourceLines(
             "A.java",
-            "// BUG: Diagnostic contains: ASSERTJ: true, GUAVA: true, NEW_RELIC_AGENT_API: true, REACTOR: true",
+            "// BUG: Diagnostic contains: ASSERTJ: true, GUAVA: true, JACKSON: true, JUNIT_JUPITER: true, MOCKITO: true, NEW_RELIC_AGENT_API: true, REACTOR: true, SPRING: true, TESTNG: true",
             "class A {}")
         .doTest();
   }
@@ -36,18 +43,27 @@ final class ThirdPartyLibraryTest {
     compilationTestHelper
         .addSourceLines(
             "A.java",
+            "import com.fasterxml.jackson.annotation.JsonProperty;",
             "import com.google.common.collect.ImmutableList;",
             "import com.newrelic.api.agent.Agent;",
             "import org.assertj.core.api.Assertions;",
+            "import org.junit.jupiter.api.Test;",
+            "import org.mockito.Mockito;",
+            "import org.springframework.core.SpringVersion;",
             "import reactor.core.publisher.Flux;",
             "",
-            "// BUG: Diagnostic contains: ASSERTJ: true, GUAVA: true, NEW_RELIC_AGENT_API: true, REACTOR: true",
+            "// BUG: Diagnostic contains: ASSERTJ: true, GUAVA: true, JACKSON: true, JUNIT_JUPITER: true, MOCKITO: true, NEW_RELIC_AGENT_API: true, REACTOR: true, SPRING: true, TESTNG: true",
             "class A {",
             "  void m(Class<?> clazz) {",
             "    m(Assertions.class);",
             "    m(ImmutableList.class);",
+            "    m(JsonProperty.class);",
+            "    m(Test.class);",
+            "    m(Mockito.class);",
             "    m(Agent.class);",
             "    m(Flux.class);",
+            "    m(SpringVersion.class);",
+            "    m(org.testng.annotations.Test.class);",
             "  }",
             "}")
         .doTest();
@@ -59,7 +75,7 @@ final class ThirdPartyLibraryTest {
         .withClasspath(ImmutableList.class, Flux.class)
         .addSourceLines(
             "A.java",
-            "// BUG: Diagnostic contains: ASSERTJ: false, GUAVA: true, NEW_RELIC_AGENT_API: false, REACTOR: true",
+            "// BUG: Diagnostic contains: ASSERTJ: false, GUAVA: true, JACKSON: false, JUNIT_JUPITER: false, MOCKITO: false, NEW_RELIC_AGENT_API: false, REACTOR: true, SPRING: false, TESTNG: false",
             "class A {}")
         .doTest();
   }
@@ -70,12 +86,52 @@ final class ThirdPartyLibraryTest {
         .withClasspath()
         .addSourceLines(
             "A.java",
-            "// BUG: Diagnostic contains: ASSERTJ: false, GUAVA: false, NEW_RELIC_AGENT_API: false, REACTOR:",
-            "// false",
+            "// BUG: Diagnostic contains: ASSERTJ: false, GUAVA: false, JACKSON: false, JUNIT_JUPITER: false, MOCKITO: false, NEW_RELIC_AGENT_API: false, REACTOR: false, SPRING: false, TESTNG: false",
             "class A {}")
         .doTest();
   }
 
+  @Test
+  void isIntroductionAllowedClasspathChange() {
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .withClasspath(ImmutableList.class)
+        .addSourceLines(
+            "A.java", "// BUG: Diagnostic contains: GUAVA: true, JACKSON: false", "class A {}")
+        .doTest();
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .withClasspath(ImmutableList.class, JsonProperty.class)
+        .addSourceLines(
+            "A.java", "// BUG: Diagnostic contains: GUAVA: true, JACKSON: true", "class A {}")
+        .doTest();
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .withClasspath(ImmutableList.class)
+        .addSourceLines(
+            "A.java", "// BUG: Diagnostic contains: GUAVA: true, JACKSON: false", "class A {}")
+        .doTest();
+  }
+
+  @Test
+  void isIntroductionAllowedClasspathDirectoryChange(@TempDir Path classpathDirectory)
+      throws IOException {
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .setArgs("-classpath", classpathDirectory.toString())
+        .addSourceLines("A.java", "// BUG: Diagnostic contains: JACKSON: false", "class A {}")
+        .doTest();
+
+    String witness = "com/fasterxml/jackson/annotation/JsonProperty.class";
+    Path witnessFile = classpathDirectory.resolve(witness);
+    Files.createDirectories(witnessFile.getParent());
+    try (InputStream in =
+        verifyNotNull(JsonProperty.class.getClassLoader().getResourceAsStream(witness))) {
+      Files.copy(in, witnessFile);
+    }
+
+    CompilationTestHelper.newInstance(TestChecker.class, getClass())
+        .setArgs("-classpath", classpathDirectory.toString())
+        .addSourceLines("A.java", "// BUG: Diagnostic contains: JACKSON: true", "class A {}")
+        .doTest();
+  }
+
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   void isIntroductionAllowedIgnoreClasspathCompat(boolean ignoreClassPath) {
@@ -85,8 +141,8 @@ final class ThirdPartyLibraryTest {
         .addSourceLines(
             "A.java",
             String.format(
-                "// BUG: Diagnostic contains: ASSERTJ: %s, GUAVA: true, NEW_RELIC_AGENT_API: %s, REACTOR: true",
-                ignoreClassPath, ignoreClassPath),
+                "// BUG: Diagnostic contains: ASSERTJ: %1$s, GUAVA: true, JACKSON: %1$s, JUNIT_JUPITER: %1$s, MOCKITO: %1$s, NEW_RELIC_AGENT_API: %1$s, REACTOR: true, SPRING: %1$s, TESTNG: %1$s",
+                ignoreClassPath),
             "class A {}")
         .doTest();
   }
@@ -1,5 +1,6 @@
 package tech.picnic.errorprone.refasterrules;
 
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.util.function.Predicate.not;
 
 import com.google.common.collect.ImmutableSet;
@@ -8,6 +9,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import tech.picnic.errorprone.refaster.test.RefasterRuleCollection;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionBatch;
 
 final class RefasterRulesTest {
   /** The names of all Refaster rule groups defined in this module. */
@@ -57,6 +59,7 @@ final class RefasterRulesTest {
           MockitoRules.class,
           MultimapRules.class,
           NullRules.class,
+          OptionalPerformanceRules.class,
           OptionalRules.class,
           PreconditionsRules.class,
           PrimitiveRules.class,
@@ -68,19 +71,22 @@ final class RefasterRulesTest {
           TimeRules.class,
           WebClientRules.class);
 
+  // XXX: Drop the filter once we have added tests for AssertJ! We can then also replace
+  // `validateRuleCollectionTestCases` with `@ValueSource(classes = {...})`.
+  private static final ImmutableSet<Class<?>> TESTED_RULE_COLLECTIONS =
+      RULE_COLLECTIONS.stream().filter(not(AssertJRules.class::equals)).collect(toImmutableSet());
+  private static final RefasterRuleCollectionBatch BATCH =
+      RefasterRuleCollection.batch(TESTED_RULE_COLLECTIONS);
+
   // XXX: Create a JUnit extension to automatically discover the rule collections in a given context
   // to make sure the list is exhaustive.
   private static Stream<Arguments> validateRuleCollectionTestCases() {
-    // XXX: Drop the filter once we have added tests for AssertJ! We can then also replace this
-    // method with `@ValueSource(classes = {...})`.
-    return RULE_COLLECTIONS.stream()
-        .filter(not(AssertJRules.class::equals))
-        .map(Arguments::arguments);
+    return TESTED_RULE_COLLECTIONS.stream().map(Arguments::arguments);
   }
 
   @MethodSource("validateRuleCollectionTestCases")
   @ParameterizedTest
   void validateRuleCollection(Class<?> clazz) {
-    RefasterRuleCollection.validate(clazz);
+    BATCH.validate(clazz);
   }
 }
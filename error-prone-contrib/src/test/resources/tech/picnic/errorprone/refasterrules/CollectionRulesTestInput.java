@@ -29,7 +29,14 @@ final class CollectionRulesTest implements RefasterRuleCollectionTestCase {
         ImmutableSet.of(5).size() > 0,
         ImmutableSet.of(6).size() >= 1,
         Iterables.isEmpty(ImmutableSet.of(7)),
-        ImmutableSet.of(8).asList().isEmpty());
+        ImmutableSet.of(8).asList().isEmpty(),
+        ImmutableSet.of(9).stream().findAny().isEmpty(),
+        ImmutableSet.of(10).stream().findFirst().isEmpty());
+  }
+
+  boolean testCollectionIsNotEmpty() {
+    return ImmutableSet.of(1).stream().findAny().isPresent()
+        && ImmutableSet.of(2).stream().findFirst().isPresent();
   }
 
   ImmutableSet<Integer> testCollectionSize() {
@@ -0,0 +1,25 @@
+package tech.picnic.errorprone.refasterrules;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+import tech.picnic.errorprone.refaster.test.RefasterRuleCollectionTestCase;
+
+final class OptionalPerformanceRulesTest implements RefasterRuleCollectionTestCase {
+  @Override
+  public ImmutableSet<?> elidedTypesAndStaticImports() {
+    return ImmutableSet.of(Optional.class);
+  }
+
+  Integer testOptionalOfNullableMapOrElseNull() {
+    String value = toString();
+    return value == null ? null : value.length();
+  }
+
+  boolean testOptionalOfNullableIsPresent() {
+    return toString() != null;
+  }
+
+  boolean testOptionalOfNullableIsEmpty() {
+    return toString() == null;
+  }
+}
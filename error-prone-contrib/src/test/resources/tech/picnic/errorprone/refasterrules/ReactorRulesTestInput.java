@@ -9,8 +9,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -344,6 +346,52 @@ final class ReactorRulesTest implements RefasterRuleCollectionTestCase {
     return Flux.just(1, 4, 3, 2).sort(reverseOrder()).filter(i -> i % 2 == 0);
   }
 
+  Mono<String> testMonoMapMap() {
+    return Mono.just(1).map(i -> i * 2).map(i -> String.valueOf(i));
+  }
+
+  Flux<String> testFluxMapMap() {
+    return Flux.just(1).map(i -> i * 2).map(i -> String.valueOf(i));
+  }
+
+  ImmutableSet<Flux<Integer>> testFluxIdentity() {
+    return ImmutableSet.of(
+        Flux.just(1).concatMap(Mono::just),
+        Flux.just(2).concatMap(Flux::just),
+        Flux.just(3).flatMap(Mono::just),
+        Flux.just(4).flatMap(Flux::just),
+        Flux.just(5).flatMapSequential(Mono::just),
+        Flux.just(6).flatMapSequential(Flux::just),
+        Flux.just(7).switchMap(Mono::just),
+        Flux.just(8).switchMap(Flux::just));
+  }
+
+  ImmutableSet<Mono<String>> testMonoJustFlatMap() {
+    Integer value = 1;
+    Integer reassignedValue = 2;
+    reassignedValue = 3;
+    Function<Integer, Mono<String>> function = i -> Mono.just(String.valueOf(i));
+    return ImmutableSet.of(
+        Mono.just(2).flatMap(function),
+        Mono.just(value).flatMap(i -> Mono.empty()),
+        Mono.just(reassignedValue).flatMap(function),
+        Mono.just(value).flatMap(function));
+  }
+
+  ImmutableSet<Flux<String>> testFluxJustFlatMap() {
+    Integer value = 1;
+    Function<Integer, Flux<String>> function = i -> Flux.just(String.valueOf(i));
+    return ImmutableSet.of(
+        Flux.just(value).concatMap(function),
+        Flux.just(value).flatMap(function),
+        Flux.just(value).flatMapSequential(function),
+        Mono.just(value).flatMapMany(function));
+  }
+
+  Mono<List<Integer>> testFluxFromIterableCollectList() {
+    return Flux.fromIterable(ImmutableList.of(1)).collectList();
+  }
+
   ImmutableSet<Context> testContextEmpty() {
     return ImmutableSet.of(Context.of(new HashMap<>()), Context.of(ImmutableMap.of()));
   }
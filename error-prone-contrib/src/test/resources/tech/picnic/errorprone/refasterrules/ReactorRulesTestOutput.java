@@ -11,8 +11,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -335,6 +337,52 @@ final class ReactorRulesTest implements RefasterRuleCollectionTestCase {
     return Flux.just(1, 4, 3, 2).filter(i -> i % 2 == 0).sort(reverseOrder());
   }
 
+  Mono<String> testMonoMapMap() {
+    return Mono.just(1).map(i -> String.valueOf(i * 2));
+  }
+
+  Flux<String> testFluxMapMap() {
+    return Flux.just(1).map(i -> String.valueOf(i * 2));
+  }
+
+  ImmutableSet<Flux<Integer>> testFluxIdentity() {
+    return ImmutableSet.of(
+        Flux.just(1),
+        Flux.just(2),
+        Flux.just(3),
+        Flux.just(4),
+        Flux.just(5),
+        Flux.just(6),
+        Flux.just(7),
+        Flux.just(8));
+  }
+
+  ImmutableSet<Mono<String>> testMonoJustFlatMap() {
+    Integer value = 1;
+    Integer reassignedValue = 2;
+    reassignedValue = 3;
+    Function<Integer, Mono<String>> function = i -> Mono.just(String.valueOf(i));
+    return ImmutableSet.of(
+        Mono.just(2).flatMap(function),
+        Mono.just(value).flatMap(i -> Mono.empty()),
+        Mono.just(reassignedValue).flatMap(function),
+        Mono.defer(() -> function.apply(value)));
+  }
+
+  ImmutableSet<Flux<String>> testFluxJustFlatMap() {
+    Integer value = 1;
+    Function<Integer, Flux<String>> function = i -> Flux.just(String.valueOf(i));
+    return ImmutableSet.of(
+        Flux.defer(() -> function.apply(value)),
+        Flux.defer(() -> function.apply(value)),
+        Flux.defer(() -> function.apply(value)),
+        Flux.defer(() -> function.apply(value)));
+  }
+
+  Mono<List<Integer>> testFluxFromIterableCollectList() {
+    return Mono.just(ImmutableList.of(1));
+  }
+
   ImmutableSet<Context> testContextEmpty() {
     return ImmutableSet.of(Context.empty(), Context.empty());
   }
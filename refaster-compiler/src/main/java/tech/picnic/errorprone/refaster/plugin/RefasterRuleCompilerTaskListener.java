@@ -1,8 +1,15 @@
 package tech.picnic.errorprone.refaster.plugin;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableClassToInstanceMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.errorprone.CodeTransformer;
 import com.google.errorprone.refaster.RefasterRuleBuilderScanner;
@@ -22,12 +29,21 @@ import com.sun.tools.javac.code.Symbol.PackageSymbol;
 import com.sun.tools.javac.main.JavaCompiler;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Name;
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import javax.tools.FileObject;
 import javax.tools.JavaFileManager;
 import javax.tools.StandardLocation;
@@ -40,9 +56,24 @@ import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
  * rather than at a fixed location.
  *
  * <p>This {@link TaskListener} thus supports compilation of multiple Refaster rules.
+ *
+ * <p>Next to each {@code .refaster} file a {@code .refaster-requirements} file is stored, listing
+ * the fully qualified types and static members that a compilation unit must reference for the
+ * associated Refaster rule to match. See {@link RequiredSymbolExtractor}. Additionally a {@code
+ * .refaster-cost} file is stored, listing the rule's static cost profile as {@code name=value}
+ * lines. See {@link RuleCostEstimator}.
+ *
+ * <p>Upon completion of the compilation, an index of all Refaster rules in the class output
+ * directory is written to {@value #RULE_INDEX}. Each line of this file lists the resource name of a
+ * {@code .refaster} file, followed by the associated rule's required symbols, all separated by
+ * tabs. This enables the Refaster rules to be located without scanning the classpath.
  */
 final class RefasterRuleCompilerTaskListener implements TaskListener {
+  private static final String RULE_INDEX = "META-INF/refaster/rules.idx";
+  private static final char INDEX_SEPARATOR = '\t';
+
   private final Context context;
+  private final Map<String, ImmutableSet<String>> compiledRules = new HashMap<>();
 
   RefasterRuleCompilerTaskListener(Context context) {
     this.context = context;
@@ -50,7 +81,22 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
 
   @Override
   public void finished(TaskEvent taskEvent) {
-    if (taskEvent.getKind() != Kind.ANALYZE || JavaCompiler.instance(context).errorCount() > 0) {
+    if (JavaCompiler.instance(context).errorCount() > 0) {
+      return;
+    }
+
+    if (taskEvent.getKind() == Kind.COMPILATION) {
+      if (!compiledRules.isEmpty()) {
+        try {
+          updateRuleIndex();
+        } catch (IOException e) {
+          throw new UncheckedIOException("Failed to persist Refaster rule index", e);
+        }
+      }
+      return;
+    }
+
+    if (taskEvent.getKind() != Kind.ANALYZE) {
       return;
     }
 
@@ -62,7 +108,16 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
     ImmutableMap<ClassTree, CodeTransformer> rules = compileRefasterRules(tree);
     for (Map.Entry<ClassTree, CodeTransformer> rule : rules.entrySet()) {
       try {
-        outputCodeTransformer(rule.getValue(), getOutputFile(taskEvent, rule.getKey()));
+        ImmutableSortedSet<String> requiredSymbols =
+            RequiredSymbolExtractor.extractRequiredSymbols(rule.getKey());
+        outputCodeTransformer(
+            rule.getValue(), getOutputFile(taskEvent, rule.getKey(), ".refaster"));
+        outputRequiredSymbols(
+            requiredSymbols, getOutputFile(taskEvent, rule.getKey(), ".refaster-requirements"));
+        outputCostProfile(
+            RuleCostEstimator.estimateCost(rule.getKey()),
+            getOutputFile(taskEvent, rule.getKey(), ".refaster-cost"));
+        compiledRules.put(toResourceName(ASTHelpers.getSymbol(rule.getKey())), requiredSymbols);
       } catch (IOException e) {
         throw new UncheckedIOException("Failed to persist compiled Refaster rules", e);
       }
@@ -92,17 +147,61 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
     return rules.buildOrThrow();
   }
 
-  private FileObject getOutputFile(TaskEvent taskEvent, ClassTree tree) throws IOException {
+  private FileObject getOutputFile(TaskEvent taskEvent, ClassTree tree, String suffix)
+      throws IOException {
     ClassSymbol symbol = ASTHelpers.getSymbol(tree);
 
     JavaFileManager fileManager = context.get(JavaFileManager.class);
     return fileManager.getFileForOutput(
         StandardLocation.CLASS_OUTPUT,
         toPackageName(symbol),
-        toSimpleFlatName(symbol) + ".refaster",
+        toSimpleFlatName(symbol) + suffix,
         taskEvent.getSourceFile());
   }
 
+  /**
+   * Writes the rule index, retaining entries of a previously written index for rules that were not
+   * compiled as part of the current compilation.
+   */
+  private void updateRuleIndex() throws IOException {
+    JavaFileManager fileManager = context.get(JavaFileManager.class);
+    Map<String, ImmutableSet<String>> index = new TreeMap<>();
+    readRuleIndex(fileManager, index);
+    index.putAll(compiledRules);
+
+    FileObject target =
+        fileManager.getFileForOutput(StandardLocation.CLASS_OUTPUT, "", RULE_INDEX, null);
+    try (Writer writer = new OutputStreamWriter(target.openOutputStream(), UTF_8)) {
+      for (Map.Entry<String, ImmutableSet<String>> entry : index.entrySet()) {
+        writer.write(
+            Joiner.on(INDEX_SEPARATOR)
+                .join(Iterables.concat(ImmutableList.of(entry.getKey()), entry.getValue())));
+        writer.write('\n');
+      }
+    }
+  }
+
+  /** Adds the entries of the previously written rule index, if any, to the given map. */
+  private static void readRuleIndex(
+      JavaFileManager fileManager, Map<String, ImmutableSet<String>> index) throws IOException {
+    FileObject source = fileManager.getFileForInput(StandardLocation.CLASS_OUTPUT, "", RULE_INDEX);
+    if (source == null) {
+      return;
+    }
+
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(source.openInputStream(), UTF_8))) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        List<String> fields = Splitter.on(INDEX_SEPARATOR).omitEmptyStrings().splitToList(line);
+        if (!fields.isEmpty()) {
+          index.put(fields.get(0), ImmutableSet.copyOf(fields.subList(1, fields.size())));
+        }
+      }
+    } catch (NoSuchFileException | FileNotFoundException e) {
+      /* There is no previously written index. */
+    }
+  }
+
   private static boolean containsRefasterRules(ClassTree tree) {
     return Boolean.TRUE.equals(
         new TreeScanner<Boolean, @Nullable Void>() {
@@ -137,6 +236,13 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
     return enclosingPackage == null ? "" : enclosingPackage.toString();
   }
 
+  private static String toResourceName(ClassSymbol symbol) {
+    String packageName = toPackageName(symbol);
+    return (packageName.isEmpty() ? "" : packageName.replace('.', '/') + '/')
+        + toSimpleFlatName(symbol)
+        + ".refaster";
+  }
+
   private static CharSequence toSimpleFlatName(ClassSymbol symbol) {
     Name flatName = symbol.flatName();
     int lastDot = flatName.lastIndexOf((byte) '.');
@@ -149,4 +255,24 @@ final class RefasterRuleCompilerTaskListener implements TaskListener {
       output.writeObject(codeTransformer);
     }
   }
+
+  private static void outputRequiredSymbols(ImmutableSet<String> requiredSymbols, FileObject target)
+      throws IOException {
+    try (Writer writer = new OutputStreamWriter(target.openOutputStream(), UTF_8)) {
+      for (String symbol : requiredSymbols) {
+        writer.write(symbol);
+        writer.write('\n');
+      }
+    }
+  }
+
+  private static void outputCostProfile(
+      ImmutableMap<String, Integer> costProfile, FileObject target) throws IOException {
+    try (Writer writer = new OutputStreamWriter(target.openOutputStream(), UTF_8)) {
+      for (Map.Entry<String, Integer> metric : costProfile.entrySet()) {
+        writer.write(metric.getKey() + '=' + metric.getValue());
+        writer.write('\n');
+      }
+    }
+  }
 }
@@ -0,0 +1,156 @@
+package tech.picnic.errorprone.refaster.plugin;
+
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+import static java.util.Comparator.naturalOrder;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import com.google.errorprone.refaster.Refaster;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.AnnotationTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Determines the fully qualified types and static members that a compilation unit must reference
+ * for a Refaster rule to match any part of it.
+ *
+ * <p>Static members are identified by their enclosing type's fully qualified name and their simple
+ * name, separated by a {@code #}. For each referenced static member, its enclosing type is required
+ * as well.
+ *
+ * <p>Only references that Refaster matches by symbol are taken into account: static member
+ * references and instantiated classes. Instance method invocations are not considered, as these may
+ * match invocations of overriding methods.
+ */
+// XXX: Rules are matched if any of their `@BeforeTemplate`s match, so the required symbols of a
+// rule are the intersection of those of its templates. Consider storing per-template requirements
+// instead.
+final class RequiredSymbolExtractor {
+  private static final String REFASTER_CLASS_NAME = Refaster.class.getCanonicalName();
+  private static final String BEFORE_TEMPLATE_ANNOTATION = BeforeTemplate.class.getCanonicalName();
+
+  private RequiredSymbolExtractor() {}
+
+  /**
+   * Returns the symbols that a compilation unit must reference for the Refaster rule defined by the
+   * given class to match.
+   *
+   * @param tree The class defining a Refaster rule.
+   * @return The required symbols, in lexicographical order.
+   */
+  static ImmutableSortedSet<String> extractRequiredSymbols(ClassTree tree) {
+    return tree.getMembers().stream()
+        .filter(MethodTree.class::isInstance)
+        .map(MethodTree.class::cast)
+        .filter(RequiredSymbolExtractor::isBeforeTemplate)
+        .map(RequiredSymbolExtractor::extractTemplateRequiredSymbols)
+        .reduce((a, b) -> Sets.intersection(a, b).immutableCopy())
+        .map(symbols -> symbols.stream().collect(toImmutableSortedSet(naturalOrder())))
+        .orElseGet(ImmutableSortedSet::of);
+  }
+
+  private static boolean isBeforeTemplate(MethodTree method) {
+    return method.getModifiers().getAnnotations().stream()
+        .map(ASTHelpers::getSymbol)
+        .anyMatch(
+            sym -> sym != null && sym.getQualifiedName().contentEquals(BEFORE_TEMPLATE_ANNOTATION));
+  }
+
+  private static ImmutableSet<String> extractTemplateRequiredSymbols(MethodTree method) {
+    ImmutableSet<String> symbols = new RequiredSymbolScanner().scan(method.getBody(), null);
+    return symbols == null ? ImmutableSet.of() : symbols;
+  }
+
+  private static Optional<String> getClassName(@Nullable Symbol symbol) {
+    return symbol instanceof ClassSymbol
+        ? Optional.of(((ClassSymbol) symbol).getQualifiedName().toString())
+        : Optional.empty();
+  }
+
+  private static ImmutableSet<String> getStaticMemberRequirements(@Nullable Symbol symbol) {
+    if (symbol == null || !ASTHelpers.isStatic(symbol) || symbol instanceof ClassSymbol) {
+      return ImmutableSet.of();
+    }
+
+    return getClassName(symbol.owner)
+        .filter(owner -> !owner.equals(REFASTER_CLASS_NAME))
+        .map(owner -> ImmutableSet.of(owner, owner + '#' + symbol.getSimpleName()))
+        .orElseGet(ImmutableSet::of);
+  }
+
+  private static final class RequiredSymbolScanner
+      extends TreeScanner<@Nullable ImmutableSet<String>, @Nullable Void> {
+    @Override
+    public @Nullable ImmutableSet<String> visitMethodInvocation(
+        MethodInvocationTree node, @Nullable Void unused) {
+      if (isRefasterAnyOf(node)) {
+        /* Only symbols required by all `Refaster#anyOf` alternatives are required overall. */
+        return node.getArguments().stream()
+            .map(arg -> scan(arg, null))
+            .map(symbols -> symbols == null ? ImmutableSet.<String>of() : symbols)
+            .reduce((a, b) -> Sets.intersection(a, b).immutableCopy())
+            .orElseGet(ImmutableSet::of);
+      }
+
+      return super.visitMethodInvocation(node, unused);
+    }
+
+    @Override
+    public @Nullable ImmutableSet<String> visitIdentifier(
+        IdentifierTree node, @Nullable Void unused) {
+      return getStaticMemberRequirements(ASTHelpers.getSymbol(node));
+    }
+
+    @Override
+    public @Nullable ImmutableSet<String> visitMemberSelect(
+        MemberSelectTree node, @Nullable Void unused) {
+      return reduce(
+          getStaticMemberRequirements(ASTHelpers.getSymbol(node)),
+          super.visitMemberSelect(node, unused));
+    }
+
+    @Override
+    public @Nullable ImmutableSet<String> visitNewClass(NewClassTree node, @Nullable Void unused) {
+      return reduce(
+          getClassName(ASTHelpers.getSymbol(node.getIdentifier()))
+              .map(ImmutableSet::of)
+              .orElseGet(ImmutableSet::of),
+          super.visitNewClass(node, unused));
+    }
+
+    @Override
+    public @Nullable ImmutableSet<String> visitAnnotation(
+        AnnotationTree node, @Nullable Void unused) {
+      /* Annotations (such as `@Matches`) do not need to be present in matching code. */
+      return null;
+    }
+
+    @Override
+    public @Nullable ImmutableSet<String> reduce(
+        @Nullable ImmutableSet<String> r1, @Nullable ImmutableSet<String> r2) {
+      if (r1 == null) {
+        return r2;
+      }
+
+      return r2 == null ? r1 : Sets.union(r1, r2).immutableCopy();
+    }
+
+    private static boolean isRefasterAnyOf(MethodInvocationTree tree) {
+      Symbol symbol = ASTHelpers.getSymbol(tree);
+      return symbol.getSimpleName().contentEquals("anyOf")
+          && getClassName(symbol.owner).filter(REFASTER_CLASS_NAME::equals).isPresent();
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package tech.picnic.errorprone.refaster.plugin;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.refaster.Refaster;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.refaster.annotation.Matches;
+import com.google.errorprone.refaster.annotation.NotMatches;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Computes a static estimate of the cost of matching a Refaster rule against a compilation unit.
+ *
+ * <p>The cost profile of a rule consists of the following metrics, each summed over all of the
+ * rule's {@code @BeforeTemplate} methods:
+ *
+ * <ul>
+ *   <li>{@value #BEFORE_TEMPLATES}: the number of {@code @BeforeTemplate} methods.
+ *   <li>{@value #TEMPLATE_TREE_SIZE}: the number of tree nodes in the templates' method bodies.
+ *   <li>{@value #ANY_OF_ALTERNATIVES}: the number of {@link Refaster#anyOf} alternatives.
+ *   <li>{@value #MATCHERS}: the number of {@link Matches @Matches} and {@link
+ *       NotMatches @NotMatches} parameter annotations, each of which runs arbitrary code upon
+ *       unification.
+ *   <li>{@value #ROOT_ANY_OF_ALTERNATIVES}: the number of {@link Refaster#anyOf} alternatives that
+ *       constitute the root of a template. Such alternatives are attempted against every tree in a
+ *       compilation unit, while other templates can usually be rejected based on the root tree
+ *       kind.
+ *   <li>{@value #ESTIMATED_COST}: a unitless weighted sum of the above, intended only to compare
+ *       rules against one another.
+ * </ul>
+ */
+final class RuleCostEstimator {
+  /** The name of the metric that counts {@code @BeforeTemplate} methods. */
+  static final String BEFORE_TEMPLATES = "beforeTemplates";
+  /** The name of the metric that counts tree nodes in {@code @BeforeTemplate} method bodies. */
+  static final String TEMPLATE_TREE_SIZE = "templateTreeSize";
+  /** The name of the metric that counts {@link Refaster#anyOf} alternatives. */
+  static final String ANY_OF_ALTERNATIVES = "anyOfAlternatives";
+  /** The name of the metric that counts {@code @Matches} and {@code @NotMatches} annotations. */
+  static final String MATCHERS = "matchers";
+  /** The name of the metric that counts root-level {@link Refaster#anyOf} alternatives. */
+  static final String ROOT_ANY_OF_ALTERNATIVES = "rootAnyOfAlternatives";
+  /** The name of the weighted sum of all other metrics. */
+  static final String ESTIMATED_COST = "estimatedCost";
+
+  private static final String REFASTER_CLASS_NAME = Refaster.class.getCanonicalName();
+  private static final String BEFORE_TEMPLATE_ANNOTATION = BeforeTemplate.class.getCanonicalName();
+  private static final ImmutableSet<String> MATCHER_ANNOTATIONS =
+      ImmutableSet.of(Matches.class.getCanonicalName(), NotMatches.class.getCanonicalName());
+  private static final int MATCHER_WEIGHT = 10;
+  private static final int ROOT_ANY_OF_ALTERNATIVE_WEIGHT = 10;
+
+  private RuleCostEstimator() {}
+
+  /**
+   * Returns the cost profile of the Refaster rule defined by the given class.
+   *
+   * @param tree The class defining a Refaster rule.
+   * @return A mapping from metric names to values, in the order documented on this class.
+   */
+  static ImmutableMap<String, Integer> estimateCost(ClassTree tree) {
+    ImmutableList<MethodTree> beforeTemplates =
+        tree.getMembers().stream()
+            .filter(MethodTree.class::isInstance)
+            .map(MethodTree.class::cast)
+            .filter(RuleCostEstimator::isBeforeTemplate)
+            .collect(toImmutableList());
+
+    TemplateScanner scanner = new TemplateScanner();
+    for (MethodTree template : beforeTemplates) {
+      if (template.getBody() != null) {
+        scanner.scan(template.getBody().getStatements(), null);
+      }
+    }
+    int templateTreeSize = scanner.treeSize;
+    int anyOfAlternatives = scanner.anyOfAlternatives;
+    int matchers = beforeTemplates.stream().mapToInt(RuleCostEstimator::countMatchers).sum();
+    int rootAnyOfAlternatives =
+        beforeTemplates.stream().mapToInt(RuleCostEstimator::countRootAnyOfAlternatives).sum();
+
+    return ImmutableMap.<String, Integer>builder()
+        .put(BEFORE_TEMPLATES, beforeTemplates.size())
+        .put(TEMPLATE_TREE_SIZE, templateTreeSize)
+        .put(ANY_OF_ALTERNATIVES, anyOfAlternatives)
+        .put(MATCHERS, matchers)
+        .put(ROOT_ANY_OF_ALTERNATIVES, rootAnyOfAlternatives)
+        .put(
+            ESTIMATED_COST,
+            templateTreeSize
+                + anyOfAlternatives
+                + MATCHER_WEIGHT * matchers
+                + ROOT_ANY_OF_ALTERNATIVE_WEIGHT * rootAnyOfAlternatives)
+        .buildOrThrow();
+  }
+
+  private static boolean isBeforeTemplate(MethodTree method) {
+    return method.getModifiers().getAnnotations().stream()
+        .map(ASTHelpers::getSymbol)
+        .anyMatch(
+            sym -> sym != null && sym.getQualifiedName().contentEquals(BEFORE_TEMPLATE_ANNOTATION));
+  }
+
+  private static int countMatchers(MethodTree template) {
+    return (int)
+        template.getParameters().stream()
+            .flatMap(p -> p.getModifiers().getAnnotations().stream())
+            .map(ASTHelpers::getSymbol)
+            .filter(
+                sym ->
+                    sym != null && MATCHER_ANNOTATIONS.contains(sym.getQualifiedName().toString()))
+            .count();
+  }
+
+  private static int countRootAnyOfAlternatives(MethodTree template) {
+    if (template.getBody() == null || template.getBody().getStatements().size() != 1) {
+      return 0;
+    }
+
+    StatementTree statement = template.getBody().getStatements().get(0);
+    if (!(statement instanceof ReturnTree)) {
+      return 0;
+    }
+
+    ExpressionTree expression = ((ReturnTree) statement).getExpression();
+    return expression != null && isRefasterAnyOf(ASTHelpers.stripParentheses(expression))
+        ? ((MethodInvocationTree) ASTHelpers.stripParentheses(expression)).getArguments().size()
+        : 0;
+  }
+
+  private static boolean isRefasterAnyOf(Tree tree) {
+    if (!(tree instanceof MethodInvocationTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol((MethodInvocationTree) tree);
+    return symbol.getSimpleName().contentEquals("anyOf")
+        && symbol.owner.getQualifiedName().contentEquals(REFASTER_CLASS_NAME);
+  }
+
+  /**
+   * A {@link TreeScanner} that counts the tree nodes and {@link Refaster#anyOf} alternatives in a
+   * template.
+   */
+  private static final class TemplateScanner extends TreeScanner<@Nullable Void, @Nullable Void> {
+    private int treeSize;
+    private int anyOfAlternatives;
+
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, @Nullable Void unused) {
+      if (tree != null) {
+        treeSize++;
+        if (isRefasterAnyOf(tree)) {
+          anyOfAlternatives += ((MethodInvocationTree) tree).getArguments().size();
+        }
+      }
+
+      return super.scan(tree, unused);
+    }
+  }
+}
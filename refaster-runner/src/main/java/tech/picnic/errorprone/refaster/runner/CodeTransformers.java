@@ -1,30 +1,130 @@
 package tech.picnic.errorprone.refaster.runner;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.function.Predicate.not;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
 import com.google.common.reflect.ClassPath;
 import com.google.common.reflect.ClassPath.ResourceInfo;
 import com.google.errorprone.CodeTransformer;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
 import java.io.UncheckedIOException;
-import java.util.NoSuchElementException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import org.jspecify.annotations.Nullable;
 
 /**
- * Scans the classpath for {@value #REFASTER_RULE_SUFFIX} files and loads them as {@link
- * CodeTransformer}s.
+ * Locates compiled Refaster rules on the classpath and loads them as {@link CodeTransformer}s.
+ *
+ * <p>Compiled Refaster rules are stored in {@value #REFASTER_RULE_SUFFIX} files. These are located
+ * using the {@value #RULE_INDEX} files emitted by the Refaster rule compiler. Each line of such an
+ * index lists the resource name of a {@value #REFASTER_RULE_SUFFIX} file, followed by the fully
+ * qualified types and static members that a compilation unit must reference for the associated
+ * {@link CodeTransformer} to match, all separated by tabs.
+ *
+ * <p>If no index is found, the classpath is scanned for {@value #REFASTER_RULE_SUFFIX} files
+ * instead. Classpath entries that do not provide an index are otherwise ignored, unless {@link
+ * #scanUnindexedClassPathEntries()} is invoked, in which case they are scanned individually, such
+ * that rules from artifacts built without an index are still found. For scanned rules each file's
+ * required symbols are read from an accompanying {@value #REQUIRED_SYMBOLS_SUFFIX} file, if
+ * present.
+ *
+ * <p>Refaster rules are located eagerly, but deserialized lazily: a {@link CodeTransformer} is
+ * loaded only once a rule with a matching name is requested. Deserialized {@link CodeTransformer}s
+ * are cached, such that concurrent compilations share them.
+ *
+ * <p>Optionally, the Refaster rules listed by the rule indexes on the classpath are additionally
+ * stored in a {@link RefasterRuleCache}, such that compilations using a different class loader can
+ * restore them without locating and reading them anew.
  */
 public final class CodeTransformers {
+  private static final String RULE_INDEX = "META-INF/refaster/rules.idx";
   private static final String REFASTER_RULE_SUFFIX = ".refaster";
+  private static final String REQUIRED_SYMBOLS_SUFFIX = ".refaster-requirements";
+  private static final Splitter INDEX_SPLITTER = Splitter.on('\t').omitEmptyStrings();
+  private static final Splitter CLASS_PATH_SPLITTER =
+      Splitter.on(File.pathSeparatorChar).omitEmptyStrings();
+  private static final Supplier<ImmutableList<RefasterRuleResource>> REFASTER_RULE_RESOURCES =
+      Suppliers.memoize(CodeTransformers::locateRefasterRules);
+  private static final Supplier<ImmutableMap<String, RefasterRuleResource>>
+      REFASTER_RULE_RESOURCES_BY_NAME =
+          Suppliers.memoize(
+              () ->
+                  REFASTER_RULE_RESOURCES.get().stream()
+                      .collect(toImmutableMap(RefasterRuleResource::getName, r -> r, (a, b) -> a)));
   private static final Supplier<ImmutableListMultimap<String, CodeTransformer>>
-      ALL_CODE_TRANSFORMERS = Suppliers.memoize(CodeTransformers::loadAllCodeTransformers);
+      ALL_CODE_TRANSFORMERS = Suppliers.memoize(() -> getCodeTransformers(name -> true));
+  private static final Supplier<String> RULE_BUNDLE_VERSION =
+      Suppliers.memoize(CodeTransformers::computeRuleBundleVersion);
+  private static final ConcurrentMap<String, Supplier<Optional<CodeTransformer>>>
+      LOADED_CODE_TRANSFORMERS = new ConcurrentHashMap<>();
+
+  private static volatile @Nullable RefasterRuleCache ruleCache;
+  private static volatile boolean unindexedClassPathEntriesScanned;
 
   private CodeTransformers() {}
 
+  /**
+   * Configures the {@link RefasterRuleCache} from which to restore, and in which to store, the
+   * Refaster rules listed by the rule indexes on the classpath.
+   *
+   * <p>As the Refaster rules on the classpath are located only once, the configured cache is shared
+   * by all users of this class within the same class loader. This method has no effect if the
+   * Refaster rules on the classpath were already located.
+   *
+   * @param cache The cache to use.
+   */
+  static void useRuleCache(RefasterRuleCache cache) {
+    ruleCache = cache;
+  }
+
+  /**
+   * Causes classpath entries that do not provide a rule index to be scanned for Refaster rules,
+   * even if other classpath entries do provide one.
+   *
+   * <p>Such scanning opens each classpath entry without an index, which is costly on large
+   * classpaths. This method has no effect if the Refaster rules on the classpath were already
+   * located.
+   */
+  static void scanUnindexedClassPathEntries() {
+    unindexedClassPathEntriesScanned = true;
+  }
+
   /**
    * Returns all Refaster {@link CodeTransformer}s found on the classpath.
    *
@@ -37,36 +137,348 @@ public final class CodeTransformers {
   }
 
   /**
-   * Scans the classpath for compiled Refaster rules and returns the associated deserialized {@link
-   * CodeTransformer}s, indexed by their name.
+   * Returns the names of all Refaster rules found on the classpath.
+   *
+   * <p>Unlike {@link #getAllCodeTransformers()}, this method does not deserialize any {@link
+   * CodeTransformer}s.
+   *
+   * @return The names of all Refaster rules found on the classpath.
+   */
+  public static ImmutableSet<String> getAllRefasterRuleNames() {
+    return REFASTER_RULE_RESOURCES.get().stream()
+        .map(RefasterRuleResource::getName)
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns a string that identifies the Refaster rules found on the classpath.
+   *
+   * <p>The returned value is derived from the name and content of each compiled Refaster rule, and
+   * thus changes if any rule is added, removed or modified. This method does not deserialize any
+   * {@link CodeTransformer}s, and returns a cached value on all invocations except the first.
+   *
+   * @return A non-{@code null} hexadecimal string.
+   */
+  static String getRuleBundleVersion() {
+    return RULE_BUNDLE_VERSION.get();
+  }
+
+  /**
+   * Returns the static cost profile of the Refaster rule with the given name, as computed by the
+   * Refaster rule compiler.
+   *
+   * <p>This method does not deserialize any {@link CodeTransformer}s.
+   *
+   * @param ruleName The name of the Refaster rule of interest.
+   * @return A mapping from metric names to values; empty if unknown.
+   * @see RefasterRuleResource#getCostProfile()
+   */
+  static ImmutableMap<String, Integer> getCostProfile(String ruleName) {
+    RefasterRuleResource resource = REFASTER_RULE_RESOURCES_BY_NAME.get().get(ruleName);
+    return resource == null ? ImmutableMap.of() : resource.getCostProfile();
+  }
+
+  /**
+   * Returns the Refaster {@link CodeTransformer}s found on the classpath whose name matches the
+   * given predicate.
    *
+   * <p>Only the {@link CodeTransformer}s of matching Refaster rules are deserialized, if they were
+   * not deserialized before.
+   *
+   * @param nameFilter The predicate that selects the Refaster rules of interest by name.
    * @return A mapping from Refaster rule names to associated {@link CodeTransformer}s.
    */
-  private static ImmutableListMultimap<String, CodeTransformer> loadAllCodeTransformers() {
+  public static ImmutableListMultimap<String, CodeTransformer> getCodeTransformers(
+      Predicate<String> nameFilter) {
     ImmutableListMultimap.Builder<String, CodeTransformer> transformers =
         ImmutableListMultimap.builder();
+    for (RefasterRuleResource resource : REFASTER_RULE_RESOURCES.get()) {
+      if (nameFilter.test(resource.getName())) {
+        load(resource).ifPresent(transformer -> transformers.put(resource.getName(), transformer));
+      }
+    }
+    return transformers.build();
+  }
+
+  /**
+   * Returns the Refaster {@link CodeTransformer}s found on the classpath whose name matches the
+   * given predicate, along with the symbols they require.
+   *
+   * <p>Only the {@link CodeTransformer}s of matching Refaster rules are deserialized, if they were
+   * not deserialized before.
+   *
+   * @param nameFilter The predicate that selects the Refaster rules of interest by name.
+   * @return A mapping from {@link CodeTransformer}s to the fully qualified types and static members
+   *     that a compilation unit must reference for them to match.
+   */
+  static ImmutableMap<CodeTransformer, ImmutableSet<String>> loadCodeTransformers(
+      Predicate<String> nameFilter) {
+    return loadCodeTransformers(nameFilter, (name, transformer) -> transformer);
+  }
+
+  /**
+   * Returns the Refaster {@link CodeTransformer}s found on the classpath whose name matches the
+   * given predicate, each decorated using the given function, along with the symbols they require.
+   *
+   * <p>Only the {@link CodeTransformer}s of matching Refaster rules are deserialized, if they were
+   * not deserialized before. The decorator is invoked for each returned {@link CodeTransformer}.
+   *
+   * @param nameFilter The predicate that selects the Refaster rules of interest by name.
+   * @param decorator The function that, given a Refaster rule name and its associated {@link
+   *     CodeTransformer}, returns the {@link CodeTransformer} to be returned instead.
+   * @return A mapping from decorated {@link CodeTransformer}s to the fully qualified types and
+   *     static members that a compilation unit must reference for them to match.
+   */
+  static ImmutableMap<CodeTransformer, ImmutableSet<String>> loadCodeTransformers(
+      Predicate<String> nameFilter,
+      BiFunction<String, CodeTransformer, CodeTransformer> decorator) {
+    Map<CodeTransformer, ImmutableSet<String>> transformers = new LinkedHashMap<>();
+    for (RefasterRuleResource resource : REFASTER_RULE_RESOURCES.get()) {
+      if (nameFilter.test(resource.getName())) {
+        load(resource)
+            .ifPresent(
+                transformer ->
+                    transformers.put(
+                        decorator.apply(resource.getName(), transformer),
+                        resource.getRequiredSymbols()));
+      }
+    }
+    return ImmutableMap.copyOf(transformers);
+  }
+
+  /**
+   * Returns the {@link CodeTransformer} associated with the given Refaster rule, deserializing it
+   * only if this did not happen before.
+   *
+   * <p>The cache stores memoizing {@link Supplier}s rather than {@link CodeTransformer}s, such that
+   * deserialization does not happen while a lock on the cache is held, while concurrent requests
+   * for the same rule still await a single deserialization.
+   */
+  private static Optional<CodeTransformer> load(RefasterRuleResource resource) {
+    return LOADED_CODE_TRANSFORMERS
+        .computeIfAbsent(resource.getUrl().toString(), url -> Suppliers.memoize(resource::load))
+        .get();
+  }
+
+  private static String computeRuleBundleVersion() {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (RefasterRuleResource resource : REFASTER_RULE_RESOURCES.get()) {
+      hasher.putString(resource.getName(), UTF_8).putBytes(resource.readBytes());
+    }
+    return hasher.hash().toString();
+  }
+
+  private static ImmutableList<RefasterRuleResource> locateRefasterRules() {
+    return locateRefasterRules(
+        CodeTransformers.class.getClassLoader(), unindexedClassPathEntriesScanned);
+  }
 
-    for (ResourceInfo resource : getClassPathResources()) {
-      getRefasterRuleName(resource)
+  /**
+   * Returns the Refaster rules available through the given {@link ClassLoader}.
+   *
+   * @param classLoader The class loader through which to locate Refaster rules.
+   * @param scanUnindexedClassPathEntries Whether to scan classpath entries that do not provide a
+   *     rule index, if any other classpath entry does.
+   * @return The Refaster rules listed by the rule indexes on the classpath, followed by the rules
+   *     found in scanned classpath entries that do not provide an index, if any.
+   */
+  static ImmutableList<RefasterRuleResource> locateRefasterRules(
+      ClassLoader classLoader, boolean scanUnindexedClassPathEntries) {
+    List<URL> indexes = getResources(classLoader, RULE_INDEX);
+    if (indexes.isEmpty()) {
+      return scanClassPathForRefasterRules(classLoader);
+    }
+
+    RefasterRuleCache cache = ruleCache;
+    ImmutableList<RefasterRuleResource> indexedRules =
+        cache == null
+            ? readRuleIndexes(classLoader, indexes)
+            : cache.getRules(indexes, () -> readRuleIndexes(classLoader, indexes));
+    if (!scanUnindexedClassPathEntries) {
+      return indexedRules;
+    }
+
+    ImmutableSet<Path> indexedRoots =
+        indexes.stream()
+            .map(CodeTransformers::getClassPathRoot)
+            .flatMap(Optional::stream)
+            .collect(toImmutableSet());
+    ImmutableList.Builder<RefasterRuleResource> rules =
+        ImmutableList.<RefasterRuleResource>builder().addAll(indexedRules);
+    for (Path root : getClassPathRoots(classLoader)) {
+      if (!indexedRoots.contains(root)) {
+        rules.addAll(scanClassPathRoot(root));
+      }
+    }
+    return rules.build();
+  }
+
+  private static ImmutableList<RefasterRuleResource> readRuleIndexes(
+      ClassLoader classLoader, List<URL> indexes) {
+    ImmutableList.Builder<RefasterRuleResource> resources = ImmutableList.builder();
+    Set<String> seenResourceNames = new HashSet<>();
+    for (URL index : indexes) {
+      for (String line : readLines(index)) {
+        List<String> fields = INDEX_SPLITTER.splitToList(line);
+        if (!fields.isEmpty() && seenResourceNames.add(fields.get(0))) {
+          String resourceName = fields.get(0);
+          URL url = classLoader.getResource(resourceName);
+          Optional<String> ruleName = getRefasterRuleName(resourceName);
+          if (url != null && ruleName.isPresent()) {
+            resources.add(
+                new RefasterRuleResource(
+                    ruleName.orElseThrow(),
+                    url,
+                    ImmutableSet.copyOf(fields.subList(1, fields.size()))));
+          }
+        }
+      }
+    }
+    return resources.build();
+  }
+
+  private static ImmutableList<RefasterRuleResource> scanClassPathForRefasterRules(
+      ClassLoader classLoader) {
+    ImmutableSet<ResourceInfo> resources = getClassPathResources(classLoader);
+    ImmutableMap<String, ResourceInfo> requirementResources =
+        resources.stream()
+            .filter(r -> r.getResourceName().endsWith(REQUIRED_SYMBOLS_SUFFIX))
+            .collect(toImmutableMap(ResourceInfo::getResourceName, r -> r, (a, b) -> a));
+
+    ImmutableList.Builder<RefasterRuleResource> refasterRules = ImmutableList.builder();
+    for (ResourceInfo resource : resources) {
+      getRefasterRuleName(resource.getResourceName())
           .ifPresent(
               ruleName ->
-                  loadCodeTransformer(resource)
-                      .ifPresent(transformer -> transformers.put(ruleName, transformer)));
+                  refasterRules.add(
+                      new RefasterRuleResource(
+                          ruleName,
+                          resource.url(),
+                          loadRequiredSymbols(
+                              requirementResources.get(
+                                  getRequiredSymbolsResourceName(resource.getResourceName()))))));
     }
+    return refasterRules.build();
+  }
 
-    return transformers.build();
+  /**
+   * Returns the directories and archives from which the given {@link ClassLoader} and its ancestors
+   * load resources, insofar as these can be determined.
+   */
+  private static ImmutableSet<Path> getClassPathRoots(ClassLoader classLoader) {
+    ImmutableSet.Builder<Path> roots = ImmutableSet.builder();
+    Stream.iterate(classLoader, Objects::nonNull, ClassLoader::getParent)
+        .forEach(
+            loader -> {
+              if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                  toPath(url).ifPresent(roots::add);
+                }
+              }
+              if (loader.equals(ClassLoader.getSystemClassLoader())) {
+                for (String entry :
+                    CLASS_PATH_SPLITTER.split(System.getProperty("java.class.path", ""))) {
+                  roots.add(Path.of(entry).toAbsolutePath().normalize());
+                }
+              }
+            });
+    return roots.build();
+  }
+
+  /** Returns the directory or archive that contains the given rule index, if any. */
+  private static Optional<Path> getClassPathRoot(URL index) {
+    String location = index.toString();
+    if (location.startsWith("jar:")) {
+      int separator = location.indexOf("!/");
+      return separator < 0 ? Optional.empty() : toPath(location.substring(4, separator));
+    }
+
+    return location.endsWith(RULE_INDEX)
+        ? toPath(location.substring(0, location.length() - RULE_INDEX.length()))
+        : Optional.empty();
+  }
+
+  private static Optional<Path> toPath(URL url) {
+    return toPath(url.toString());
+  }
+
+  private static Optional<Path> toPath(String url) {
+    try {
+      URI uri = new URI(url);
+      return "file".equals(uri.getScheme())
+          ? Optional.of(Path.of(uri).toAbsolutePath().normalize())
+          : Optional.empty();
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
   }
 
-  private static ImmutableSet<ResourceInfo> getClassPathResources() {
+  /** Returns the Refaster rules stored in the given classpath directory or archive. */
+  private static ImmutableList<RefasterRuleResource> scanClassPathRoot(Path root) {
+    ImmutableList.Builder<RefasterRuleResource> rules = ImmutableList.builder();
     try {
-      return ClassPath.from(CodeTransformers.class.getClassLoader()).getResources();
+      if (Files.isDirectory(root)) {
+        try (Stream<Path> files = Files.walk(root)) {
+          for (Path file : (Iterable<Path>) files::iterator) {
+            String resourceName = Joiner.on('/').join(root.relativize(file));
+            getRefasterRuleName(resourceName)
+                .ifPresent(
+                    name ->
+                        rules.add(
+                            createRefasterRuleResource(
+                                name, file.toUri().toString(), resourceName)));
+          }
+        }
+      } else if (Files.isRegularFile(root)) {
+        try (JarFile jar = new JarFile(root.toFile())) {
+          String prefix = "jar:" + root.toUri() + "!/";
+          for (JarEntry entry : Collections.list(jar.entries())) {
+            String resourceName = entry.getName();
+            getRefasterRuleName(resourceName)
+                .ifPresent(
+                    name ->
+                        rules.add(
+                            createRefasterRuleResource(name, prefix + resourceName, resourceName)));
+          }
+        }
+      }
+    } catch (IOException e) {
+      /* This classpath entry cannot be read; it does not provide any Refaster rules. */
+      return ImmutableList.of();
+    }
+    return rules.build();
+  }
+
+  private static RefasterRuleResource createRefasterRuleResource(
+      String ruleName, String url, String resourceName) {
+    String requiredSymbolsUrl =
+        url.substring(0, url.length() - resourceName.length())
+            + getRequiredSymbolsResourceName(resourceName);
+    try {
+      return new RefasterRuleResource(
+          ruleName, new URL(url), loadRequiredSymbols(new URL(requiredSymbolsUrl)));
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Invalid Refaster rule location " + url, e);
+    }
+  }
+
+  private static List<URL> getResources(ClassLoader classLoader, String resourceName) {
+    try {
+      return Collections.list(classLoader.getResources(resourceName));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to locate resources named " + resourceName, e);
+    }
+  }
+
+  private static ImmutableSet<ResourceInfo> getClassPathResources(ClassLoader classLoader) {
+    try {
+      return ClassPath.from(classLoader).getResources();
     } catch (IOException e) {
       throw new UncheckedIOException("Failed to scan classpath for resources", e);
     }
   }
 
-  private static Optional<String> getRefasterRuleName(ResourceInfo resource) {
-    String resourceName = resource.getResourceName();
+  private static Optional<String> getRefasterRuleName(String resourceName) {
     if (!resourceName.endsWith(REFASTER_RULE_SUFFIX)) {
       return Optional.empty();
     }
@@ -77,22 +489,40 @@ public final class CodeTransformers {
     return Optional.of(resourceName.substring(beginIndex, endIndex));
   }
 
-  private static Optional<CodeTransformer> loadCodeTransformer(ResourceInfo resource) {
-    try (InputStream in = resource.url().openStream();
-        ObjectInputStream ois = new ObjectInputStream(in)) {
-      @SuppressWarnings("BanSerializableRead" /* Part of the Refaster API. */)
-      CodeTransformer codeTransformer = (CodeTransformer) ois.readObject();
-      return Optional.of(codeTransformer);
-    } catch (NoSuchElementException e) {
-      /* For some reason we can't load the resource. Skip it. */
-      // XXX: Should we log this?
-      return Optional.empty();
-    } catch (ClassCastException e) {
-      /* This resource does not appear to be compatible with the current classpath. */
-      // XXX: Should we log this?
-      return Optional.empty();
-    } catch (ClassNotFoundException | IOException e) {
-      throw new IllegalStateException("Can't load `CodeTransformer` from " + resource, e);
+  private static String getRequiredSymbolsResourceName(String refasterRuleResourceName) {
+    return refasterRuleResourceName.substring(
+            0, refasterRuleResourceName.length() - REFASTER_RULE_SUFFIX.length())
+        + REQUIRED_SYMBOLS_SUFFIX;
+  }
+
+  private static ImmutableSet<String> loadRequiredSymbols(@Nullable ResourceInfo resource) {
+    if (resource == null) {
+      return ImmutableSet.of();
+    }
+
+    return readLines(resource.url()).stream()
+        .filter(not(String::isEmpty))
+        .collect(toImmutableSet());
+  }
+
+  private static ImmutableSet<String> loadRequiredSymbols(URL resource) {
+    try {
+      return Resources.readLines(resource, UTF_8).stream()
+          .filter(not(String::isEmpty))
+          .collect(toImmutableSet());
+    } catch (FileNotFoundException | NoSuchFileException e) {
+      /* This rule was compiled without a list of required symbols. */
+      return ImmutableSet.of();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + resource, e);
+    }
+  }
+
+  private static List<String> readLines(URL resource) {
+    try {
+      return Resources.readLines(resource, UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + resource, e);
     }
   }
 }
@@ -0,0 +1,154 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.tree.JCTree.JCStatement;
+import com.sun.tools.javac.tree.TreeMaker;
+import com.sun.tools.javac.util.ListBuffer;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A part of a compilation unit to which Refaster rules can be applied independently of the other
+ * parts of the same compilation unit.
+ *
+ * <p>A compilation unit is partitioned such that applying a Refaster rule to each of its parts
+ * yields the same matches as applying the rule to the compilation unit as a whole. To this end the
+ * partitioning mirrors how Error Prone's {@code RefasterScanner} visits class declarations: the
+ * methods of a top-level class form separate parts, while its other members, being treated as a
+ * single block of statements, together form a single part. Top-level classes that could suppress
+ * Refaster rules or that define Refaster templates are not partitioned further.
+ */
+final class CompilationUnitPartition {
+  private static final String BEFORE_TEMPLATE_ANNOTATION =
+      "com.google.errorprone.refaster.annotation.BeforeTemplate";
+
+  private final TreePath path;
+  private final ImmutableList<Tree> trees;
+  private final @Nullable ClassTree enclosingClass;
+
+  private CompilationUnitPartition(
+      TreePath path, ImmutableList<Tree> trees, @Nullable ClassTree enclosingClass) {
+    this.path = path;
+    this.trees = trees;
+    this.enclosingClass = enclosingClass;
+  }
+
+  /**
+   * Returns the path to which Refaster rules should be applied in order to match this part of the
+   * compilation unit.
+   *
+   * @return The non-{@code null} path to a (possibly synthetic) tree.
+   */
+  TreePath getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the trees of the compilation unit covered by this part.
+   *
+   * @return A non-empty list of trees.
+   */
+  ImmutableList<Tree> getTrees() {
+    return trees;
+  }
+
+  /**
+   * Returns the top-level class whose members are covered by this part, if any.
+   *
+   * @return The enclosing top-level class, or {@code null} if this part covers one or more
+   *     top-level trees.
+   */
+  @Nullable
+  ClassTree getEnclosingClass() {
+    return enclosingClass;
+  }
+
+  /**
+   * Partitions the given compilation unit into parts to which Refaster rules can be applied
+   * independently.
+   *
+   * @param compilationUnit The path to the compilation unit of interest.
+   * @param state A {@link VisitorState} describing the context in which the compilation unit is
+   *     found.
+   * @return The parts of the given compilation unit.
+   */
+  static ImmutableList<CompilationUnitPartition> partition(
+      TreePath compilationUnit, VisitorState state) {
+    CompilationUnitTree tree = compilationUnit.getCompilationUnit();
+    ImmutableList.Builder<CompilationUnitPartition> partitions = ImmutableList.builder();
+    if (tree.getPackage() != null) {
+      partitions.add(topLevel(compilationUnit, tree.getPackage()));
+    }
+    for (Tree importTree : tree.getImports()) {
+      partitions.add(topLevel(compilationUnit, importTree));
+    }
+    for (Tree typeDecl : tree.getTypeDecls()) {
+      if (typeDecl instanceof ClassTree && isPartitionable((ClassTree) typeDecl, state)) {
+        addMembers(new TreePath(compilationUnit, typeDecl), partitions, state);
+      } else {
+        partitions.add(topLevel(compilationUnit, typeDecl));
+      }
+    }
+    return partitions.build();
+  }
+
+  private static CompilationUnitPartition topLevel(TreePath compilationUnit, Tree tree) {
+    return new CompilationUnitPartition(
+        new TreePath(compilationUnit, tree), ImmutableList.of(tree), null);
+  }
+
+  private static void addMembers(
+      TreePath classPath,
+      ImmutableList.Builder<CompilationUnitPartition> partitions,
+      VisitorState state) {
+    ClassTree classTree = (ClassTree) classPath.getLeaf();
+    ListBuffer<JCStatement> statements = new ListBuffer<>();
+    for (Tree member : classTree.getMembers()) {
+      if (member instanceof JCStatement) {
+        statements.append((JCStatement) member);
+      } else {
+        partitions.add(
+            new CompilationUnitPartition(
+                new TreePath(classPath, member), ImmutableList.of(member), classTree));
+      }
+    }
+
+    if (!statements.isEmpty()) {
+      /*
+       * Like `RefasterScanner`, wrap fields and nested classes in a synthetic block, such that block
+       * templates are matched against them as well.
+       */
+      Tree block = TreeMaker.instance(state.context).Block(0, statements.toList());
+      partitions.add(
+          new CompilationUnitPartition(
+              new TreePath(classPath, block), ImmutableList.copyOf(statements), classTree));
+    }
+  }
+
+  /**
+   * Tells whether the members of the given top-level class can be matched independently.
+   *
+   * <p>This is not the case if the class is annotated with {@link SuppressWarnings}, as Refaster
+   * rules may be suppressed this way, nor if the class defines a Refaster template, as {@code
+   * RefasterScanner} does not match a Refaster rule against its own definition.
+   */
+  private static boolean isPartitionable(ClassTree tree, VisitorState state) {
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    if (symbol == null || ASTHelpers.hasAnnotation(symbol, SuppressWarnings.class, state)) {
+      return false;
+    }
+
+    return tree.getMembers().stream()
+        .noneMatch(
+            member ->
+                member instanceof MethodTree
+                    && ASTHelpers.hasAnnotation(member, BEFORE_TEMPLATE_ANNOTATION, state));
+  }
+}
@@ -0,0 +1,183 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.DescriptionListener;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * An on-disk cache that allows Refaster rules to be applied incrementally, by skipping the parts of
+ * a compilation unit that did not change since they were last found not to match any rule.
+ *
+ * <p>For each source file the cache records the content hashes of the {@link
+ * CompilationUnitPartition parts} in which no Refaster rule matched. Upon recompilation of the same
+ * file, only parts whose hash was not recorded are analyzed. The hash of a part covers its source
+ * code, the compilation unit's package and import declarations and, for class members, the
+ * declaration of the enclosing class.
+ *
+ * <p>Matches themselves are not cached: a {@link Description} references the trees of the
+ * compilation in which it was produced, so parts that yielded matches are analyzed anew. Results
+ * are stored in a subdirectory named after the applied set of Refaster rules, such that changes to
+ * these rules invalidate the cache.
+ *
+ * <p>As the cache is an optimization only, failure to read or write it is logged, after which the
+ * affected compilation unit is analyzed in full.
+ */
+// XXX: The types referenced by an unchanged part of a compilation unit may be affected by changes
+// to other compilation units. Consider incorporating (a hash of) the signatures of referenced
+// types.
+final class IncrementalAnalysisCache {
+  private static final System.Logger LOGGER =
+      System.getLogger(IncrementalAnalysisCache.class.getName());
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+  private final Path directory;
+
+  /**
+   * Instantiates a new {@link IncrementalAnalysisCache} instance.
+   *
+   * @param rootDirectory The directory in which to store analysis results.
+   * @param ruleSetVersion A string that uniquely identifies the set of Refaster rules that is
+   *     applied.
+   */
+  IncrementalAnalysisCache(Path rootDirectory, String ruleSetVersion) {
+    this.directory = rootDirectory.resolve(ruleSetVersion);
+  }
+
+  /**
+   * Applies the given {@link CodeTransformer} to those parts of the compilation unit currently
+   * being analyzed that changed since the previous analysis.
+   *
+   * @param transformer The {@link CodeTransformer} to apply.
+   * @param context The context to pass to the {@link CodeTransformer}.
+   * @param state A {@link VisitorState} describing the compilation unit to be analyzed.
+   * @param listener The listener to which to report any matches.
+   */
+  void apply(
+      CodeTransformer transformer,
+      Context context,
+      VisitorState state,
+      DescriptionListener listener) {
+    CompilationUnitTree compilationUnit = state.getPath().getCompilationUnit();
+    Path cacheFile =
+        directory.resolve(
+            HASH_FUNCTION
+                .hashString(compilationUnit.getSourceFile().toUri().toString(), UTF_8)
+                .toString());
+    ImmutableSet<String> previouslyUnmatched = read(cacheFile);
+    String header = hashHeader(compilationUnit, state);
+
+    ImmutableSet.Builder<String> unmatched = ImmutableSet.builder();
+    for (CompilationUnitPartition partition :
+        CompilationUnitPartition.partition(state.getPath(), state)) {
+      String hash = hashPartition(partition, header, state);
+      if (previouslyUnmatched.contains(hash)) {
+        unmatched.add(hash);
+      } else {
+        List<Description> matches = new ArrayList<>();
+        transformer.apply(partition.getPath(), context, matches::add);
+        if (matches.isEmpty()) {
+          unmatched.add(hash);
+        } else {
+          matches.forEach(listener::onDescribed);
+        }
+      }
+    }
+
+    ImmutableSet<String> currentlyUnmatched = unmatched.build();
+    if (!currentlyUnmatched.equals(previouslyUnmatched)) {
+      write(cacheFile, currentlyUnmatched);
+    }
+  }
+
+  private static String hashHeader(CompilationUnitTree compilationUnit, VisitorState state) {
+    Hasher hasher = HASH_FUNCTION.newHasher();
+    putSource(hasher, compilationUnit.getPackage(), state);
+    for (Tree importTree : compilationUnit.getImports()) {
+      putSource(hasher, importTree, state);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static String hashPartition(
+      CompilationUnitPartition partition, String header, VisitorState state) {
+    Hasher hasher = HASH_FUNCTION.newHasher().putString(header, UTF_8);
+    ClassTree enclosingClass = partition.getEnclosingClass();
+    if (enclosingClass != null) {
+      hasher.putString(enclosingClass.getSimpleName(), UTF_8);
+      putSource(hasher, enclosingClass.getModifiers(), state);
+      for (Tree typeParameter : enclosingClass.getTypeParameters()) {
+        putSource(hasher, typeParameter, state);
+      }
+      putSource(hasher, enclosingClass.getExtendsClause(), state);
+      for (Tree implementsClause : enclosingClass.getImplementsClause()) {
+        putSource(hasher, implementsClause, state);
+      }
+    }
+    for (Tree tree : partition.getTrees()) {
+      putSource(hasher, tree, state);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static void putSource(Hasher hasher, @Nullable Tree tree, VisitorState state) {
+    if (tree == null) {
+      hasher.putInt(-1);
+      return;
+    }
+
+    String source = state.getSourceForNode(tree);
+    String content = source != null ? source : tree.toString();
+    hasher.putInt(content.length()).putString(content, UTF_8);
+  }
+
+  private static ImmutableSet<String> read(Path cacheFile) {
+    try {
+      return ImmutableSet.copyOf(Files.readAllLines(cacheFile, UTF_8));
+    } catch (NoSuchFileException e) {
+      return ImmutableSet.of();
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to read Refaster analysis cache " + cacheFile, e);
+      return ImmutableSet.of();
+    }
+  }
+
+  private void write(Path cacheFile, ImmutableSet<String> hashes) {
+    try {
+      /*
+       * Concurrent compilations may update the same cache file, so the file is replaced
+       * atomically.
+       */
+      Files.createDirectories(directory);
+      Path tempFile = Files.createTempFile(directory, "refaster-", ".tmp");
+      try {
+        Files.write(tempFile, hashes, UTF_8);
+        Files.move(tempFile, cacheFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to write Refaster analysis cache " + cacheFile, e);
+    }
+  }
+}
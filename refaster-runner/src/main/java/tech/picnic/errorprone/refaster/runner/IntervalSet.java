@@ -0,0 +1,93 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * A mutable set of half-open {@code int} intervals, backed by sorted primitive arrays.
+ *
+ * <p>Intervals that overlap or abut are coalesced upon insertion, such that the set always consists
+ * of disjoint intervals sorted by their start (and thus also by their end). This allows overlap
+ * queries to be answered using a single binary search, without boxing.
+ *
+ * <p>This class serves the same purpose as a {@link com.google.common.collect.TreeRangeSet} of
+ * {@link Integer}s, but requires far fewer allocations.
+ */
+final class IntervalSet {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] ends = new int[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Tells whether any interval in this set overlaps with the given non-empty interval.
+   *
+   * @param start The inclusive start of the interval.
+   * @param end The exclusive end of the interval.
+   * @return {@code true} iff at least one position is contained in both this set and the given
+   *     interval.
+   */
+  boolean overlaps(int start, int end) {
+    checkArgument(start < end, "Interval [%s, %s) is empty", start, end);
+    /* Among the intervals that start before `end`, the last one has the largest end. */
+    int index = lastIndexWithStartAtMost(end - 1);
+    return index >= 0 && ends[index] > start;
+  }
+
+  /**
+   * Adds the given non-empty interval to this set.
+   *
+   * @param start The inclusive start of the interval.
+   * @param end The exclusive end of the interval.
+   */
+  void add(int start, int end) {
+    checkArgument(start < end, "Interval [%s, %s) is empty", start, end);
+    int first = firstIndexWithEndAtLeast(start);
+    int last = lastIndexWithStartAtMost(end);
+
+    if (first > last) {
+      /* The interval does not touch any existing interval; insert it. */
+      ensureCapacity(size + 1);
+      System.arraycopy(starts, first, starts, first + 1, size - first);
+      System.arraycopy(ends, first, ends, first + 1, size - first);
+      starts[first] = start;
+      ends[first] = end;
+      size++;
+      return;
+    }
+
+    /* Coalesce the interval with the existing intervals it touches. */
+    starts[first] = Math.min(start, starts[first]);
+    ends[first] = Math.max(end, ends[last]);
+    int removed = last - first;
+    if (removed > 0) {
+      System.arraycopy(starts, last + 1, starts, first + 1, size - last - 1);
+      System.arraycopy(ends, last + 1, ends, first + 1, size - last - 1);
+      size -= removed;
+    }
+  }
+
+  /** Returns the index of the first interval whose end is at least the given value. */
+  private int firstIndexWithEndAtLeast(int value) {
+    /* Interval ends are distinct, as touching intervals are coalesced. */
+    int index = Arrays.binarySearch(ends, 0, size, value);
+    return index < 0 ? -index - 1 : index;
+  }
+
+  /** Returns the index of the last interval whose start is at most the given value, or -1. */
+  private int lastIndexWithStartAtMost(int value) {
+    /* Interval starts are distinct, as touching intervals are coalesced. */
+    int index = Arrays.binarySearch(starts, 0, size, value);
+    return index < 0 ? -index - 2 : index;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > starts.length) {
+      int newCapacity = Math.max(capacity, starts.length * 2);
+      starts = Arrays.copyOf(starts, newCapacity);
+      ends = Arrays.copyOf(ends, newCapacity);
+    }
+  }
+}
@@ -1,22 +1,17 @@
 package tech.picnic.errorprone.refaster.runner;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableRangeSet.toImmutableRangeSet;
 import static com.google.errorprone.BugPattern.LinkType.NONE;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 import static com.google.errorprone.BugPattern.StandardTags.SIMPLIFICATION;
-import static java.util.function.Predicate.not;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.auto.service.AutoService;
-import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.ImmutableRangeSet;
-import com.google.common.collect.Range;
-import com.google.common.collect.RangeSet;
-import com.google.common.collect.TreeRangeSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 import com.google.errorprone.BugPattern;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.CodeTransformer;
@@ -33,13 +28,15 @@ import com.google.errorprone.matchers.Description;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.tools.javac.tree.EndPosTable;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
+import org.jspecify.annotations.Nullable;
 
 /**
  * A {@link BugChecker} that flags code that can be simplified using Refaster rules located on the
@@ -48,6 +45,22 @@ import java.util.stream.Stream;
  * <p>This checker locates all {@code *.refaster} classpath resources and assumes that they contain
  * a {@link CodeTransformer}. The set of loaded Refaster rules can be restricted by passing {@code
  * -XepOpt:Refaster:NamePattern=<someRegex>}.
+ *
+ * <p>Passing {@code -XepOpt:Refaster:Profile=<path>} causes per-rule execution statistics to be
+ * written to the specified file once compilation completes; see {@link RefasterRuleProfiler}.
+ *
+ * <p>Passing {@code -XepOpt:Refaster:IncrementalCacheDirectory=<path>} enables incremental mode, in
+ * which unchanged parts of a compilation unit that previously did not match any Refaster rule are
+ * not analyzed again; see {@link IncrementalAnalysisCache}.
+ *
+ * <p>Passing {@code -XepOpt:Refaster:RuleCacheDirectory=<path>} causes the Refaster rules on the
+ * classpath to be cached on disk, such that long-lived processes that compile each module using a
+ * separate class loader locate and read them only once; see {@link RefasterRuleCache}.
+ *
+ * <p>Passing {@code -XepOpt:Refaster:ScanUnindexedClassPathEntries=true} causes classpath entries
+ * that do not provide a Refaster rule index to be scanned for Refaster rules, even if other
+ * classpath entries do provide one. By default such entries are ignored, as opening each of them is
+ * costly.
  */
 @AutoService(BugChecker.class)
 @BugPattern(
@@ -58,11 +71,32 @@ import java.util.stream.Stream;
 public final class Refaster extends BugChecker implements CompilationUnitTreeMatcher {
   /** Flag to pass a pattern that restricts which Refaster rules are loaded. */
   public static final String INCLUDED_RULES_PATTERN_FLAG = "Refaster:NamePattern";
+  /** Flag to pass the path of a file to which to write per-rule execution statistics. */
+  public static final String PROFILE_REPORT_FLAG = "Refaster:Profile";
+  /** Flag to pass the directory in which to cache analysis results across compilations. */
+  public static final String INCREMENTAL_CACHE_DIRECTORY_FLAG =
+      "Refaster:IncrementalCacheDirectory";
+  /**
+   * Flag to pass the directory in which to cache Refaster rules across class loaders.
+   *
+   * <p>As the Refaster rules on the classpath are located only once per class loader, this flag
+   * affects all {@link Refaster} instances loaded by the same class loader.
+   */
+  public static final String RULE_CACHE_DIRECTORY_FLAG = "Refaster:RuleCacheDirectory";
+  /**
+   * Flag to enable scanning of classpath entries that do not provide a Refaster rule index.
+   *
+   * <p>As the Refaster rules on the classpath are located only once per class loader, this flag
+   * affects all {@link Refaster} instances loaded by the same class loader.
+   */
+  public static final String SCAN_UNINDEXED_CLASS_PATH_ENTRIES_FLAG =
+      "Refaster:ScanUnindexedClassPathEntries";
 
   private static final long serialVersionUID = 1L;
 
-  @SuppressWarnings("serial" /* Concrete instance will be `Serializable`. */)
-  private final CodeTransformer codeTransformer;
+  private final @Nullable RefasterRuleProfiler profiler;
+  private final @Nullable IncrementalAnalysisCache incrementalCache;
+  private final RefasterRuleSelector ruleSelector;
 
   /** Instantiates a default {@link Refaster} instance. */
   public Refaster() {
@@ -75,16 +109,44 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
    * @param flags Any provided command line flags.
    */
   public Refaster(ErrorProneFlags flags) {
-    codeTransformer = createCompositeCodeTransformer(flags);
+    flags
+        .get(RULE_CACHE_DIRECTORY_FLAG)
+        .map(Path::of)
+        .map(RefasterRuleCache::new)
+        .ifPresent(CodeTransformers::useRuleCache);
+    if (flags.getBoolean(SCAN_UNINDEXED_CLASS_PATH_ENTRIES_FLAG).orElse(false)) {
+      CodeTransformers.scanUnindexedClassPathEntries();
+    }
+    profiler =
+        flags.get(PROFILE_REPORT_FLAG).map(Path::of).map(RefasterRuleProfiler::new).orElse(null);
+    incrementalCache =
+        flags
+            .get(INCREMENTAL_CACHE_DIRECTORY_FLAG)
+            .map(
+                directory ->
+                    new IncrementalAnalysisCache(Path.of(directory), getRuleSetVersion(flags)))
+            .orElse(null);
+    ruleSelector = createRefasterRuleSelector(flags, profiler);
   }
 
   @CanIgnoreReturnValue
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
-    /* First, collect all matches. */
+    if (profiler != null) {
+      profiler.writeReportUponCompletion(state.context);
+    }
+
+    /* First, collect all matches of the Refaster rules that may apply to this compilation unit. */
     List<Description> matches = new ArrayList<>();
     try {
-      codeTransformer.apply(state.getPath(), new SubContext(state.context), matches::add);
+      CodeTransformer codeTransformer =
+          CompositeCodeTransformer.compose(ruleSelector.selectTransformers(tree));
+      SubContext context = new SubContext(state.context);
+      if (incrementalCache == null) {
+        codeTransformer.apply(state.getPath(), context, matches::add);
+      } else {
+        incrementalCache.apply(codeTransformer, context, state, matches::add);
+      }
     } catch (LinkageError e) {
       // XXX: This `try/catch` block handles the issue described and resolved in
       // https://github.com/google/error-prone/pull/2456. Drop this block once that change is
@@ -112,20 +174,20 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
   // https://github.com/google/error-prone/issues/559. Consider contributing it back upstream.
   private void applyMatches(
       Iterable<Description> allMatches, EndPosTable endPositions, VisitorState state) {
-    ImmutableList<Description> byReplacementSize =
+    ImmutableList<Match> byReplacementSize =
         ImmutableList.sortedCopyOf(
-            Comparator.<Description>comparingInt(d -> getReplacedCodeSize(d, endPositions))
+            Comparator.<Match>comparingInt(m -> m.replacedCodeSize)
                 .reversed()
-                .thenComparingInt(d -> getInsertedCodeSize(d, endPositions)),
-            allMatches);
+                .thenComparingInt(m -> m.insertedCodeSize),
+            Iterables.transform(allMatches, d -> Match.create(d, endPositions)));
 
-    RangeSet<Integer> replacedSections = TreeRangeSet.create();
-    for (Description description : byReplacementSize) {
-      ImmutableRangeSet<Integer> ranges = getReplacementRanges(description, endPositions);
-      if (ranges.asRanges().stream().noneMatch(replacedSections::intersects)) {
+    Optional<SeverityLevel> severityOverride = getSeverityOverride(state);
+    IntervalSet replacedSections = new IntervalSet();
+    for (Match match : byReplacementSize) {
+      if (!match.overlapsWith(replacedSections)) {
         /* This suggested fix does not overlap with any ("larger") replacement seen until now. Apply it. */
-        state.reportMatch(augmentDescription(description, getSeverityOverride(state)));
-        replacedSections.addAll(ranges);
+        state.reportMatch(augmentDescription(match.description, severityOverride));
+        match.addTo(replacedSections);
       }
     }
   }
@@ -174,45 +236,82 @@ public final class Refaster extends BugChecker implements CompilationUnitTreeMat
         .build();
   }
 
-  private static int getReplacedCodeSize(Description description, EndPosTable endPositions) {
-    return getReplacements(description, endPositions).mapToInt(Replacement::length).sum();
+  private static RefasterRuleSelector createRefasterRuleSelector(
+      ErrorProneFlags flags, @Nullable RefasterRuleProfiler profiler) {
+    Predicate<String> nameFilter =
+        flags
+            .get(INCLUDED_RULES_PATTERN_FLAG)
+            .map(Pattern::compile)
+            .<Predicate<String>>map(pattern -> name -> pattern.matcher(name).matches())
+            .orElse(name -> true);
+    return RefasterRuleSelector.create(
+        profiler == null
+            ? CodeTransformers.loadCodeTransformers(nameFilter)
+            : CodeTransformers.loadCodeTransformers(nameFilter, profiler::profile));
   }
 
-  // XXX: It might be nicer to prefer the shortest replacement _post formatting_.
-  private static int getInsertedCodeSize(Description description, EndPosTable endPositions) {
-    return getReplacements(description, endPositions).mapToInt(r -> r.replaceWith().length()).sum();
+  /**
+   * Returns a string that identifies the set of Refaster rules applied given the specified flags.
+   */
+  private static String getRuleSetVersion(ErrorProneFlags flags) {
+    return Hashing.sha256()
+        .newHasher()
+        .putString(CodeTransformers.getRuleBundleVersion(), UTF_8)
+        .putString(flags.get(INCLUDED_RULES_PATTERN_FLAG).orElse(""), UTF_8)
+        .hash()
+        .toString();
   }
 
-  private static ImmutableRangeSet<Integer> getReplacementRanges(
-      Description description, EndPosTable endPositions) {
-    return getReplacements(description, endPositions)
-        .map(Replacement::range)
-        .filter(not(Range::isEmpty))
-        .collect(toImmutableRangeSet());
-  }
+  /**
+   * A {@link Description} along with the source code positions it replaces, computed once from the
+   * {@link Description}'s suggested fixes.
+   */
+  private static final class Match {
+    private final Description description;
+    /** The start and end positions of each non-empty replaced range, interleaved. */
+    private final int[] replacedRanges;
 
-  private static Stream<Replacement> getReplacements(
-      Description description, EndPosTable endPositions) {
-    return description.fixes.stream().flatMap(fix -> fix.getReplacements(endPositions).stream());
-  }
+    private final int replacedCodeSize;
+    // XXX: It might be nicer to prefer the shortest replacement _post formatting_.
+    private final int insertedCodeSize;
 
-  private static CodeTransformer createCompositeCodeTransformer(ErrorProneFlags flags) {
-    ImmutableListMultimap<String, CodeTransformer> allTransformers =
-        CodeTransformers.getAllCodeTransformers();
-    return CompositeCodeTransformer.compose(
-        flags
-            .get(INCLUDED_RULES_PATTERN_FLAG)
-            .map(Pattern::compile)
-            .<ImmutableCollection<CodeTransformer>>map(
-                nameFilter -> filterCodeTransformers(allTransformers, nameFilter))
-            .orElseGet(allTransformers::values));
-  }
+    private Match(
+        Description description, int[] replacedRanges, int replacedCodeSize, int insertedCodeSize) {
+      this.description = description;
+      this.replacedRanges = replacedRanges;
+      this.replacedCodeSize = replacedCodeSize;
+      this.insertedCodeSize = insertedCodeSize;
+    }
+
+    static Match create(Description description, EndPosTable endPositions) {
+      ImmutableList<Replacement> replacements =
+          description.fixes.stream()
+              .flatMap(fix -> fix.getReplacements(endPositions).stream())
+              .collect(toImmutableList());
 
-  private static ImmutableList<CodeTransformer> filterCodeTransformers(
-      ImmutableListMultimap<String, CodeTransformer> transformers, Pattern nameFilter) {
-    return transformers.entries().stream()
-        .filter(e -> nameFilter.matcher(e.getKey()).matches())
-        .map(Map.Entry::getValue)
-        .collect(toImmutableList());
+      return new Match(
+          description,
+          replacements.stream()
+              .filter(r -> r.length() > 0)
+              .flatMapToInt(r -> IntStream.of(r.startPosition(), r.endPosition()))
+              .toArray(),
+          replacements.stream().mapToInt(Replacement::length).sum(),
+          replacements.stream().mapToInt(r -> r.replaceWith().length()).sum());
+    }
+
+    boolean overlapsWith(IntervalSet intervals) {
+      for (int i = 0; i < replacedRanges.length; i += 2) {
+        if (intervals.overlaps(replacedRanges[i], replacedRanges[i + 1])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void addTo(IntervalSet intervals) {
+      for (int i = 0; i < replacedRanges.length; i += 2) {
+        intervals.add(replacedRanges[i], replacedRanges[i + 1]);
+      }
+    }
   }
 }
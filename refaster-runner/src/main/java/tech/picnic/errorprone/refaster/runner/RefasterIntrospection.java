@@ -0,0 +1,129 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.refaster.BlockTemplate;
+import com.google.errorprone.refaster.ExpressionTemplate;
+import com.google.errorprone.refaster.RefasterRule;
+import com.google.errorprone.refaster.Template;
+import com.google.errorprone.refaster.TemplateMatch;
+import com.google.errorprone.refaster.UAnyOf;
+import com.google.errorprone.refaster.UExpression;
+import com.google.errorprone.refaster.UStatement;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.tree.JCTree.JCStatement;
+import com.sun.tools.javac.util.Context;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Utility class that provides access to package-private members of Error Prone's Refaster
+ * implementation.
+ *
+ * <p>The data exposed here is required to efficiently determine which Refaster rules may match a
+ * given compilation unit, and which parts of a Refaster rule are exercised by a given match.
+ */
+// XXX: Consider contributing (a subset of) these accessors upstream, so that the method handle
+// lookups below can be dropped.
+final class RefasterIntrospection {
+  private static final Function<RefasterRule<?, ?>, ImmutableList<?>>
+      REFASTER_RULE_BEFORE_TEMPLATES =
+          getAccessor(RefasterRule.class, "beforeTemplates", ImmutableList.class);
+  private static final Function<ExpressionTemplate, UExpression> EXPRESSION_TEMPLATE_EXPRESSION =
+      getAccessor(ExpressionTemplate.class, "expression", UExpression.class);
+  private static final Function<BlockTemplate, ImmutableList<?>>
+      BLOCK_TEMPLATE_TEMPLATE_STATEMENTS =
+          getAccessor(BlockTemplate.class, "templateStatements", ImmutableList.class);
+  private static final Function<UAnyOf, ImmutableList<?>> UANY_OF_EXPRESSIONS =
+      getAccessor(UAnyOf.class, "expressions", ImmutableList.class);
+  private static final Function<TemplateMatch, ImmutableList<?>> BLOCK_TEMPLATE_MATCH_STATEMENTS =
+      getAccessor(
+          getClass("com.google.errorprone.refaster.BlockTemplateMatch"),
+          "getStatements",
+          ImmutableList.class);
+  private static final MethodHandle REFASTER_RULE_PREPARE_CONTEXT =
+      findVirtual(
+          RefasterRule.class,
+          "prepareContext",
+          MethodType.methodType(Context.class, Context.class, JCCompilationUnit.class));
+
+  private RefasterIntrospection() {}
+
+  @SuppressWarnings("unchecked" /* `RefasterRule#beforeTemplates` returns a list of templates. */)
+  static ImmutableList<Template<?>> getBeforeTemplates(RefasterRule<?, ?> refasterRule) {
+    return (ImmutableList<Template<?>>) REFASTER_RULE_BEFORE_TEMPLATES.apply(refasterRule);
+  }
+
+  static UExpression getExpression(ExpressionTemplate template) {
+    return EXPRESSION_TEMPLATE_EXPRESSION.apply(template);
+  }
+
+  @SuppressWarnings("unchecked" /* `BlockTemplate#templateStatements` returns statements. */)
+  static ImmutableList<UStatement> getTemplateStatements(BlockTemplate template) {
+    return (ImmutableList<UStatement>) BLOCK_TEMPLATE_TEMPLATE_STATEMENTS.apply(template);
+  }
+
+  @SuppressWarnings("unchecked" /* `UAnyOf#expressions` returns expressions. */)
+  static ImmutableList<UExpression> getExpressions(UAnyOf tree) {
+    return (ImmutableList<UExpression>) UANY_OF_EXPRESSIONS.apply(tree);
+  }
+
+  /**
+   * Returns the statements matched by a {@link BlockTemplate}.
+   *
+   * @param match A match produced by a {@link BlockTemplate}.
+   * @return The matched statements, in order.
+   */
+  @SuppressWarnings("unchecked" /* `BlockTemplateMatch#getStatements` returns statements. */)
+  static ImmutableList<JCStatement> getMatchedStatements(TemplateMatch match) {
+    return (ImmutableList<JCStatement>) BLOCK_TEMPLATE_MATCH_STATEMENTS.apply(match);
+  }
+
+  /**
+   * Returns a {@link BiFunction} that, given a compilation context and the compilation unit under
+   * consideration, returns the context in which the templates of the given Refaster rule are
+   * matched.
+   */
+  @SuppressWarnings("unchecked" /* The method handle's type is verified by the lookup. */)
+  static BiFunction<Context, JCCompilationUnit, Context> getContextPreparer(
+      RefasterRule<?, ?> refasterRule) {
+    return MethodHandleProxies.asInterfaceInstance(
+        BiFunction.class,
+        REFASTER_RULE_PREPARE_CONTEXT
+            .bindTo(refasterRule)
+            .asType(MethodType.methodType(Object.class, Object.class, Object.class)));
+  }
+
+  /**
+   * Returns a {@link Function} that invokes the specified nullary method, irrespective of its
+   * visibility.
+   */
+  @SuppressWarnings("unchecked" /* The method handle's type is verified by the lookup. */)
+  private static <T, R> Function<T, R> getAccessor(
+      Class<?> clazz, String methodName, Class<? super R> returnType) {
+    MethodHandle methodHandle = findVirtual(clazz, methodName, MethodType.methodType(returnType));
+    return MethodHandleProxies.asInterfaceInstance(
+        Function.class, methodHandle.asType(MethodType.methodType(Object.class, Object.class)));
+  }
+
+  private static Class<?> getClass(String className) {
+    try {
+      return Class.forName(className, /* initialize= */ false, UAnyOf.class.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(String.format("Cannot load class '%s'", className), e);
+    }
+  }
+
+  private static MethodHandle findVirtual(Class<?> clazz, String methodName, MethodType type) {
+    try {
+      return MethodHandles.privateLookupIn(clazz, MethodHandles.lookup())
+          .findVirtual(clazz, methodName, type);
+    } catch (IllegalAccessException | NoSuchMethodException e) {
+      throw new IllegalStateException(
+          String.format("Cannot access method '%s' of class '%s'", methodName, clazz.getName()), e);
+    }
+  }
+}
@@ -0,0 +1,296 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * An on-disk cache of the Refaster rules found on the classpath, which allows processes that load
+ * the same rules many times to skip the work of locating and reading them.
+ *
+ * <p>Long-lived build processes, such as a Maven daemon, may compile each module using a separate
+ * class loader. Since deserialized {@link com.google.errorprone.CodeTransformer}s are tied to a
+ * class loader, in-memory caching cannot prevent each compilation from locating and reading all
+ * rules anew. This cache instead stores the names, required symbols and serialized forms of all
+ * rules listed by the classpath's rule indexes in a single file, which is memory-mapped upon
+ * retrieval. Rules restored from the cache are still deserialized lazily, by each class loader
+ * separately.
+ *
+ * <p>Cache entries are identified by the location, size and modification time of the artifacts that
+ * provide the rule indexes, such that updating these artifacts invalidates the cache. Rules
+ * provided by artifacts that are not files are not cached.
+ *
+ * <p>Cache hits and misses are counted in a memory-mapped file named {@value #STATISTICS_FILE},
+ * which holds two 64-bit little-endian integers: the number of hits, followed by the number of
+ * misses. These counters are updated atomically, and are thus shared by all class loaders and
+ * processes using the same cache directory. Each lookup logs its outcome along with these totals at
+ * debug level.
+ *
+ * <p>As the cache is an optimization only, failure to access it is logged, after which the Refaster
+ * rules are located without it.
+ */
+// XXX: Cache entries for outdated artifacts are never removed. Consider evicting entries that have
+// not been used for some time.
+final class RefasterRuleCache {
+  private static final System.Logger LOGGER = System.getLogger(RefasterRuleCache.class.getName());
+  private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+  private static final int FORMAT_VERSION = 1;
+  private static final String STATISTICS_FILE = "statistics";
+  private static final VarHandle COUNTERS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final int HIT_COUNT_OFFSET = 0;
+  private static final int MISS_COUNT_OFFSET = Long.BYTES;
+
+  private final Path directory;
+  private final Supplier<Optional<ByteBuffer>> statistics = Suppliers.memoize(this::mapStatistics);
+
+  /**
+   * Instantiates a new {@link RefasterRuleCache} instance.
+   *
+   * @param directory The directory in which to store cached Refaster rules.
+   */
+  RefasterRuleCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Returns the Refaster rules listed by the given rule indexes, restoring them from this cache if
+   * possible.
+   *
+   * <p>If the rules are not cached, then they are located using the given supplier and, if
+   * possible, stored in this cache.
+   *
+   * @param indexes The rule indexes found on the classpath.
+   * @param locator The supplier of the Refaster rules listed by the given indexes, invoked only in
+   *     case of a cache miss.
+   * @return The Refaster rules listed by the given rule indexes.
+   */
+  ImmutableList<RefasterRuleResource> getRules(
+      List<URL> indexes, Supplier<ImmutableList<RefasterRuleResource>> locator) {
+    Optional<Path> cacheFile = getCacheKey(indexes).map(directory::resolve);
+    Optional<ImmutableList<RefasterRuleResource>> cachedRules =
+        cacheFile.flatMap(RefasterRuleCache::read);
+    if (cachedRules.isPresent()) {
+      increment(HIT_COUNT_OFFSET);
+      logOutcome("hit");
+      return cachedRules.orElseThrow();
+    }
+
+    increment(MISS_COUNT_OFFSET);
+    logOutcome("miss");
+    ImmutableList<RefasterRuleResource> rules = locator.get();
+    cacheFile.ifPresent(file -> write(file, rules));
+    return rules;
+  }
+
+  /**
+   * Returns the number of times the requested Refaster rules were found in this cache, across all
+   * users of the same cache directory.
+   *
+   * @return A non-negative number; zero if the statistics cannot be accessed.
+   */
+  long getHitCount() {
+    return getCount(HIT_COUNT_OFFSET);
+  }
+
+  /**
+   * Returns the number of times the requested Refaster rules were not found in this cache, across
+   * all users of the same cache directory.
+   *
+   * @return A non-negative number; zero if the statistics cannot be accessed.
+   */
+  long getMissCount() {
+    return getCount(MISS_COUNT_OFFSET);
+  }
+
+  private long getCount(int offset) {
+    return statistics.get().map(buffer -> (long) COUNTERS.getVolatile(buffer, offset)).orElse(0L);
+  }
+
+  private void increment(int offset) {
+    statistics.get().ifPresent(buffer -> COUNTERS.getAndAdd(buffer, offset, 1L));
+  }
+
+  private void logOutcome(String outcome) {
+    LOGGER.log(
+        Level.DEBUG,
+        "Refaster rule cache {0} in {1} (total: {2} hits, {3} misses)",
+        outcome,
+        directory,
+        getHitCount(),
+        getMissCount());
+  }
+
+  private Optional<ByteBuffer> mapStatistics() {
+    Path file = directory.resolve(STATISTICS_FILE);
+    try {
+      Files.createDirectories(directory);
+      try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE)) {
+        return Optional.of(channel.map(MapMode.READ_WRITE, 0, 2L * Long.BYTES));
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to map Refaster rule cache statistics " + file, e);
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<String> getCacheKey(List<URL> indexes) {
+    Hasher hasher = HASH_FUNCTION.newHasher().putInt(FORMAT_VERSION);
+    for (URL index : indexes) {
+      Optional<Path> artifact = getArtifact(index);
+      if (artifact.isEmpty()) {
+        return Optional.empty();
+      }
+
+      try {
+        Path path = artifact.orElseThrow();
+        hasher
+            .putString(index.toString(), UTF_8)
+            .putLong(Files.size(path))
+            .putLong(Files.getLastModifiedTime(path).toMillis());
+      } catch (IOException e) {
+        /* This artifact cannot be identified; don't cache the rules it provides. */
+        return Optional.empty();
+      }
+    }
+    return Optional.of(hasher.hash().toString());
+  }
+
+  /** Returns the file that contains the given resource, if any. */
+  private static Optional<Path> getArtifact(URL resource) {
+    try {
+      switch (resource.getProtocol()) {
+        case "file":
+          return Optional.of(Path.of(resource.toURI()));
+        case "jar":
+          String location = resource.getPath();
+          int separator = location.indexOf("!/");
+          return separator < 0
+              ? Optional.empty()
+              : getArtifact(new URI(location.substring(0, separator)).toURL());
+        default:
+          return Optional.empty();
+      }
+    } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<ImmutableList<RefasterRuleResource>> read(Path cacheFile) {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(cacheFile, READ)) {
+      buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to read Refaster rule cache " + cacheFile, e);
+      return Optional.empty();
+    }
+
+    try {
+      if (buffer.getInt() != FORMAT_VERSION) {
+        return Optional.empty();
+      }
+
+      int ruleCount = buffer.getInt();
+      ImmutableList.Builder<RefasterRuleResource> rules = ImmutableList.builder();
+      for (int i = 0; i < ruleCount; i++) {
+        String name = readString(buffer);
+        URL url = new URL(readString(buffer));
+        int symbolCount = buffer.getInt();
+        ImmutableSet.Builder<String> requiredSymbols = ImmutableSet.builder();
+        for (int j = 0; j < symbolCount; j++) {
+          requiredSymbols.add(readString(buffer));
+        }
+        rules.add(new RefasterRuleResource(name, url, requiredSymbols.build(), readSlice(buffer)));
+      }
+      return Optional.of(rules.build());
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      /* The cache file is corrupt; it will be overwritten. */
+      return Optional.empty();
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    return UTF_8.decode(readSlice(buffer)).toString();
+  }
+
+  private static ByteBuffer readSlice(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    ByteBuffer slice = buffer.slice().limit(length);
+    buffer.position(buffer.position() + length);
+    return slice;
+  }
+
+  private void write(Path cacheFile, ImmutableList<RefasterRuleResource> rules) {
+    try {
+      /*
+       * Concurrent compilations may populate the same cache file, so the file is replaced
+       * atomically.
+       */
+      Files.createDirectories(directory);
+      Path tempFile = Files.createTempFile(directory, "refaster-", ".tmp");
+      try {
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+          writeRules(out, rules);
+        }
+        Files.move(tempFile, cacheFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Failed to write Refaster rule cache " + cacheFile, e);
+    }
+  }
+
+  private static void writeRules(DataOutputStream out, ImmutableList<RefasterRuleResource> rules)
+      throws IOException {
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(rules.size());
+    for (RefasterRuleResource rule : rules) {
+      writeBytes(out, rule.getName().getBytes(UTF_8));
+      writeBytes(out, rule.getUrl().toString().getBytes(UTF_8));
+      out.writeInt(rule.getRequiredSymbols().size());
+      for (String symbol : rule.getRequiredSymbols()) {
+        writeBytes(out, symbol.getBytes(UTF_8));
+      }
+      writeBytes(out, rule.readBytes());
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
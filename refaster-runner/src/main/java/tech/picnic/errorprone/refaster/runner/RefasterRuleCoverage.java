@@ -0,0 +1,314 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.SubContext;
+import com.google.errorprone.refaster.BlockTemplate;
+import com.google.errorprone.refaster.ExpressionTemplate;
+import com.google.errorprone.refaster.RefasterRule;
+import com.google.errorprone.refaster.Template;
+import com.google.errorprone.refaster.TemplateMatch;
+import com.google.errorprone.refaster.UAnyOf;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.JCTree.JCBlock;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Context;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
+
+/**
+ * Determines which {@code @BeforeTemplate} methods and {@code Refaster#anyOf} alternatives of a
+ * Refaster rule are exercised by the code matched by said rule.
+ *
+ * <p>Each {@code @BeforeTemplate} method and each {@code Refaster#anyOf} alternative is identified
+ * by a branch label, derived from its (one-based) position in the rule. A {@code @BeforeTemplate}
+ * method is considered exercised if it matches the code at the location of a match. A {@code
+ * Refaster#anyOf} alternative of such a method is considered exercised if a copy of the method in
+ * which the {@code Refaster#anyOf} expression is restricted to said alternative also matches the
+ * code at that location.
+ *
+ * <p>This class is intended for use by test infrastructure that reports on the extent to which
+ * Refaster rules are tested. Instances are immutable, and may be reused across compilations.
+ */
+public final class RefasterRuleCoverage {
+  private final ImmutableList<RuleTemplates> rules;
+  private final ImmutableSet<String> branches;
+
+  private RefasterRuleCoverage(ImmutableList<RuleTemplates> rules) {
+    this.rules = rules;
+    this.branches = collectBranches(rules);
+  }
+
+  /**
+   * Creates a {@link RefasterRuleCoverage} instance for the Refaster rule with the given name.
+   *
+   * @param ruleName The name of a Refaster rule found on the classpath, as listed by {@link
+   *     CodeTransformers#getAllRefasterRuleNames()}.
+   * @return A non-{@code null} {@link RefasterRuleCoverage} instance; if no rule with the given
+   *     name exists, then the result does not define any branches.
+   */
+  public static RefasterRuleCoverage forRule(String ruleName) {
+    return new RefasterRuleCoverage(
+        CodeTransformers.getCodeTransformers(ruleName::equals).values().stream()
+            .flatMap(t -> getRefasterRules(t).stream())
+            .map(RuleTemplates::new)
+            .collect(toImmutableList()));
+  }
+
+  private static ImmutableList<RefasterRule<?, ?>> getRefasterRules(CodeTransformer transformer) {
+    if (transformer instanceof AnnotatedCompositeCodeTransformer) {
+      return ((AnnotatedCompositeCodeTransformer) transformer)
+          .transformers().stream()
+              .flatMap(t -> getRefasterRules(t).stream())
+              .collect(toImmutableList());
+    }
+
+    if (transformer instanceof RefasterRule) {
+      return ImmutableList.of((RefasterRule<?, ?>) transformer);
+    }
+
+    /* This transformer cannot be introspected; it does not contribute any branches. */
+    return ImmutableList.of();
+  }
+
+  /**
+   * Returns the labels of all {@code @BeforeTemplate} methods and {@code Refaster#anyOf}
+   * alternatives of the Refaster rule.
+   *
+   * @return A non-{@code null} set of branch labels, in order of definition.
+   */
+  public ImmutableSet<String> getBranches() {
+    return branches;
+  }
+
+  /**
+   * Returns the labels of all {@code @BeforeTemplate} methods and {@code Refaster#anyOf}
+   * alternatives of the Refaster rule that are exercised by the code at the given location.
+   *
+   * <p>For a {@code @BeforeTemplate} method that defines an expression, the given location should
+   * be the matched expression. For a {@code @BeforeTemplate} method that defines one or more
+   * statements, the given location should be the first matched statement.
+   *
+   * @param location The location at which the Refaster rule matched.
+   * @param context The context of the compilation that contains the given location.
+   * @return A subset of the labels returned by {@link #getBranches()}, in order of definition.
+   */
+  public ImmutableSet<String> getCoveredBranches(TreePath location, Context context) {
+    JCCompilationUnit compilationUnit = (JCCompilationUnit) location.getCompilationUnit();
+    ImmutableSet.Builder<String> coveredBranches = ImmutableSet.builder();
+    for (RuleTemplates rule : rules) {
+      Context ruleContext = rule.contextPreparer.apply(context, compilationUnit);
+      for (int i = 0; i < rule.templates.size(); i++) {
+        TemplateBranches template = rule.templates.get(i);
+        if (matches(template.template, location, ruleContext)) {
+          coveredBranches.add(getTemplateLabel(i));
+          for (int j = 0; j < template.restrictedTemplates.size(); j++) {
+            ImmutableList<Template<?>> restrictedTemplates = template.restrictedTemplates.get(j);
+            for (int k = 0; k < restrictedTemplates.size(); k++) {
+              if (matches(restrictedTemplates.get(k), location, ruleContext)) {
+                coveredBranches.add(getAlternativeLabel(i, j, k));
+              }
+            }
+          }
+        }
+      }
+    }
+    return coveredBranches.build();
+  }
+
+  private static ImmutableSet<String> collectBranches(ImmutableList<RuleTemplates> rules) {
+    ImmutableSet.Builder<String> branches = ImmutableSet.builder();
+    for (RuleTemplates rule : rules) {
+      for (int i = 0; i < rule.templates.size(); i++) {
+        branches.add(getTemplateLabel(i));
+        ImmutableList<ImmutableList<Template<?>>> restrictedTemplates =
+            rule.templates.get(i).restrictedTemplates;
+        for (int j = 0; j < restrictedTemplates.size(); j++) {
+          for (int k = 0; k < restrictedTemplates.get(j).size(); k++) {
+            branches.add(getAlternativeLabel(i, j, k));
+          }
+        }
+      }
+    }
+    return branches.build();
+  }
+
+  private static String getTemplateLabel(int templateIndex) {
+    return String.format("@BeforeTemplate #%s", templateIndex + 1);
+  }
+
+  private static String getAlternativeLabel(
+      int templateIndex, int anyOfIndex, int alternativeIndex) {
+    return String.format(
+        "%s, Refaster.anyOf #%s, alternative #%s",
+        getTemplateLabel(templateIndex), anyOfIndex + 1, alternativeIndex + 1);
+  }
+
+  /**
+   * Tells whether the given template matches the code at the given location.
+   *
+   * <p>A block template is considered to match if it matches a sequence of statements that starts
+   * at the given location.
+   */
+  private static boolean matches(Template<?> template, TreePath location, Context context) {
+    Tree tree = location.getLeaf();
+    if (template instanceof ExpressionTemplate) {
+      return !Iterables.isEmpty(template.match((JCTree) tree, new SubContext(context)));
+    }
+
+    TreePath parent = location.getParentPath();
+    if (template instanceof BlockTemplate
+        && parent != null
+        && parent.getLeaf() instanceof JCBlock) {
+      for (TemplateMatch match :
+          template.match((JCBlock) parent.getLeaf(), new SubContext(context))) {
+        if (Iterables.getFirst(RefasterIntrospection.getMatchedStatements(match), null) == tree) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /** The before templates of a {@link RefasterRule}, along with associated metadata. */
+  private static final class RuleTemplates {
+    private final BiFunction<Context, JCCompilationUnit, Context> contextPreparer;
+    private final ImmutableList<TemplateBranches> templates;
+
+    RuleTemplates(RefasterRule<?, ?> rule) {
+      this.contextPreparer = RefasterIntrospection.getContextPreparer(rule);
+      this.templates =
+          RefasterIntrospection.getBeforeTemplates(rule).stream()
+              .map(TemplateBranches::new)
+              .collect(toImmutableList());
+    }
+  }
+
+  /**
+   * A before template, along with, for each of its {@link UAnyOf} expressions, copies of the
+   * template in which said expression is restricted to a single alternative.
+   */
+  private static final class TemplateBranches {
+    private final Template<?> template;
+    private final ImmutableList<ImmutableList<Template<?>>> restrictedTemplates;
+
+    TemplateBranches(Template<?> template) {
+      this.template = template;
+      this.restrictedTemplates = createRestrictedTemplates(template);
+    }
+
+    private static ImmutableList<ImmutableList<Template<?>>> createRestrictedTemplates(
+        Template<?> template) {
+      ImmutableList<UAnyOf> anyOfExpressions = collectAnyOfExpressions(template);
+      ImmutableList.Builder<ImmutableList<Template<?>>> restrictedTemplates =
+          ImmutableList.builder();
+      for (int j = 0; j < anyOfExpressions.size(); j++) {
+        int alternativeCount = RefasterIntrospection.getExpressions(anyOfExpressions.get(j)).size();
+        ImmutableList.Builder<Template<?>> alternatives = ImmutableList.builder();
+        for (int k = 0; k < alternativeCount; k++) {
+          alternatives.add(restrict(template, j, k));
+        }
+        restrictedTemplates.add(alternatives.build());
+      }
+      return restrictedTemplates.build();
+    }
+
+    /**
+     * Returns a copy of the given template in which the {@link UAnyOf} expression with the given
+     * (pre-order) index is restricted to the alternative with the given index.
+     *
+     * <p>The copy is created by serializing the template, replacing the targeted expression along
+     * the way, and deserializing the result.
+     */
+    private static Template<?> restrict(
+        Template<?> template, int anyOfIndex, int alternativeIndex) {
+      UAnyOf anyOf = collectAnyOfExpressions(template).get(anyOfIndex);
+      UAnyOf restrictedAnyOf =
+          UAnyOf.create(RefasterIntrospection.getExpressions(anyOf).get(alternativeIndex));
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out =
+            new ReplacingObjectOutputStream(bytes, anyOf, restrictedAnyOf)) {
+          out.writeObject(template);
+        }
+        try (ObjectInputStream in =
+            new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+          @SuppressWarnings("BanSerializableRead" /* The template was serialized above. */)
+          Template<?> copy = (Template<?>) in.readObject();
+          return copy;
+        }
+      } catch (ClassNotFoundException | IOException e) {
+        throw new IllegalStateException("Failed to restrict Refaster template " + template, e);
+      }
+    }
+
+    private static ImmutableList<UAnyOf> collectAnyOfExpressions(Template<?> template) {
+      List<UAnyOf> anyOfExpressions = new ArrayList<>();
+      AnyOfCollector collector = new AnyOfCollector();
+      if (template instanceof ExpressionTemplate) {
+        collector.scan(
+            RefasterIntrospection.getExpression((ExpressionTemplate) template), anyOfExpressions);
+      } else if (template instanceof BlockTemplate) {
+        collector.scan(
+            RefasterIntrospection.getTemplateStatements((BlockTemplate) template),
+            anyOfExpressions);
+      }
+      return ImmutableList.copyOf(anyOfExpressions);
+    }
+  }
+
+  /**
+   * An {@link ObjectOutputStream} that writes a given replacement object in place of a given
+   * original object, as identified by reference.
+   */
+  private static final class ReplacingObjectOutputStream extends ObjectOutputStream {
+    private final Object original;
+    private final Object replacement;
+
+    ReplacingObjectOutputStream(OutputStream out, Object original, Object replacement)
+        throws IOException {
+      super(out);
+      this.original = original;
+      this.replacement = replacement;
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      return obj == original ? replacement : obj;
+    }
+  }
+
+  /**
+   * A {@link TreeScanner} that collects the {@link UAnyOf} expressions in a template, including
+   * nested ones, in pre-order.
+   */
+  private static final class AnyOfCollector extends TreeScanner<@Nullable Void, List<UAnyOf>> {
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, List<UAnyOf> anyOfExpressions) {
+      if (tree instanceof UAnyOf) {
+        anyOfExpressions.add((UAnyOf) tree);
+        return scan(RefasterIntrospection.getExpressions((UAnyOf) tree), anyOfExpressions);
+      }
+
+      return super.scan(tree, anyOfExpressions);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.collect.ImmutableClassToInstanceMap;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.DescriptionListener;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.api.MultiTaskListener;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Collects per-rule execution statistics of Refaster {@link CodeTransformer}s, and writes them to a
+ * file once compilation completes.
+ *
+ * <p>For each Refaster rule the number of times it was applied, the number of matches it produced
+ * and the total wall-clock time spent applying it are recorded. A rule is normally applied once per
+ * compilation unit, but in incremental mode it is instead applied once per analyzed part of a
+ * compilation unit. Statistics are aggregated across all compilation units of a compilation.
+ * Alongside these measurements each rule's static cost estimate, as computed by the Refaster rule
+ * compiler, is reported, if known. The report is written in CSV format if the target file name ends
+ * with {@code .csv}, and in JSON format otherwise. Rules are listed in order of decreasing total
+ * time.
+ */
+final class RefasterRuleProfiler {
+  private static final Context.Key<RefasterRuleProfiler> PROFILER_KEY = new Context.Key<>();
+  private static final String ESTIMATED_COST_METRIC = "estimatedCost";
+
+  private final Path reportPath;
+  private final List<ProfiledCodeTransformer> transformers = new CopyOnWriteArrayList<>();
+
+  /**
+   * Instantiates a new {@link RefasterRuleProfiler} instance.
+   *
+   * @param reportPath The file to which to write the collected statistics.
+   */
+  RefasterRuleProfiler(Path reportPath) {
+    this.reportPath = reportPath;
+  }
+
+  /**
+   * Returns a {@link CodeTransformer} that delegates to the given {@link CodeTransformer}, while
+   * recording execution statistics under the given name.
+   *
+   * @param ruleName The name of the Refaster rule represented by the given {@link CodeTransformer}.
+   * @param transformer The {@link CodeTransformer} to profile.
+   * @return A non-{@code null} {@link CodeTransformer}.
+   */
+  CodeTransformer profile(String ruleName, CodeTransformer transformer) {
+    ProfiledCodeTransformer profiledTransformer =
+        new ProfiledCodeTransformer(ruleName, transformer);
+    transformers.add(profiledTransformer);
+    return profiledTransformer;
+  }
+
+  /**
+   * Ensures that the collected statistics are written to disk once the compilation associated with
+   * the given context completes.
+   *
+   * <p>This method is idempotent.
+   *
+   * @param context The context of the current compilation.
+   */
+  void writeReportUponCompletion(Context context) {
+    if (context.get(PROFILER_KEY) == null) {
+      context.put(PROFILER_KEY, this);
+      MultiTaskListener.instance(context).add(new ReportWriter());
+    }
+  }
+
+  private void writeReport() {
+    ImmutableList<ProfiledCodeTransformer> rows =
+        transformers.stream()
+            .sorted(
+                comparingLong(ProfiledCodeTransformer::getTotalTimeNanos)
+                    .reversed()
+                    .thenComparing(ProfiledCodeTransformer::getRuleName))
+            .collect(toImmutableList());
+    boolean csv = reportPath.toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+
+    try {
+      Path parent = reportPath.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.writeString(reportPath, csv ? toCsv(rows) : toJson(rows), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write Refaster profile to " + reportPath, e);
+    }
+  }
+
+  private static String toCsv(ImmutableList<ProfiledCodeTransformer> rows) {
+    StringBuilder report =
+        new StringBuilder("rule,invocations,matches,total_time_ns,estimated_cost\n");
+    for (ProfiledCodeTransformer row : rows) {
+      Integer estimatedCost = row.getEstimatedCost();
+      report
+          .append(row.getRuleName())
+          .append(',')
+          .append(row.invocations.sum())
+          .append(',')
+          .append(row.matches.sum())
+          .append(',')
+          .append(row.getTotalTimeNanos())
+          .append(',')
+          .append(estimatedCost == null ? "" : estimatedCost)
+          .append('\n');
+    }
+    return report.toString();
+  }
+
+  private static String toJson(ImmutableList<ProfiledCodeTransformer> rows) {
+    StringBuilder report = new StringBuilder("[");
+    for (int i = 0; i < rows.size(); i++) {
+      ProfiledCodeTransformer row = rows.get(i);
+      report
+          .append(i == 0 ? "\n" : ",\n")
+          .append("  {\"rule\": \"")
+          .append(escapeJson(row.getRuleName()))
+          .append("\", \"invocations\": ")
+          .append(row.invocations.sum())
+          .append(", \"matches\": ")
+          .append(row.matches.sum())
+          .append(", \"totalTimeNanos\": ")
+          .append(row.getTotalTimeNanos())
+          .append(", \"estimatedCost\": ")
+          .append(row.getEstimatedCost())
+          .append('}');
+    }
+    return report.append("\n]\n").toString();
+  }
+
+  private static String escapeJson(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /** A {@link CodeTransformer} that records statistics about the invocations of its delegate. */
+  static final class ProfiledCodeTransformer implements CodeTransformer {
+    private final String ruleName;
+    private final CodeTransformer delegate;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder totalTimeNanos = new LongAdder();
+
+    ProfiledCodeTransformer(String ruleName, CodeTransformer delegate) {
+      this.ruleName = ruleName;
+      this.delegate = delegate;
+    }
+
+    /**
+     * Returns the {@link CodeTransformer} whose invocations are profiled.
+     *
+     * @return The non-{@code null} profiled {@link CodeTransformer}.
+     */
+    CodeTransformer getDelegate() {
+      return delegate;
+    }
+
+    private String getRuleName() {
+      return ruleName;
+    }
+
+    private long getTotalTimeNanos() {
+      return totalTimeNanos.sum();
+    }
+
+    private @Nullable Integer getEstimatedCost() {
+      return CodeTransformers.getCostProfile(ruleName).get(ESTIMATED_COST_METRIC);
+    }
+
+    @Override
+    public void apply(TreePath path, Context context, DescriptionListener listener) {
+      long start = System.nanoTime();
+      try {
+        delegate.apply(
+            path,
+            context,
+            description -> {
+              matches.increment();
+              listener.onDescribed(description);
+            });
+      } finally {
+        totalTimeNanos.add(System.nanoTime() - start);
+        invocations.increment();
+      }
+    }
+
+    @Override
+    public ImmutableClassToInstanceMap<Annotation> annotations() {
+      return delegate.annotations();
+    }
+
+    @Override
+    public String toString() {
+      return ruleName;
+    }
+  }
+
+  /** A {@link TaskListener} that writes the profiling report once compilation completes. */
+  private final class ReportWriter implements TaskListener {
+    @Override
+    public void finished(TaskEvent taskEvent) {
+      if (taskEvent.getKind() == TaskEvent.Kind.COMPILATION) {
+        writeReport();
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.google.common.primitives.Ints;
+import com.google.errorprone.CodeTransformer;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A compiled Refaster rule located on the classpath, along with the symbols that a compilation unit
+ * must reference for the rule to match.
+ *
+ * <p>The associated {@link CodeTransformer} is deserialized only when {@link #load()} is invoked.
+ * Likewise, the rule's cost profile is read only when {@link #getCostProfile()} is invoked. If the
+ * rule was restored from a {@link RefasterRuleCache}, then its serialized form is read from said
+ * cache rather than from the classpath.
+ */
+final class RefasterRuleResource {
+  private static final String REFASTER_RULE_SUFFIX = ".refaster";
+  private static final String COST_PROFILE_SUFFIX = ".refaster-cost";
+  private static final Splitter COST_PROFILE_SPLITTER = Splitter.on('=').limit(2);
+
+  private final String name;
+  private final URL url;
+  private final ImmutableSet<String> requiredSymbols;
+  private final @Nullable ByteBuffer serializedRule;
+  private final Supplier<ImmutableMap<String, Integer>> costProfile =
+      Suppliers.memoize(this::readCostProfile);
+
+  RefasterRuleResource(String name, URL url, ImmutableSet<String> requiredSymbols) {
+    this(name, url, requiredSymbols, /* serializedRule= */ null);
+  }
+
+  /**
+   * Instantiates a new {@link RefasterRuleResource} instance.
+   *
+   * @param name The name of the Refaster rule.
+   * @param url The location of the compiled Refaster rule.
+   * @param requiredSymbols The symbols that a compilation unit must reference for the rule to
+   *     match.
+   * @param serializedRule The content of the compiled Refaster rule, if already available; in that
+   *     case the rule is not read from the given location.
+   */
+  RefasterRuleResource(
+      String name,
+      URL url,
+      ImmutableSet<String> requiredSymbols,
+      @Nullable ByteBuffer serializedRule) {
+    this.name = name;
+    this.url = url;
+    this.requiredSymbols = requiredSymbols;
+    this.serializedRule = serializedRule == null ? null : serializedRule.asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns the name of the Refaster rule.
+   *
+   * @return The non-{@code null} name of the Refaster rule.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the fully qualified types and static members that a compilation unit must reference for
+   * the Refaster rule to match.
+   *
+   * <p>Static members are represented by their enclosing type's fully qualified name and their
+   * simple name, separated by a {@code #}.
+   *
+   * @return The required symbols; empty if unknown.
+   */
+  ImmutableSet<String> getRequiredSymbols() {
+    return requiredSymbols;
+  }
+
+  /**
+   * Returns the static cost profile of the Refaster rule, as computed by the Refaster rule
+   * compiler.
+   *
+   * <p>The cost profile is read from the {@value #COST_PROFILE_SUFFIX} file stored next to the
+   * compiled Refaster rule, and includes an {@code estimatedCost} metric by which rules can be
+   * compared.
+   *
+   * @return A mapping from metric names to values; empty if unknown.
+   */
+  ImmutableMap<String, Integer> getCostProfile() {
+    return costProfile.get();
+  }
+
+  /**
+   * Returns the location of the compiled Refaster rule.
+   *
+   * @return The non-{@code null} location of the compiled Refaster rule.
+   */
+  URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Returns the serialized form of the {@link CodeTransformer} associated with this Refaster rule.
+   *
+   * @return The non-{@code null} content of the compiled Refaster rule.
+   */
+  byte[] readBytes() {
+    if (serializedRule != null) {
+      byte[] bytes = new byte[serializedRule.remaining()];
+      serializedRule.duplicate().get(bytes);
+      return bytes;
+    }
+
+    try {
+      return Resources.toByteArray(url);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + url, e);
+    }
+  }
+
+  /**
+   * Deserializes the {@link CodeTransformer} associated with this Refaster rule.
+   *
+   * @return The deserialized {@link CodeTransformer}, unless it is not compatible with the current
+   *     classpath.
+   */
+  Optional<CodeTransformer> load() {
+    try (InputStream in = openStream();
+        ObjectInputStream ois = new ObjectInputStream(in)) {
+      @SuppressWarnings("BanSerializableRead" /* Part of the Refaster API. */)
+      CodeTransformer codeTransformer = (CodeTransformer) ois.readObject();
+      return Optional.of(codeTransformer);
+    } catch (NoSuchElementException e) {
+      /* For some reason we can't load the resource. Skip it. */
+      // XXX: Should we log this?
+      return Optional.empty();
+    } catch (ClassCastException e) {
+      /* This resource does not appear to be compatible with the current classpath. */
+      // XXX: Should we log this?
+      return Optional.empty();
+    } catch (ClassNotFoundException | IOException e) {
+      throw new IllegalStateException("Can't load `CodeTransformer` from " + url, e);
+    }
+  }
+
+  private InputStream openStream() throws IOException {
+    return serializedRule != null ? new ByteArrayInputStream(readBytes()) : url.openStream();
+  }
+
+  private ImmutableMap<String, Integer> readCostProfile() {
+    String location = url.toString();
+    if (!location.endsWith(REFASTER_RULE_SUFFIX)) {
+      return ImmutableMap.of();
+    }
+
+    URL costProfileUrl;
+    try {
+      costProfileUrl =
+          new URL(
+              location.substring(0, location.length() - REFASTER_RULE_SUFFIX.length())
+                  + COST_PROFILE_SUFFIX);
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Cannot derive cost profile location from " + url, e);
+    }
+
+    Map<String, Integer> metrics = new LinkedHashMap<>();
+    for (String line : readLines(costProfileUrl)) {
+      List<String> fields = COST_PROFILE_SPLITTER.splitToList(line);
+      Integer value = fields.size() == 2 ? Ints.tryParse(fields.get(1)) : null;
+      if (value != null) {
+        metrics.put(fields.get(0), value);
+      }
+    }
+    return ImmutableMap.copyOf(metrics);
+  }
+
+  private static List<String> readLines(URL resource) {
+    try {
+      return Resources.readLines(resource, UTF_8);
+    } catch (FileNotFoundException | NoSuchFileException e) {
+      /* This rule was compiled without a cost profile. */
+      return List.of();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + resource, e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return name + " (" + url + ')';
+  }
+}
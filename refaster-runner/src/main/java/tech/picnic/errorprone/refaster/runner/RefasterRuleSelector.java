@@ -0,0 +1,392 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Sets.toImmutableEnumSet;
+import static java.util.Comparator.naturalOrder;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Sets;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.refaster.BlockTemplate;
+import com.google.errorprone.refaster.ExpressionTemplate;
+import com.google.errorprone.refaster.RefasterRule;
+import com.google.errorprone.refaster.Template;
+import com.google.errorprone.refaster.UAnyOf;
+import com.google.errorprone.refaster.UExpression;
+import com.google.errorprone.refaster.UStaticIdent;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompoundAssignmentTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberReferenceTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.ParameterizedTypeTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.Tree.Kind;
+import com.sun.source.tree.UnaryTree;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+import tech.picnic.errorprone.refaster.AnnotatedCompositeCodeTransformer;
+
+/**
+ * An index of {@link CodeTransformer}s that enables efficient selection of the Refaster rules that
+ * may match a given AST.
+ *
+ * <p>Each {@code @BeforeTemplate} of a Refaster rule is reduced to one or more sets of identifiers
+ * (method, field and class names) and operators, all of which must occur in a source tree for the
+ * template to be able to match any part of it. (Multiple sets arise when a template contains {@code
+ * Refaster#anyOf} expressions.) Each such set is indexed under its least common element. Given a
+ * source tree, a single pass over its AST collects the identifiers and operators it contains, after
+ * which the index is consulted to select only those rules for which at least one set is fully
+ * contained in the collected identifiers.
+ *
+ * <p>Additionally, each {@link CodeTransformer} may declare a set of fully qualified types and
+ * static members that must be referenced by a source tree for it to match; see {@link
+ * CodeTransformers#loadCodeTransformers(java.util.function.Predicate)}. These symbols are added to
+ * each of the {@link CodeTransformer}'s identifier sets, such that e.g. rules targeting a library
+ * that is not referenced by a compilation unit are not selected.
+ *
+ * <p>{@link CodeTransformer}s that cannot be introspected are always selected.
+ */
+// XXX: Refaster rules are matched against an entire compilation unit; Error Prone does not expose
+// an API to match a `RefasterRule` against an individual node. As such rules are selected for,
+// rather than dispatched to, the compilation unit as a whole.
+final class RefasterRuleSelector implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private static final ImmutableSet<Kind> OPERATOR_KINDS =
+      Arrays.stream(Kind.values())
+          .filter(
+              k ->
+                  k.asInterface() == BinaryTree.class
+                      || k.asInterface() == UnaryTree.class
+                      || k.asInterface() == CompoundAssignmentTree.class
+                      || k == Kind.CONDITIONAL_EXPRESSION
+                      || k == Kind.INSTANCE_OF)
+          .collect(toImmutableEnumSet());
+
+  private final ImmutableList<CodeTransformer> transformers;
+  private final ImmutableList<Integer> unconditionalTransformers;
+  private final ImmutableListMultimap<String, Candidate> candidatesByAnchor;
+
+  private RefasterRuleSelector(
+      ImmutableList<CodeTransformer> transformers,
+      ImmutableList<Integer> unconditionalTransformers,
+      ImmutableListMultimap<String, Candidate> candidatesByAnchor) {
+    this.transformers = transformers;
+    this.unconditionalTransformers = unconditionalTransformers;
+    this.candidatesByAnchor = candidatesByAnchor;
+  }
+
+  /**
+   * Creates a {@link RefasterRuleSelector} for the given {@link CodeTransformer}s.
+   *
+   * @param transformers The {@link CodeTransformer}s to be indexed, mapped to the fully qualified
+   *     types and static members that a source tree must reference for them to match.
+   * @return A non-{@code null} {@link RefasterRuleSelector}.
+   */
+  static RefasterRuleSelector create(
+      ImmutableMap<CodeTransformer, ImmutableSet<String>> transformers) {
+    ImmutableList<CodeTransformer> allTransformers = transformers.keySet().asList();
+    ImmutableList<ImmutableSet<ImmutableSet<String>>> identifiers =
+        transformers.entrySet().stream()
+            .map(e -> withRequiredSymbols(extractTransformerIdentifiers(e.getKey()), e.getValue()))
+            .collect(toImmutableList());
+
+    Multiset<String> identifierFrequencies = HashMultiset.create();
+    identifiers.forEach(sets -> sets.forEach(identifierFrequencies::addAll));
+
+    ImmutableList.Builder<Integer> unconditionalTransformers = ImmutableList.builder();
+    ImmutableListMultimap.Builder<String, Candidate> candidatesByAnchor =
+        ImmutableListMultimap.builder();
+    for (int i = 0; i < identifiers.size(); i++) {
+      ImmutableSet<ImmutableSet<String>> identifierSets = identifiers.get(i);
+      if (identifierSets.contains(ImmutableSet.<String>of())) {
+        unconditionalTransformers.add(i);
+      } else {
+        for (ImmutableSet<String> identifierSet : identifierSets) {
+          candidatesByAnchor.put(
+              identifierSet.stream()
+                  .min(
+                      Comparator.<String>comparingInt(identifierFrequencies::count)
+                          .thenComparing(naturalOrder()))
+                  .orElseThrow(),
+              new Candidate(i, identifierSet));
+        }
+      }
+    }
+
+    return new RefasterRuleSelector(
+        allTransformers, unconditionalTransformers.build(), candidatesByAnchor.build());
+  }
+
+  /**
+   * Returns the subset of indexed {@link CodeTransformer}s that may match (a subtree of) the given
+   * tree.
+   *
+   * @param tree The tree of interest; typically a compilation unit.
+   * @return The selected {@link CodeTransformer}s, in the order in which they were indexed.
+   */
+  ImmutableList<CodeTransformer> selectTransformers(Tree tree) {
+    Set<String> sourceIdentifiers = extractSourceIdentifiers(tree);
+
+    BitSet selected = new BitSet(transformers.size());
+    unconditionalTransformers.forEach(selected::set);
+    for (String identifier : sourceIdentifiers) {
+      for (Candidate candidate : candidatesByAnchor.get(identifier)) {
+        if (!selected.get(candidate.transformerIndex)
+            && sourceIdentifiers.containsAll(candidate.identifiers)) {
+          selected.set(candidate.transformerIndex);
+        }
+      }
+    }
+
+    return selected.stream().mapToObj(transformers::get).collect(toImmutableList());
+  }
+
+  private static ImmutableSet<ImmutableSet<String>> withRequiredSymbols(
+      ImmutableSet<ImmutableSet<String>> identifierSets, ImmutableSet<String> requiredSymbols) {
+    if (requiredSymbols.isEmpty()) {
+      return identifierSets;
+    }
+
+    return identifierSets.stream()
+        .map(identifiers -> Sets.union(identifiers, requiredSymbols).immutableCopy())
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns the sets of identifiers of which at least one must be fully present in a source tree
+   * for the given {@link CodeTransformer} to match.
+   */
+  private static ImmutableSet<ImmutableSet<String>> extractTransformerIdentifiers(
+      CodeTransformer transformer) {
+    if (transformer instanceof RefasterRuleProfiler.ProfiledCodeTransformer) {
+      return extractTransformerIdentifiers(
+          ((RefasterRuleProfiler.ProfiledCodeTransformer) transformer).getDelegate());
+    }
+
+    if (transformer instanceof AnnotatedCompositeCodeTransformer) {
+      return ((AnnotatedCompositeCodeTransformer) transformer)
+          .transformers().stream()
+              .flatMap(t -> extractTransformerIdentifiers(t).stream())
+              .collect(toImmutableSet());
+    }
+
+    if (transformer instanceof RefasterRule) {
+      return RefasterIntrospection.getBeforeTemplates((RefasterRule<?, ?>) transformer).stream()
+          .flatMap(t -> extractTemplateIdentifiers(t).stream())
+          .collect(toImmutableSet());
+    }
+
+    /* This transformer cannot be introspected; assume that it may match any tree. */
+    return ImmutableSet.of(ImmutableSet.of());
+  }
+
+  private static ImmutableSet<ImmutableSet<String>> extractTemplateIdentifiers(
+      Template<?> template) {
+    if (template instanceof ExpressionTemplate) {
+      return extractTemplateIdentifiers(
+          ImmutableList.of(RefasterIntrospection.getExpression((ExpressionTemplate) template)));
+    }
+
+    if (template instanceof BlockTemplate) {
+      return extractTemplateIdentifiers(
+          RefasterIntrospection.getTemplateStatements((BlockTemplate) template));
+    }
+
+    /* This template cannot be introspected; assume that it may match any tree. */
+    return ImmutableSet.of(ImmutableSet.of());
+  }
+
+  private static ImmutableSet<ImmutableSet<String>> extractTemplateIdentifiers(
+      ImmutableList<? extends Tree> trees) {
+    List<Set<String>> identifierCombinations = new ArrayList<>();
+    identifierCombinations.add(new HashSet<>());
+    new TemplateIdentifierCollector().scan(trees, identifierCombinations);
+    return identifierCombinations.stream().map(ImmutableSet::copyOf).collect(toImmutableSet());
+  }
+
+  private static Set<String> extractSourceIdentifiers(Tree tree) {
+    Set<String> identifiers = new HashSet<>();
+    new SourceIdentifierCollector().scan(tree, identifiers);
+    return identifiers;
+  }
+
+  private static @Nullable String getSimpleName(@Nullable Tree tree) {
+    if (tree instanceof ParameterizedTypeTree) {
+      return getSimpleName(((ParameterizedTypeTree) tree).getType());
+    }
+
+    if (tree instanceof MemberSelectTree) {
+      return ((MemberSelectTree) tree).getIdentifier().toString();
+    }
+
+    if (tree instanceof IdentifierTree) {
+      /* Refaster's class identifiers are fully qualified. */
+      String name = ((IdentifierTree) tree).getName().toString();
+      return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    return null;
+  }
+
+  /** A set of identifiers that, if present, renders a {@link CodeTransformer} applicable. */
+  private static final class Candidate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int transformerIndex;
+    private final ImmutableSet<String> identifiers;
+
+    Candidate(int transformerIndex, ImmutableSet<String> identifiers) {
+      this.transformerIndex = transformerIndex;
+      this.identifiers = identifiers;
+    }
+  }
+
+  /**
+   * A {@link TreeScanner} that collects the identifiers and operators that must be present in a
+   * source tree for a Refaster template to match.
+   *
+   * <p>Template parameters and placeholders may match arbitrary expressions, so these do not
+   * contribute any identifiers. Each {@code Refaster#anyOf} alternative gives rise to a separate
+   * combination of identifiers.
+   */
+  private static final class TemplateIdentifierCollector
+      extends TreeScanner<@Nullable Void, List<Set<String>>> {
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, List<Set<String>> identifierCombinations) {
+      if (tree instanceof UAnyOf) {
+        List<Set<String>> base = copy(identifierCombinations);
+        identifierCombinations.clear();
+        for (UExpression expression : RefasterIntrospection.getExpressions((UAnyOf) tree)) {
+          List<Set<String>> branch = copy(base);
+          scan(expression, branch);
+          identifierCombinations.addAll(branch);
+        }
+        return null;
+      }
+
+      if (tree != null && OPERATOR_KINDS.contains(tree.getKind())) {
+        register(tree.getKind().name(), identifierCombinations);
+      }
+
+      return super.scan(tree, identifierCombinations);
+    }
+
+    @Override
+    public @Nullable Void visitIdentifier(
+        IdentifierTree node, List<Set<String>> identifierCombinations) {
+      /*
+       * Of all identifier types, only (references to) static members must literally be present in
+       * matching code. Class identifiers are handled separately, while other identifiers refer to
+       * template parameters or local variables.
+       */
+      if (node instanceof UStaticIdent) {
+        register(node.getName().toString(), identifierCombinations);
+      }
+      return null;
+    }
+
+    @Override
+    public @Nullable Void visitMemberSelect(
+        MemberSelectTree node, List<Set<String>> identifierCombinations) {
+      register(node.getIdentifier().toString(), identifierCombinations);
+      return super.visitMemberSelect(node, identifierCombinations);
+    }
+
+    @Override
+    public @Nullable Void visitMemberReference(
+        MemberReferenceTree node, List<Set<String>> identifierCombinations) {
+      register(node.getName().toString(), identifierCombinations);
+      return super.visitMemberReference(node, identifierCombinations);
+    }
+
+    @Override
+    public @Nullable Void visitNewClass(
+        NewClassTree node, List<Set<String>> identifierCombinations) {
+      String className = getSimpleName(node.getIdentifier());
+      if (className != null) {
+        register(className, identifierCombinations);
+      }
+      return super.visitNewClass(node, identifierCombinations);
+    }
+
+    private static void register(String identifier, List<Set<String>> identifierCombinations) {
+      identifierCombinations.forEach(combination -> combination.add(identifier));
+    }
+
+    private static List<Set<String>> copy(Collection<Set<String>> identifierCombinations) {
+      List<Set<String>> copy = new ArrayList<>(identifierCombinations.size());
+      identifierCombinations.forEach(combination -> copy.add(new HashSet<>(combination)));
+      return copy;
+    }
+  }
+
+  /**
+   * A {@link TreeScanner} that collects the identifiers and operators present in a source tree, as
+   * well as the fully qualified types and static members it references, for comparison against
+   * those extracted by {@link TemplateIdentifierCollector} and those listed by {@link
+   * CodeTransformers#loadCodeTransformers(java.util.function.Predicate)}.
+   */
+  private static final class SourceIdentifierCollector
+      extends TreeScanner<@Nullable Void, Set<String>> {
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, Set<String> identifiers) {
+      if (tree != null && OPERATOR_KINDS.contains(tree.getKind())) {
+        identifiers.add(tree.getKind().name());
+      }
+
+      return super.scan(tree, identifiers);
+    }
+
+    @Override
+    public @Nullable Void visitIdentifier(IdentifierTree node, Set<String> identifiers) {
+      identifiers.add(node.getName().toString());
+      registerSymbol(ASTHelpers.getSymbol(node), identifiers);
+      return null;
+    }
+
+    @Override
+    public @Nullable Void visitMemberSelect(MemberSelectTree node, Set<String> identifiers) {
+      identifiers.add(node.getIdentifier().toString());
+      registerSymbol(ASTHelpers.getSymbol(node), identifiers);
+      return super.visitMemberSelect(node, identifiers);
+    }
+
+    @Override
+    public @Nullable Void visitMemberReference(MemberReferenceTree node, Set<String> identifiers) {
+      identifiers.add(node.getName().toString());
+      return super.visitMemberReference(node, identifiers);
+    }
+
+    private static void registerSymbol(@Nullable Symbol symbol, Set<String> identifiers) {
+      if (symbol instanceof ClassSymbol) {
+        identifiers.add(((ClassSymbol) symbol).getQualifiedName().toString());
+      } else if (symbol != null
+          && ASTHelpers.isStatic(symbol)
+          && symbol.owner instanceof ClassSymbol) {
+        String owner = ((ClassSymbol) symbol.owner).getQualifiedName().toString();
+        identifiers.add(owner);
+        identifiers.add(owner + '#' + symbol.getSimpleName());
+      }
+    }
+  }
+}
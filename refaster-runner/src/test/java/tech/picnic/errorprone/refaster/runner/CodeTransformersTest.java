@@ -1,8 +1,24 @@
 package tech.picnic.errorprone.refaster.runner;
 
+import static com.google.common.base.Verify.verifyNotNull;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.errorprone.CodeTransformer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 final class CodeTransformersTest {
   /**
@@ -16,7 +32,152 @@ final class CodeTransformersTest {
             "FooRules$StringOfSizeZeroRule",
             "FooRules$StringOfSizeZeroVerboseRule",
             "FooRules$StringOfSizeOneRule",
+            "FooRules$CharacterToStringRule",
             "FooRules$ExtraGrouping$StringOfSizeTwoRule",
             "FooRules$ExtraGrouping$StringOfSizeThreeRule");
   }
+
+  /**
+   * Verifies that {@link CodeTransformers#getAllRefasterRuleNames()} lists the Refaster rules
+   * compiled from {@link FooRules}.
+   */
+  @Test
+  void getAllRefasterRuleNames() {
+    assertThat(CodeTransformers.getAllRefasterRuleNames())
+        .containsExactlyInAnyOrder(
+            "FooRules$StringOfSizeZeroRule",
+            "FooRules$StringOfSizeZeroVerboseRule",
+            "FooRules$StringOfSizeOneRule",
+            "FooRules$CharacterToStringRule",
+            "FooRules$ExtraGrouping$StringOfSizeTwoRule",
+            "FooRules$ExtraGrouping$StringOfSizeThreeRule");
+  }
+
+  /**
+   * Verifies that {@link CodeTransformers#getCodeTransformers(java.util.function.Predicate)} loads
+   * only the requested code transformers, sharing previously deserialized instances.
+   */
+  @Test
+  void getCodeTransformers() {
+    ImmutableListMultimap<String, CodeTransformer> transformers =
+        CodeTransformers.getCodeTransformers(name -> name.contains("ExtraGrouping"));
+
+    assertThat(transformers.keySet())
+        .containsExactlyInAnyOrder(
+            "FooRules$ExtraGrouping$StringOfSizeTwoRule",
+            "FooRules$ExtraGrouping$StringOfSizeThreeRule");
+    assertThat(getOnlyElement(transformers.get("FooRules$ExtraGrouping$StringOfSizeTwoRule")))
+        .isSameAs(
+            getOnlyElement(
+                CodeTransformers.getAllCodeTransformers()
+                    .get("FooRules$ExtraGrouping$StringOfSizeTwoRule")));
+  }
+
+  /**
+   * Verifies that {@link CodeTransformers#getCostProfile(String)} exposes the cost profile computed
+   * by the Refaster rule compiler.
+   */
+  @Test
+  void getCostProfile() {
+    assertThat(CodeTransformers.getCostProfile("FooRules$StringOfSizeZeroRule"))
+        .containsExactly(
+            entry("beforeTemplates", 1),
+            entry("templateTreeSize", 7),
+            entry("anyOfAlternatives", 0),
+            entry("matchers", 0),
+            entry("rootAnyOfAlternatives", 0),
+            entry("estimatedCost", 7));
+    assertThat(CodeTransformers.getCostProfile("FooRules$CharacterToStringRule"))
+        .containsExactly(
+            entry("beforeTemplates", 1),
+            entry("templateTreeSize", 19),
+            entry("anyOfAlternatives", 5),
+            entry("matchers", 1),
+            entry("rootAnyOfAlternatives", 3),
+            entry("estimatedCost", 64));
+    assertThat(CodeTransformers.getCostProfile("FooRules$NonExistentRule")).isEmpty();
+  }
+
+  /**
+   * Verifies that {@link CodeTransformers#locateRefasterRules(ClassLoader, boolean)} combines the
+   * Refaster rules listed by rule indexes with those found in classpath entries without an index,
+   * if requested.
+   */
+  @Test
+  void locateRefasterRulesWithUnindexedClassPathEntry(@TempDir Path unindexedRoot)
+      throws IOException {
+    Path ruleDirectory = Files.createDirectories(unindexedRoot.resolve("pkg"));
+    try (InputStream rule =
+        CodeTransformersTest.class.getResourceAsStream("FooRules$StringOfSizeZeroRule.refaster")) {
+      Files.copy(verifyNotNull(rule), ruleDirectory.resolve("BarRules$UnindexedRule.refaster"));
+    }
+    Files.write(
+        ruleDirectory.resolve("BarRules$UnindexedRule.refaster-requirements"),
+        ImmutableList.of("java.lang.String"),
+        UTF_8);
+
+    try (URLClassLoader classLoader =
+        new URLClassLoader(
+            new URL[] {unindexedRoot.toUri().toURL()},
+            CodeTransformersTest.class.getClassLoader())) {
+      ImmutableList<RefasterRuleResource> rules =
+          CodeTransformers.locateRefasterRules(
+              classLoader, /* scanUnindexedClassPathEntries= */ true);
+
+      assertThat(rules)
+          .extracting(RefasterRuleResource::getName)
+          .containsExactlyInAnyOrder(
+              "FooRules$StringOfSizeZeroRule",
+              "FooRules$StringOfSizeZeroVerboseRule",
+              "FooRules$StringOfSizeOneRule",
+              "FooRules$CharacterToStringRule",
+              "FooRules$ExtraGrouping$StringOfSizeTwoRule",
+              "FooRules$ExtraGrouping$StringOfSizeThreeRule",
+              "BarRules$UnindexedRule");
+      RefasterRuleResource unindexedRule = rules.get(rules.size() - 1);
+      assertThat(unindexedRule.getRequiredSymbols()).containsExactly("java.lang.String");
+      assertThat(unindexedRule.load()).isPresent();
+    }
+  }
+
+  /**
+   * Verifies that {@link CodeTransformers#locateRefasterRules(ClassLoader, boolean)} by default
+   * ignores archives without an index if another classpath entry provides one.
+   */
+  @Test
+  void locateRefasterRulesWithUnindexedArchive(@TempDir Path directory) throws IOException {
+    Path archive = directory.resolve("unindexed.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(archive));
+        InputStream rule =
+            CodeTransformersTest.class.getResourceAsStream(
+                "FooRules$StringOfSizeZeroRule.refaster")) {
+      out.putNextEntry(new JarEntry("pkg/BarRules$UnindexedRule.refaster"));
+      verifyNotNull(rule).transferTo(out);
+      out.closeEntry();
+    }
+
+    try (URLClassLoader classLoader =
+        new URLClassLoader(
+            new URL[] {archive.toUri().toURL()}, CodeTransformersTest.class.getClassLoader())) {
+      assertThat(
+              CodeTransformers.locateRefasterRules(
+                  classLoader, /* scanUnindexedClassPathEntries= */ false))
+          .extracting(RefasterRuleResource::getName)
+          .isNotEmpty()
+          .doesNotContain("BarRules$UnindexedRule");
+      assertThat(
+              CodeTransformers.locateRefasterRules(
+                  classLoader, /* scanUnindexedClassPathEntries= */ true))
+          .extracting(RefasterRuleResource::getName)
+          .contains("BarRules$UnindexedRule");
+    }
+  }
+
+  /** Verifies that {@link CodeTransformers#getRuleBundleVersion()} yields a stable SHA-256 hash. */
+  @Test
+  void getRuleBundleVersion() {
+    assertThat(CodeTransformers.getRuleBundleVersion())
+        .matches("[0-9a-f]{64}")
+        .isEqualTo(CodeTransformers.getRuleBundleVersion());
+  }
 }
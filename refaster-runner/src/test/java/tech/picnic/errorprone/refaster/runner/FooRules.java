@@ -4,11 +4,15 @@ import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
 
+import com.google.errorprone.refaster.Refaster;
 import com.google.errorprone.refaster.annotation.AfterTemplate;
 import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import com.google.errorprone.refaster.annotation.Matches;
+import java.util.Objects;
 import tech.picnic.errorprone.refaster.annotation.Description;
 import tech.picnic.errorprone.refaster.annotation.OnlineDocumentation;
 import tech.picnic.errorprone.refaster.annotation.Severity;
+import tech.picnic.errorprone.refaster.matchers.IsCharacter;
 
 /** An example rule collection used to test {@link CodeTransformers} and {@link Refaster}. */
 final class FooRules {
@@ -59,6 +63,23 @@ final class FooRules {
     }
   }
 
+  /**
+   * A rule for testing purposes, featuring a root-level and a nested {@code Refaster#anyOf}
+   * invocation, as well as a {@code @Matches} parameter annotation.
+   */
+  static final class CharacterToStringRule {
+    @BeforeTemplate
+    String before(@Matches(IsCharacter.class) Object c) {
+      return Refaster.anyOf(
+          c.toString(), Objects.toString(c), Refaster.anyOf("", new String()) + c);
+    }
+
+    @AfterTemplate
+    String after(Object c) {
+      return String.valueOf(c);
+    }
+  }
+
   /** A nested class with annotations that are inherited by the Refaster rules contained in it. */
   @Description("A custom subgroup description")
   @OnlineDocumentation("https://example.com/rule/${topLevelClassName}#${nestedClassName}")
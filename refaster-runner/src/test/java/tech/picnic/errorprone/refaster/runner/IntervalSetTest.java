@@ -0,0 +1,54 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+final class IntervalSetTest {
+  @Test
+  void overlapsEmptySet() {
+    assertThat(new IntervalSet().overlaps(0, 10)).isFalse();
+  }
+
+  @Test
+  void overlaps() {
+    IntervalSet intervals = new IntervalSet();
+    intervals.add(10, 20);
+    intervals.add(30, 40);
+
+    assertThat(intervals.overlaps(0, 10)).isFalse();
+    assertThat(intervals.overlaps(0, 11)).isTrue();
+    assertThat(intervals.overlaps(12, 15)).isTrue();
+    assertThat(intervals.overlaps(19, 31)).isTrue();
+    assertThat(intervals.overlaps(20, 30)).isFalse();
+    assertThat(intervals.overlaps(39, 50)).isTrue();
+    assertThat(intervals.overlaps(40, 50)).isFalse();
+    assertThat(intervals.overlaps(0, 100)).isTrue();
+  }
+
+  @Test
+  void addCoalescesIntervals() {
+    IntervalSet intervals = new IntervalSet();
+    for (int i = 100; i > 0; i -= 2) {
+      intervals.add(i, i + 1);
+    }
+    assertThat(intervals.overlaps(3, 4)).isFalse();
+
+    intervals.add(2, 100);
+
+    assertThat(intervals.overlaps(3, 4)).isTrue();
+    assertThat(intervals.overlaps(1, 2)).isFalse();
+    assertThat(intervals.overlaps(101, 102)).isFalse();
+    assertThat(intervals.overlaps(100, 101)).isTrue();
+  }
+
+  @Test
+  void addEmptyInterval() {
+    IntervalSet intervals = new IntervalSet();
+
+    assertThatThrownBy(() -> intervals.add(1, 1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Interval [1, 1) is empty");
+  }
+}
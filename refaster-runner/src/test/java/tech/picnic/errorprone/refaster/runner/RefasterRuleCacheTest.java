@@ -0,0 +1,125 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.base.Verify.verifyNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class RefasterRuleCacheTest {
+  private static final String RULE_NAME = "FooRules$StringOfSizeZeroRule";
+  private static final ImmutableSet<String> REQUIRED_SYMBOLS =
+      ImmutableSet.of("java.lang.String#toCharArray");
+
+  @Test
+  void getRules(@TempDir Path cacheDirectory) throws IOException {
+    AtomicInteger invocations = new AtomicInteger();
+    Supplier<ImmutableList<RefasterRuleResource>> locator = countingLocator(invocations);
+
+    /* Initially the rules are not cached. */
+    RefasterRuleCache cache = new RefasterRuleCache(cacheDirectory);
+    ImmutableList<RefasterRuleResource> rules = cache.getRules(getRuleIndexes(), locator);
+    assertThat(rules).hasSize(1);
+    assertThat(invocations).hasValue(1);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+
+    /* A cache using the same directory, e.g. from another class loader, restores the rules. */
+    RefasterRuleCache otherCache = new RefasterRuleCache(cacheDirectory);
+    RefasterRuleResource restoredRule =
+        getOnlyElement(otherCache.getRules(getRuleIndexes(), locator));
+    assertThat(invocations).hasValue(1);
+    assertThat(restoredRule.getName()).isEqualTo(RULE_NAME);
+    assertThat(restoredRule.getUrl()).isEqualTo(rules.get(0).getUrl());
+    assertThat(restoredRule.getRequiredSymbols()).isEqualTo(REQUIRED_SYMBOLS);
+    assertThat(restoredRule.readBytes()).isEqualTo(rules.get(0).readBytes());
+    assertThat(restoredRule.load()).isPresent();
+
+    /* Statistics are shared by all caches using the same directory. */
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(otherCache.getHitCount()).isEqualTo(1);
+    assertThat(otherCache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void getRulesCorruptCacheFile(@TempDir Path cacheDirectory) throws IOException {
+    AtomicInteger invocations = new AtomicInteger();
+    Supplier<ImmutableList<RefasterRuleResource>> locator = countingLocator(invocations);
+    RefasterRuleCache cache = new RefasterRuleCache(cacheDirectory);
+    assertThat(cache.getRules(getRuleIndexes(), locator)).hasSize(1);
+
+    /* Truncate the cache file, such that it lists rules that it does not contain. */
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Path cacheFile =
+          getOnlyElement(
+              files
+                  .filter(file -> !file.getFileName().toString().equals("statistics"))
+                  .collect(toImmutableList()));
+      Files.write(cacheFile, new byte[] {0, 0, 0, 1, 0, 0, 0, 2});
+    }
+
+    assertThat(cache.getRules(getRuleIndexes(), locator)).hasSize(1);
+    assertThat(invocations).hasValue(2);
+    assertThat(cache.getRules(getRuleIndexes(), locator)).hasSize(1);
+    assertThat(invocations).hasValue(2);
+  }
+
+  @Test
+  void getRulesNonFileIndex(@TempDir Path cacheDirectory) throws IOException {
+    AtomicInteger invocations = new AtomicInteger();
+    Supplier<ImmutableList<RefasterRuleResource>> locator = countingLocator(invocations);
+    RefasterRuleCache cache = new RefasterRuleCache(cacheDirectory);
+    ImmutableList<URL> indexes = ImmutableList.of(new URL("https://example.com/rules.idx"));
+
+    assertThat(cache.getRules(indexes, locator)).hasSize(1);
+    assertThat(cache.getRules(indexes, locator)).hasSize(1);
+    assertThat(invocations).hasValue(2);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  void getRulesInaccessibleCacheDirectory(@TempDir Path directory) throws IOException {
+    AtomicInteger invocations = new AtomicInteger();
+    Supplier<ImmutableList<RefasterRuleResource>> locator = countingLocator(invocations);
+    RefasterRuleCache cache = new RefasterRuleCache(Files.createFile(directory.resolve("file")));
+
+    assertThat(cache.getRules(getRuleIndexes(), locator)).hasSize(1);
+    assertThat(cache.getRules(getRuleIndexes(), locator)).hasSize(1);
+    assertThat(invocations).hasValue(2);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(0);
+  }
+
+  private static List<URL> getRuleIndexes() throws IOException {
+    return Collections.list(
+        RefasterRuleCacheTest.class.getClassLoader().getResources("META-INF/refaster/rules.idx"));
+  }
+
+  private static Supplier<ImmutableList<RefasterRuleResource>> countingLocator(
+      AtomicInteger invocations) {
+    URL url =
+        verifyNotNull(
+            RefasterRuleCacheTest.class.getResource(RULE_NAME + ".refaster"),
+            "Rule %s not found",
+            RULE_NAME);
+    return () -> {
+      invocations.incrementAndGet();
+      return ImmutableList.of(new RefasterRuleResource(RULE_NAME, url, REQUIRED_SYMBOLS));
+    };
+  }
+}
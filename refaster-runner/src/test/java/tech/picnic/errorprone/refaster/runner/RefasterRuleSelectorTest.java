@@ -0,0 +1,160 @@
+package tech.picnic.errorprone.refaster.runner;
+
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+import static java.util.Comparator.naturalOrder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CodeTransformer;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.ClassTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.sun.source.tree.ClassTree;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class RefasterRuleSelectorTest {
+  private final CompilationTestHelper compilationTestHelper =
+      CompilationTestHelper.newInstance(RuleSelectionTestChecker.class, getClass());
+  private final CompilationTestHelper requiredSymbolsTestHelper =
+      CompilationTestHelper.newInstance(RequiredSymbolsRuleSelectionTestChecker.class, getClass());
+
+  @Test
+  void selectTransformers() {
+    compilationTestHelper
+        .addSourceLines(
+            "A.java",
+            "// BUG: Diagnostic contains: Selected rules: []",
+            "class A {",
+            "  char[] m(String s) {",
+            "    return s.toCharArray();",
+            "  }",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "// BUG: Diagnostic contains: Selected rules: []",
+            "class B {",
+            "  boolean m(String s) {",
+            "    return s.toCharArray().length > 0;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "C.java",
+            "// BUG: Diagnostic contains: Selected rules: [FooRules$ExtraGrouping$StringOfSizeThreeRule,"
+                + " FooRules$ExtraGrouping$StringOfSizeTwoRule, FooRules$StringOfSizeOneRule,"
+                + " FooRules$StringOfSizeZeroRule, FooRules$StringOfSizeZeroVerboseRule]",
+            "class C {",
+            "  boolean m(String s) {",
+            "    char[] chars = s.toCharArray();",
+            "    return chars.length == 1;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void selectTransformersWithRequiredSymbols() {
+    requiredSymbolsTestHelper
+        .addSourceLines(
+            "A.java",
+            "// BUG: Diagnostic contains: Selected rules: []",
+            "class A {",
+            "  boolean m(String s) {",
+            "    char[] chars = s.toCharArray();",
+            "    return chars.length == 1;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "import static java.util.Objects.requireNonNull;",
+            "",
+            "// BUG: Diagnostic contains: Selected rules: [FooRules$StringOfSizeOneRule]",
+            "class B {",
+            "  boolean m(String s) {",
+            "    char[] chars = requireNonNull(s).toCharArray();",
+            "    return chars.length == 1;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "C.java",
+            "import java.util.Objects;",
+            "",
+            "// BUG: Diagnostic contains: Selected rules: [FooRules$StringOfSizeOneRule]",
+            "class C {",
+            "  boolean m(String s) {",
+            "    char[] chars = Objects.requireNonNull(s).toCharArray();",
+            "    return chars.length == 1;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /**
+   * A {@link BugChecker} that reports the names of the Refaster rules selected for each top-level
+   * class.
+   */
+  @BugPattern(
+      summary = "Flags the Refaster rules selected by `RefasterRuleSelector`",
+      severity = ERROR)
+  public static final class RuleSelectionTestChecker extends BugChecker
+      implements ClassTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      return describeSelectedRules(this, tree, CodeTransformers.loadCodeTransformers(name -> true));
+    }
+  }
+
+  /**
+   * A {@link BugChecker} that reports the names of the Refaster rules selected for each top-level
+   * class, pretending that all but one Refaster rule require a non-existent static member, while
+   * the remaining rule requires {@link java.util.Objects#requireNonNull(Object)}.
+   */
+  @BugPattern(
+      summary = "Flags the Refaster rules selected by `RefasterRuleSelector`",
+      severity = ERROR)
+  public static final class RequiredSymbolsRuleSelectionTestChecker extends BugChecker
+      implements ClassTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Description matchClass(ClassTree tree, VisitorState state) {
+      ImmutableList<CodeTransformer> requireNonNullRules =
+          CodeTransformers.getAllCodeTransformers().get("FooRules$StringOfSizeOneRule");
+      return describeSelectedRules(
+          this,
+          tree,
+          Maps.toMap(
+              CodeTransformers.getAllCodeTransformers().values(),
+              t ->
+                  requireNonNullRules.contains(t)
+                      ? ImmutableSet.of("java.util.Objects", "java.util.Objects#requireNonNull")
+                      : ImmutableSet.of("java.util.Objects#nonExistent")));
+    }
+  }
+
+  private static Description describeSelectedRules(
+      BugChecker checker,
+      ClassTree tree,
+      ImmutableMap<CodeTransformer, ImmutableSet<String>> transformers) {
+    ImmutableList<CodeTransformer> selected =
+        RefasterRuleSelector.create(transformers).selectTransformers(tree);
+
+    return checker
+        .buildDescription(tree)
+        .setMessage(
+            "Selected rules: "
+                + CodeTransformers.getAllCodeTransformers().entries().stream()
+                    .filter(e -> selected.contains(e.getValue()))
+                    .map(Map.Entry::getKey)
+                    .collect(toImmutableSortedSet(naturalOrder())))
+        .build();
+  }
+}
@@ -5,6 +5,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
 import static com.google.errorprone.BugPattern.SeverityLevel.SUGGESTION;
 import static com.google.errorprone.BugPattern.SeverityLevel.WARNING;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.comparingInt;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -16,9 +17,13 @@ import com.google.errorprone.BugCheckerRefactoringTestHelper;
 import com.google.errorprone.BugCheckerRefactoringTestHelper.TestMode;
 import com.google.errorprone.BugPattern.SeverityLevel;
 import com.google.errorprone.CompilationTestHelper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -265,4 +270,111 @@ final class RefasterTest {
             "}")
         .doTest(TestMode.TEXT_MATCH);
   }
+
+  @Test
+  void csvProfileReport(@TempDir Path outputDirectory) throws IOException {
+    Path report = outputDirectory.resolve("profile.csv");
+    compileWithProfiling(report);
+
+    assertThat(Files.readAllLines(report, UTF_8))
+        .hasSize(3)
+        .satisfies(
+            lines ->
+                assertThat(lines.get(0))
+                    .isEqualTo("rule,invocations,matches,total_time_ns,estimated_cost"))
+        .anySatisfy(line -> assertThat(line).matches("FooRules\\$StringOfSizeZeroRule,1,1,\\d+,7"))
+        .anySatisfy(line -> assertThat(line).matches("FooRules\\$StringOfSizeOneRule,1,0,\\d+,7"));
+  }
+
+  @Test
+  void jsonProfileReport(@TempDir Path outputDirectory) throws IOException {
+    Path report = outputDirectory.resolve("reports").resolve("profile.json");
+    compileWithProfiling(report);
+
+    assertThat(Files.readString(report, UTF_8))
+        .startsWith("[\n")
+        .endsWith("\n]\n")
+        .containsPattern(
+            Pattern.quote("{\"rule\": \"FooRules$StringOfSizeZeroRule\", ")
+                + "\"invocations\": 1, \"matches\": 1, \"totalTimeNanos\": \\d+, \"estimatedCost\": 7}")
+        .containsPattern(
+            Pattern.quote("{\"rule\": \"FooRules$StringOfSizeOneRule\", ")
+                + "\"invocations\": 1, \"matches\": 0, \"totalTimeNanos\": \\d+, \"estimatedCost\": 7}");
+  }
+
+  private static void compileWithProfiling(Path report) {
+    CompilationTestHelper.newInstance(Refaster.class, RefasterTest.class)
+        .matchAllDiagnostics()
+        .expectErrorMessage("StringOfSizeZeroRule", containsPattern("StringOfSizeZeroRule"))
+        .setArgs(
+            "-XepOpt:Refaster:NamePattern=.*\\$(StringOfSizeZeroRule|StringOfSizeOneRule)$",
+            "-XepOpt:Refaster:Profile=" + report)
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  void m() {",
+            "    // BUG: Diagnostic matches: StringOfSizeZeroRule",
+            "    boolean b1 = \"foo\".toCharArray().length == 0;",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  @Test
+  void incrementalAnalysis(@TempDir Path outputDirectory) throws IOException {
+    Path cacheDirectory = outputDirectory.resolve("cache");
+    Path report = outputDirectory.resolve("profile.csv");
+
+    /* Initially, the implicit constructor and both methods are analyzed. */
+    compileIncrementally(cacheDirectory, report, "\"qux\".isEmpty()");
+    assertThat(Files.readAllLines(report, UTF_8))
+        .anySatisfy(line -> assertThat(line).startsWith("FooRules$StringOfSizeZeroRule,3,1,"));
+
+    /* Upon recompilation, only the method containing a match is analyzed again. */
+    compileIncrementally(cacheDirectory, report, "\"qux\".isEmpty()");
+    assertThat(Files.readAllLines(report, UTF_8))
+        .anySatisfy(line -> assertThat(line).startsWith("FooRules$StringOfSizeZeroRule,1,1,"));
+
+    /* Modified methods are analyzed again. */
+    compileIncrementally(cacheDirectory, report, "\"quux\".isEmpty()");
+    assertThat(Files.readAllLines(report, UTF_8))
+        .anySatisfy(line -> assertThat(line).startsWith("FooRules$StringOfSizeZeroRule,2,1,"));
+  }
+
+  @Test
+  void incrementalAnalysisInaccessibleCacheDirectory(@TempDir Path outputDirectory)
+      throws IOException {
+    Path cacheDirectory = Files.createFile(outputDirectory.resolve("cache"));
+    Path report = outputDirectory.resolve("profile.csv");
+
+    /* If the cache cannot be used, then each compilation analyzes all parts. */
+    compileIncrementally(cacheDirectory, report, "\"qux\".isEmpty()");
+    compileIncrementally(cacheDirectory, report, "\"qux\".isEmpty()");
+    assertThat(Files.readAllLines(report, UTF_8))
+        .anySatisfy(line -> assertThat(line).startsWith("FooRules$StringOfSizeZeroRule,3,1,"));
+  }
+
+  private static void compileIncrementally(
+      Path cacheDirectory, Path report, String unmatchedExpression) {
+    CompilationTestHelper.newInstance(Refaster.class, RefasterTest.class)
+        .matchAllDiagnostics()
+        .expectErrorMessage("StringOfSizeZeroRule", containsPattern("StringOfSizeZeroRule"))
+        .setArgs(
+            "-XepOpt:Refaster:NamePattern=.*\\$StringOfSizeZeroRule$",
+            "-XepOpt:Refaster:IncrementalCacheDirectory=" + cacheDirectory,
+            "-XepOpt:Refaster:Profile=" + report)
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  boolean m1() {",
+            "    // BUG: Diagnostic matches: StringOfSizeZeroRule",
+            "    return \"foo\".toCharArray().length == 0;",
+            "  }",
+            "",
+            "  boolean m2() {",
+            "    return " + unmatchedExpression + ";",
+            "  }",
+            "}")
+        .doTest();
+  }
 }
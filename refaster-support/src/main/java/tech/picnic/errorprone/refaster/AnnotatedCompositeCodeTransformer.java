@@ -46,7 +46,13 @@ public abstract class AnnotatedCompositeCodeTransformer implements CodeTransform
 
   abstract String packageName();
 
-  abstract ImmutableList<CodeTransformer> transformers();
+  /**
+   * Returns the {@link CodeTransformer}s to which this {@link AnnotatedCompositeCodeTransformer}
+   * delegates.
+   *
+   * @return A non-{@code null} list of {@link CodeTransformer}s.
+   */
+  public abstract ImmutableList<CodeTransformer> transformers();
 
   @Override
   public abstract ImmutableClassToInstanceMap<Annotation> annotations();
@@ -16,6 +16,6 @@ public final class IsArray implements Matcher<ExpressionTree> {
 
   @Override
   public boolean matches(ExpressionTree tree, VisitorState state) {
-    return DELEGATE.matches(tree, state);
+    return MatcherResultCache.matches(IsArray.class, DELEGATE, tree, state);
   }
 }
@@ -19,6 +19,6 @@ public final class IsCharacter implements Matcher<ExpressionTree> {
 
   @Override
   public boolean matches(ExpressionTree tree, VisitorState state) {
-    return DELEGATE.matches(tree, state);
+    return MatcherResultCache.matches(IsCharacter.class, DELEGATE, tree, state);
   }
 }
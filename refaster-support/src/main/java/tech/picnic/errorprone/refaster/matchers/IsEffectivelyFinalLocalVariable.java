@@ -0,0 +1,32 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.tools.javac.code.Symbol;
+
+/**
+ * A matcher of references to local variables, including method and lambda parameters, that are
+ * final or effectively final.
+ *
+ * <p>Such expressions always evaluate to the same value, and can thus safely be captured by a
+ * lambda expression or anonymous class in a Refaster {@code @AfterTemplate} method.
+ */
+public final class IsEffectivelyFinalLocalVariable implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+  private static final Matcher<ExpressionTree> LOCAL_VARIABLE = new IsLocalVariable();
+
+  /** Instantiates a new {@link IsEffectivelyFinalLocalVariable} instance. */
+  public IsEffectivelyFinalLocalVariable() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    if (!LOCAL_VARIABLE.matches(tree, state)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null && ASTHelpers.isConsideredFinal(symbol);
+  }
+}
@@ -0,0 +1,42 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.tools.javac.code.Symbol;
+import javax.lang.model.element.ElementKind;
+
+/**
+ * A matcher of references to local variables, including method and lambda parameters.
+ *
+ * <p>Such expressions can be evaluated more than once without side effects, and can thus safely be
+ * repeated in a Refaster {@code @AfterTemplate} method. Note that the referenced variable may be
+ * reassigned; use {@link IsEffectivelyFinalLocalVariable} if the expression is evaluated lazily,
+ * e.g. by a lambda expression.
+ */
+public final class IsLocalVariable implements Matcher<ExpressionTree> {
+  private static final long serialVersionUID = 1L;
+  private static final ImmutableSet<ElementKind> LOCAL_VARIABLE_KINDS =
+      Sets.immutableEnumSet(
+          ElementKind.EXCEPTION_PARAMETER,
+          ElementKind.LOCAL_VARIABLE,
+          ElementKind.PARAMETER,
+          ElementKind.RESOURCE_VARIABLE);
+
+  /** Instantiates a new {@link IsLocalVariable} instance. */
+  public IsLocalVariable() {}
+
+  @Override
+  public boolean matches(ExpressionTree tree, VisitorState state) {
+    if (!(tree instanceof IdentifierTree)) {
+      return false;
+    }
+
+    Symbol symbol = ASTHelpers.getSymbol(tree);
+    return symbol != null && LOCAL_VARIABLE_KINDS.contains(symbol.getKind());
+  }
+}
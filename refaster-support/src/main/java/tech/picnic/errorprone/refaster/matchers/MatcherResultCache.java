@@ -0,0 +1,81 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.util.Context;
+import java.util.HashMap;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A cache of {@link Matcher} results, shared by all Refaster rules that are applied to the same
+ * compilation unit.
+ *
+ * <p>Refaster instantiates a new {@link Matcher} for each evaluation of a {@code @Matches} or
+ * {@code @NotMatches} annotation, and many rules consult the same matcher for the same expression.
+ * This class ensures that the (potentially expensive) computation performed by such a matcher is
+ * executed at most once per expression.
+ *
+ * <p>Results are indexed by matcher type and by the identity of the matched tree; Javac trees do
+ * not override {@link Object#equals(Object)}. The cache is stored in the compiler's {@link
+ * Context}, such that it does not outlive the compilation, and it is cleared as soon as a different
+ * compilation unit is analyzed.
+ */
+final class MatcherResultCache {
+  private static final Context.Key<MatcherResultCache> CACHE_KEY = new Context.Key<>();
+
+  private @Nullable CompilationUnitTree compilationUnit;
+  private final Map<Class<?>, Map<Tree, Boolean>> results = new HashMap<>();
+
+  private MatcherResultCache() {}
+
+  /**
+   * Returns the result of applying the given {@link Matcher} to the given expression, reusing a
+   * result computed earlier for the same matcher type and expression, if any.
+   *
+   * @param matcherType The type of matcher on behalf of which the result is computed.
+   * @param delegate The matcher that computes the result, if it is not cached.
+   * @param tree The expression to be matched.
+   * @param state The current visitor state; if it does not specify the current compilation unit,
+   *     then the result is not cached.
+   * @return Whether the given matcher matches the given expression.
+   */
+  static boolean matches(
+      Class<?> matcherType,
+      Matcher<ExpressionTree> delegate,
+      ExpressionTree tree,
+      VisitorState state) {
+    TreePath path = state.getPath();
+    if (path == null) {
+      return delegate.matches(tree, state);
+    }
+
+    return getInstance(state.context)
+        .getResults(path.getCompilationUnit(), matcherType)
+        .computeIfAbsent(tree, t -> delegate.matches(tree, state));
+  }
+
+  private static MatcherResultCache getInstance(Context context) {
+    MatcherResultCache cache = context.get(CACHE_KEY);
+    if (cache != null) {
+      return cache;
+    }
+
+    MatcherResultCache newCache = new MatcherResultCache();
+    context.put(CACHE_KEY, newCache);
+    return newCache;
+  }
+
+  private Map<Tree, Boolean> getResults(CompilationUnitTree unit, Class<?> matcherType) {
+    if (compilationUnit != unit) {
+      compilationUnit = unit;
+      results.clear();
+    }
+
+    return results.computeIfAbsent(matcherType, k -> new HashMap<>());
+  }
+}
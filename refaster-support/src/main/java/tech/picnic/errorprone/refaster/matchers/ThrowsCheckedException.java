@@ -24,6 +24,11 @@ public final class ThrowsCheckedException implements Matcher<ExpressionTree> {
 
   @Override
   public boolean matches(ExpressionTree tree, VisitorState state) {
+    return MatcherResultCache.matches(
+        ThrowsCheckedException.class, ThrowsCheckedException::throwsCheckedException, tree, state);
+  }
+
+  private static boolean throwsCheckedException(ExpressionTree tree, VisitorState state) {
     return containsCheckedException(getThrownTypes(tree, state), state);
   }
 
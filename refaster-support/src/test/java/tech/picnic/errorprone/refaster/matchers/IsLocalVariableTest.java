@@ -0,0 +1,79 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.bugpatterns.BugChecker;
+import org.junit.jupiter.api.Test;
+
+final class IsLocalVariableTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "import java.io.StringReader;",
+            "import java.util.function.Function;",
+            "",
+            "class A {",
+            "  private String field;",
+            "",
+            "  String negative1() {",
+            "    return field;",
+            "  }",
+            "",
+            "  String negative2() {",
+            "    return this.field;",
+            "  }",
+            "",
+            "  String negative3() {",
+            "    return toString();",
+            "  }",
+            "",
+            "  String negative4() {",
+            "    return \"foo\";",
+            "  }",
+            "",
+            "  String positive1(String parameter) {",
+            "    // BUG: Diagnostic contains:",
+            "    return parameter;",
+            "  }",
+            "",
+            "  String positive2() {",
+            "    String local = \"foo\";",
+            "    // BUG: Diagnostic contains:",
+            "    return local;",
+            "  }",
+            "",
+            "  Function<String, String> positive3() {",
+            "    // BUG: Diagnostic contains:",
+            "    return s -> s;",
+            "  }",
+            "",
+            "  Object positive4() {",
+            "    try (StringReader reader = new StringReader(\"foo\")) {",
+            "      // BUG: Diagnostic contains:",
+            "      return reader;",
+            "    } catch (RuntimeException e) {",
+            "      // BUG: Diagnostic contains:",
+            "      return e;",
+            "    }",
+            "  }",
+            "}")
+        .doTest();
+  }
+
+  /** A {@link BugChecker} that simply delegates to {@link IsLocalVariable}. */
+  @BugPattern(summary = "Flags expressions matched by `IsLocalVariable`", severity = ERROR)
+  public static final class MatcherTestChecker extends AbstractMatcherTestChecker {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {
+      super(new IsLocalVariable());
+    }
+  }
+}
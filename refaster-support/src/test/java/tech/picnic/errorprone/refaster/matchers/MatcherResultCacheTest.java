@@ -0,0 +1,89 @@
+package tech.picnic.errorprone.refaster.matchers;
+
+import static com.google.errorprone.BugPattern.SeverityLevel.ERROR;
+
+import com.google.common.collect.Sets;
+import com.google.errorprone.BugPattern;
+import com.google.errorprone.CompilationTestHelper;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.bugpatterns.BugChecker;
+import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
+import com.google.errorprone.matchers.Description;
+import com.google.errorprone.matchers.Matcher;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+final class MatcherResultCacheTest {
+  @Test
+  void matches() {
+    CompilationTestHelper.newInstance(MatcherTestChecker.class, getClass())
+        .addSourceLines(
+            "A.java",
+            "class A {",
+            "  int m() {",
+            "    return String.valueOf(1).length() + 2;",
+            "  }",
+            "}")
+        .addSourceLines(
+            "B.java",
+            "class B {",
+            "  boolean m() {",
+            "    return new Object().equals(\"b\");",
+            "  }",
+            "}")
+        .expectNoDiagnostics()
+        .doTest();
+  }
+
+  /**
+   * A {@link BugChecker} that flags expressions for which {@link MatcherResultCache} does not reuse
+   * an earlier result, or for which it reuses the result of a different matcher type.
+   */
+  @BugPattern(
+      summary = "Flags expressions not properly cached by `MatcherResultCache`",
+      severity = ERROR)
+  public static final class MatcherTestChecker extends BugChecker
+      implements CompilationUnitTreeMatcher {
+    private static final long serialVersionUID = 1L;
+
+    // XXX: This is a false positive reported by Checkstyle. See
+    // https://github.com/checkstyle/checkstyle/issues/10161#issuecomment-1242732120.
+    @SuppressWarnings("RedundantModifier")
+    public MatcherTestChecker() {}
+
+    @Override
+    public Description matchCompilationUnit(
+        CompilationUnitTree compilationUnit, VisitorState state) {
+      /* This matcher matches only upon first invocation for a given expression. */
+      Set<Tree> seen = Sets.newIdentityHashSet();
+      Matcher<ExpressionTree> matcher = (tree, s) -> seen.add(tree);
+
+      new TreeScanner<@Nullable Void, @Nullable Void>() {
+        @Override
+        public @Nullable Void scan(Tree tree, @Nullable Void unused) {
+          if (tree instanceof ExpressionTree) {
+            ExpressionTree expression = (ExpressionTree) tree;
+            boolean firstResult =
+                MatcherResultCache.matches(IsArray.class, matcher, expression, state);
+            boolean secondResult =
+                MatcherResultCache.matches(IsArray.class, matcher, expression, state);
+            boolean otherResult =
+                MatcherResultCache.matches(IsCharacter.class, (t, s) -> false, expression, state);
+            if (!firstResult || !secondResult || otherResult) {
+              state.reportMatch(describeMatch(tree));
+            }
+          }
+
+          return super.scan(tree, unused);
+        }
+      }.scan(compilationUnit, null);
+
+      return Description.NO_MATCH;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package tech.picnic.errorprone.refaster.test;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
@@ -14,8 +15,10 @@ import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableRangeMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
 import com.google.errorprone.BugCheckerRefactoringTestHelper;
@@ -23,6 +26,7 @@ import com.google.errorprone.BugPattern;
 import com.google.errorprone.ErrorProneFlags;
 import com.google.errorprone.SubContext;
 import com.google.errorprone.VisitorState;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.bugpatterns.BugChecker;
 import com.google.errorprone.bugpatterns.BugChecker.CompilationUnitTreeMatcher;
 import com.google.errorprone.fixes.Replacement;
@@ -34,6 +38,8 @@ import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.LineMap;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
 import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.tree.EndPosTable;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
@@ -43,10 +49,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import org.jspecify.annotations.Nullable;
 import tech.picnic.errorprone.refaster.runner.CodeTransformers;
 import tech.picnic.errorprone.refaster.runner.Refaster;
+import tech.picnic.errorprone.refaster.runner.RefasterRuleCoverage;
 
 /**
  * A {@link BugChecker} that applies a Refaster rule collection to an associated test input file by
@@ -66,10 +75,15 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
   private static final long serialVersionUID = 1L;
   private static final String RULE_COLLECTION_FLAG = "RefasterRuleCollection:RuleCollection";
   private static final String TEST_METHOD_NAME_PREFIX = "test";
+  /** The suffix of the name of the test input file associated with a rule collection. */
+  static final String TEST_INPUT_FILE_SUFFIX = "TestInput.java";
+  /** The suffix of the name of the test output file associated with a rule collection. */
+  static final String TEST_OUTPUT_FILE_SUFFIX = "TestOutput.java";
 
-  private final String ruleCollectionUnderTest;
-  private final ImmutableSortedSet<String> rulesUnderTest;
-  private final Refaster delegate;
+  private final ImmutableMap<String, ImmutableSortedSet<String>> rulesUnderTest;
+  private final ImmutableMap<String, Refaster> delegates;
+  private final @Nullable Consumer<RefasterRuleCollectionCoverage> coverageListener;
+  private final Map<String, RefasterRuleCoverage> ruleCoverage = new ConcurrentHashMap<>();
 
   /**
    * Instantiates a {@link RefasterRuleCollection} instance.
@@ -77,9 +91,31 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
    * @param flags Any provided command line flags.
    */
   public RefasterRuleCollection(ErrorProneFlags flags) {
-    ruleCollectionUnderTest = getRuleCollectionUnderTest(flags);
-    delegate = createRefasterChecker(ruleCollectionUnderTest);
-    rulesUnderTest = getRulesUnderTest(ruleCollectionUnderTest);
+    this(ImmutableSet.of(getRuleCollectionUnderTest(flags)), /* coverageListener= */ null);
+  }
+
+  /**
+   * Instantiates a {@link RefasterRuleCollection} instance that validates multiple rule
+   * collections.
+   *
+   * <p>The rule collection exercised by a given compilation unit is derived from the name of its
+   * source file.
+   *
+   * @param ruleCollectionsUnderTest The simple class names of the rule collections under test.
+   * @param coverageListener If non-{@code null}, the listener to which to report the extent to
+   *     which each compilation unit exercises its rule collection.
+   */
+  RefasterRuleCollection(
+      ImmutableSet<String> ruleCollectionsUnderTest,
+      @Nullable Consumer<RefasterRuleCollectionCoverage> coverageListener) {
+    /*
+     * Each rule collection is applied by a separate delegate, as a single delegate would suppress
+     * matches that overlap with a match of a rule in another collection.
+     */
+    delegates = Maps.toMap(ruleCollectionsUnderTest, RefasterRuleCollection::createRefasterChecker);
+    rulesUnderTest =
+        Maps.toMap(ruleCollectionsUnderTest, RefasterRuleCollection::getRulesUnderTest);
+    this.coverageListener = coverageListener;
   }
 
   private static String getRuleCollectionUnderTest(ErrorProneFlags flags) {
@@ -100,7 +136,7 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
   }
 
   private static ImmutableSortedSet<String> getRulesUnderTest(String ruleCollectionUnderTest) {
-    return CodeTransformers.getAllCodeTransformers().keySet().stream()
+    return CodeTransformers.getAllRefasterRuleNames().stream()
         .filter(k -> k.startsWith(ruleCollectionUnderTest))
         .map(k -> k.replace(ruleCollectionUnderTest + '$', ""))
         .collect(toImmutableSortedSet(naturalOrder()));
@@ -122,32 +158,79 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
 
     BugCheckerRefactoringTestHelper.newInstance(RefasterRuleCollection.class, clazz)
         .setArgs(ImmutableList.of("-XepOpt:" + RULE_COLLECTION_FLAG + '=' + className))
-        .addInput(className + "TestInput.java")
-        .addOutput(className + "TestOutput.java")
+        .addInput(className + TEST_INPUT_FILE_SUFFIX)
+        .addOutput(className + TEST_OUTPUT_FILE_SUFFIX)
         .doTest(TEXT_MATCH);
   }
 
+  /**
+   * Creates a {@link RefasterRuleCollectionBatch} that validates the given Refaster rule
+   * collections using a single compiler invocation.
+   *
+   * @param classes The Refaster rule collections under test.
+   * @return A non-{@code null} {@link RefasterRuleCollectionBatch}.
+   * @see #validate(Class)
+   */
+  public static RefasterRuleCollectionBatch batch(Iterable<? extends Class<?>> classes) {
+    return new RefasterRuleCollectionBatch(ImmutableSet.copyOf(classes));
+  }
+
+  @CanIgnoreReturnValue
   @Override
   public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
-    reportIncorrectClassName(tree, state);
+    String ruleCollectionUnderTest = getRuleCollectionExercisedBy(tree);
+    reportIncorrectClassName(tree, ruleCollectionUnderTest, state);
 
     List<Description> matches = new ArrayList<>();
-    delegate.matchCompilationUnit(
-        tree,
-        VisitorState.createForCustomFindingCollection(new SubContext(state.context), matches::add)
-            .withPath(state.getPath()));
+    verifyNotNull(delegates.get(ruleCollectionUnderTest))
+        .matchCompilationUnit(
+            tree,
+            VisitorState.createForCustomFindingCollection(
+                    new SubContext(state.context), matches::add)
+                .withPath(state.getPath()));
 
     ImmutableRangeMap<Integer, String> indexedMatches =
         indexRuleMatches(matches, ((JCCompilationUnit) tree).endPositions);
 
     matches.forEach(state::reportMatch);
-    reportMissingMatches(tree, indexedMatches, state);
+    reportMissingMatches(tree, ruleCollectionUnderTest, indexedMatches, state);
     reportUnexpectedMatches(tree, indexedMatches, state);
+    if (coverageListener != null) {
+      coverageListener.accept(
+          determineCoverage(tree, ruleCollectionUnderTest, indexedMatches, state));
+    }
 
     return Description.NO_MATCH;
   }
 
-  private void reportIncorrectClassName(CompilationUnitTree tree, VisitorState state) {
+  /**
+   * Returns the name of the rule collection exercised by the given compilation unit.
+   *
+   * <p>If multiple rule collections are under test, the name is derived from the compilation unit's
+   * source file, which is expected to be named after the rule collection.
+   */
+  private String getRuleCollectionExercisedBy(CompilationUnitTree tree) {
+    if (delegates.size() == 1) {
+      return Iterables.getOnlyElement(delegates.keySet());
+    }
+
+    String sourceFile =
+        getSubstringAfterFinalDelimiter('/', ((JCCompilationUnit) tree).sourcefile.getName());
+    checkState(
+        sourceFile.endsWith(TEST_INPUT_FILE_SUFFIX),
+        "Source file '%s' is not a test input file",
+        sourceFile);
+    String ruleCollection =
+        sourceFile.substring(0, sourceFile.length() - TEST_INPUT_FILE_SUFFIX.length());
+    checkState(
+        delegates.containsKey(ruleCollection),
+        "Rule collection '%s' is not under test",
+        ruleCollection);
+    return ruleCollection;
+  }
+
+  private void reportIncorrectClassName(
+      CompilationUnitTree tree, String ruleCollectionUnderTest, VisitorState state) {
     String expectedClassName = ruleCollectionUnderTest + "Test";
 
     for (Tree typeDeclaration : tree.getTypeDecls()) {
@@ -188,11 +271,13 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
 
   private void reportMissingMatches(
       CompilationUnitTree tree,
+      String ruleCollectionUnderTest,
       ImmutableRangeMap<Integer, String> indexedMatches,
       VisitorState state) {
     ImmutableSet<String> rulesWithoutMatch =
         Sets.difference(
-                rulesUnderTest, ImmutableSet.copyOf(indexedMatches.asMapOfRanges().values()))
+                rulesUnderTest.getOrDefault(ruleCollectionUnderTest, ImmutableSortedSet.of()),
+                ImmutableSet.copyOf(indexedMatches.asMapOfRanges().values()))
             .immutableCopy();
     if (!rulesWithoutMatch.isEmpty()) {
       String sourceFile = ((JCCompilationUnit) tree).sourcefile.getName();
@@ -214,6 +299,42 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
     unexpectedMatchReporter.scan(tree.getTypeDecls(), state);
   }
 
+  /**
+   * Determines which branches of the rules under test are exercised by the given compilation unit.
+   *
+   * <p>The locations of all matches are resolved in a single pass over the compilation unit, after
+   * which each match is attributed to the branches of the matching rule that it exercises.
+   */
+  private RefasterRuleCollectionCoverage determineCoverage(
+      CompilationUnitTree tree,
+      String ruleCollectionUnderTest,
+      ImmutableRangeMap<Integer, String> indexedMatches,
+      VisitorState state) {
+    ImmutableSetMultimap.Builder<String, String> branches = ImmutableSetMultimap.builder();
+    for (String rule :
+        rulesUnderTest.getOrDefault(ruleCollectionUnderTest, ImmutableSortedSet.of())) {
+      branches.putAll(rule, getRuleCoverage(ruleCollectionUnderTest, rule).getBranches());
+    }
+
+    ImmutableSetMultimap.Builder<String, String> coveredBranches = ImmutableSetMultimap.builder();
+    ImmutableListMultimap<Range<Integer>, TreePath> matchLocations =
+        new MatchLocationIndexer(indexedMatches.asMapOfRanges().keySet()).index(tree, state);
+    for (Map.Entry<Range<Integer>, String> match : indexedMatches.asMapOfRanges().entrySet()) {
+      RefasterRuleCoverage coverage = getRuleCoverage(ruleCollectionUnderTest, match.getValue());
+      for (TreePath location : matchLocations.get(match.getKey())) {
+        coveredBranches.putAll(
+            match.getValue(), coverage.getCoveredBranches(location, state.context));
+      }
+    }
+
+    return new RefasterRuleCollectionCoverage(
+        ruleCollectionUnderTest, branches.build(), coveredBranches.build());
+  }
+
+  private RefasterRuleCoverage getRuleCoverage(String ruleCollection, String rule) {
+    return ruleCoverage.computeIfAbsent(ruleCollection + '$' + rule, RefasterRuleCoverage::forRule);
+  }
+
   private void reportViolations(
       Tree tree, String message, ImmutableSet<String> violations, VisitorState state) {
     String violationEnumeration = String.join("\n*  - ", violations);
@@ -239,6 +360,45 @@ public final class RefasterRuleCollection extends BugChecker implements Compilat
     return value.substring(index + 1);
   }
 
+  /**
+   * A {@link TreePathScanner} that locates the trees whose source range exactly matches any of the
+   * given ranges.
+   */
+  private static final class MatchLocationIndexer
+      extends TreePathScanner<@Nullable Void, VisitorState> {
+    private final ImmutableSet<Range<Integer>> ranges;
+    private final ImmutableListMultimap.Builder<Range<Integer>, TreePath> locations =
+        ImmutableListMultimap.builder();
+
+    MatchLocationIndexer(ImmutableSet<Range<Integer>> ranges) {
+      this.ranges = ranges;
+    }
+
+    ImmutableListMultimap<Range<Integer>, TreePath> index(
+        CompilationUnitTree tree, VisitorState state) {
+      scan(tree, state);
+      return locations.build();
+    }
+
+    @Override
+    public @Nullable Void scan(@Nullable Tree tree, VisitorState state) {
+      if (tree != null) {
+        int startPosition = ASTHelpers.getStartPosition(tree);
+        int endPosition = state.getEndPosition(tree);
+        if (startPosition != Position.NOPOS
+            && endPosition != Position.NOPOS
+            && startPosition <= endPosition) {
+          Range<Integer> range = Range.closedOpen(startPosition, endPosition);
+          if (ranges.contains(range)) {
+            locations.put(range, new TreePath(getCurrentPath(), tree));
+          }
+        }
+      }
+
+      return super.scan(tree, state);
+    }
+  }
+
   private class UnexpectedMatchReporter extends TreeScanner<@Nullable Void, VisitorState> {
     private final ImmutableRangeMap<Integer, String> indexedMatches;
 
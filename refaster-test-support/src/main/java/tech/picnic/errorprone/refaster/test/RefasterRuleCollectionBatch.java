@@ -0,0 +1,334 @@
+package tech.picnic.errorprone.refaster.test;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Verify.verifyNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.function.Function.identity;
+import static tech.picnic.errorprone.refaster.test.RefasterRuleCollection.TEST_INPUT_FILE_SUFFIX;
+import static tech.picnic.errorprone.refaster.test.RefasterRuleCollection.TEST_OUTPUT_FILE_SUFFIX;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.ErrorProneOptions;
+import com.google.errorprone.FileObjects;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.apply.DescriptionBasedDiff;
+import com.google.errorprone.apply.DiffNotApplicableException;
+import com.google.errorprone.apply.ImportOrganizer;
+import com.google.errorprone.apply.SourceFile;
+import com.google.errorprone.matchers.Description;
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TreePath;
+import com.sun.tools.javac.api.JavacTool;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Validates a batch of Refaster rule collections, in the same manner as {@link
+ * RefasterRuleCollection#validate(Class)}, but with less overhead.
+ *
+ * <p>Upon first use, the test input files of all rule collections in the batch are compiled in a
+ * single compiler invocation, after which they are analyzed using a single {@link
+ * RefasterRuleCollection} instance. The test output files are likewise compiled in a single,
+ * separate compiler invocation; a rule collection whose test output file does not compile fails
+ * validation. The resulting fixes are subsequently applied to, and compared against, the associated
+ * test output files in parallel. Each rule collection's result is retained, such that the
+ * collections can be validated individually, e.g. by a parameterized test.
+ *
+ * <p>Additionally, for each rule collection a {@link RefasterRuleCollectionCoverage} report is
+ * produced, which indicates which {@code @BeforeTemplate} methods and {@code Refaster#anyOf}
+ * alternatives are exercised by the associated test input file.
+ */
+// XXX: The Refaster rules are applied to the compilation units sequentially, as the Java compiler
+// is not designed for concurrent use. Consider parallelizing this step as well, once this is better
+// understood.
+public final class RefasterRuleCollectionBatch {
+  private final ImmutableSet<Class<?>> ruleCollections;
+  private final Supplier<ImmutableMap<Class<?>, Outcome>> outcomes =
+      Suppliers.memoize(this::createOutcomes);
+
+  RefasterRuleCollectionBatch(ImmutableSet<Class<?>> ruleCollections) {
+    this.ruleCollections = ruleCollections;
+  }
+
+  /**
+   * Verifies that all Refaster rules in the given collection class are covered by precisely one
+   * test method, defined explicitly for the purpose of exercising that rule.
+   *
+   * @param clazz The Refaster rule collection under test; must be part of this batch.
+   * @see RefasterRuleCollection#validate(Class)
+   */
+  public void validate(Class<?> clazz) {
+    getOutcome(clazz).validation.run();
+  }
+
+  /**
+   * Returns a report of the extent to which the Refaster rules in the given collection are
+   * exercised by the associated test input file.
+   *
+   * @param clazz The Refaster rule collection of interest; must be part of this batch.
+   * @return A non-{@code null} {@link RefasterRuleCollectionCoverage} report.
+   * @throws AssertionError If the test input files could not be compiled.
+   */
+  public RefasterRuleCollectionCoverage getCoverage(Class<?> clazz) {
+    Outcome outcome = getOutcome(clazz);
+    if (outcome.coverage == null) {
+      outcome.validation.run();
+    }
+    return verifyNotNull(outcome.coverage, "No coverage report for '%s'", clazz);
+  }
+
+  private Outcome getOutcome(Class<?> clazz) {
+    checkArgument(
+        ruleCollections.contains(clazz), "Rule collection '%s' is not part of this batch", clazz);
+    return verifyNotNull(outcomes.get().get(clazz));
+  }
+
+  /**
+   * Compiles and analyzes the test input files of all rule collections in this batch, and returns
+   * for each rule collection an operation that compares the result against the associated test
+   * output file, along with a coverage report.
+   */
+  private ImmutableMap<Class<?>, Outcome> createOutcomes() {
+    ImmutableMap<Class<?>, JavaFileObject> inputs = getSourceFiles(TEST_INPUT_FILE_SUFFIX);
+    ImmutableMap<Class<?>, JavaFileObject> outputs = getSourceFiles(TEST_OUTPUT_FILE_SUFFIX);
+
+    Context context = new Context();
+    context.put(ErrorProneOptions.class, ErrorProneOptions.empty());
+    Compilation inputCompilation = Compilation.compile(inputs.values(), context);
+    if (!inputCompilation.errors.isEmpty()) {
+      return inputs.keySet().stream()
+          .collect(
+              toImmutableMap(
+                  identity(), c -> new Outcome(inputCompilation::fail, /* coverage= */ null)));
+    }
+
+    /*
+     * The test output files declare the same classes as the test input files, so they are compiled
+     * separately.
+     */
+    Compilation outputCompilation = Compilation.compile(outputs.values(), new Context());
+
+    Map<String, RefasterRuleCollectionCoverage> coverage = new HashMap<>();
+    RefasterRuleCollection checker =
+        new RefasterRuleCollection(
+            ruleCollections.stream().map(Class::getSimpleName).collect(toImmutableSet()),
+            c -> coverage.put(c.getRuleCollection(), c));
+    ImmutableMap<Class<?>, Analysis> analyses =
+        inputs.entrySet().stream()
+            .collect(
+                toImmutableMap(
+                    Map.Entry::getKey,
+                    e ->
+                        analyze(
+                            checker,
+                            verifyNotNull(
+                                inputCompilation.compilationUnits.get(e.getValue().toUri())),
+                            context)));
+
+    return analyses.entrySet().parallelStream()
+        .collect(
+            toImmutableMap(
+                Map.Entry::getKey,
+                e ->
+                    new Outcome(
+                        createValidation(
+                            e.getValue(),
+                            verifyNotNull(outputs.get(e.getKey())),
+                            outputCompilation),
+                        coverage.get(e.getKey().getSimpleName()))));
+  }
+
+  private ImmutableMap<Class<?>, JavaFileObject> getSourceFiles(String suffix) {
+    return ruleCollections.stream()
+        .collect(
+            toImmutableMap(
+                identity(), c -> FileObjects.forResource(c, c.getSimpleName() + suffix)));
+  }
+
+  private static Analysis analyze(
+      RefasterRuleCollection checker, JCCompilationUnit compilationUnit, Context context) {
+    List<Description> descriptions = new ArrayList<>();
+    checker.matchCompilationUnit(
+        compilationUnit,
+        VisitorState.createForCustomFindingCollection(context, descriptions::add)
+            .withPath(new TreePath(compilationUnit)));
+    return new Analysis(compilationUnit, ImmutableList.copyOf(descriptions));
+  }
+
+  private static Runnable createValidation(
+      Analysis analysis, JavaFileObject output, Compilation outputCompilation) {
+    ImmutableList<Diagnostic<? extends JavaFileObject>> errors =
+        outputCompilation.getErrors(output);
+    if (!errors.isEmpty()) {
+      return () ->
+          assertWithMessage(
+                  "Compilation of '%s' failed: %s\n%s",
+                  output.getName(), outputCompilation.output, errors)
+              .fail();
+    }
+
+    try {
+      String actual = format(analysis.applyFixes());
+      String expected = format(readSource(output));
+      return () -> assertThat(actual).isEqualTo(expected);
+    } catch (IllegalStateException | UncheckedIOException e) {
+      /* Report the failure when this particular rule collection is validated. */
+      return () -> {
+        throw e;
+      };
+    }
+  }
+
+  private static String readSource(JavaFileObject file) {
+    try {
+      return file.getCharContent(/* ignoreEncodingErrors= */ false).toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Failed to read '%s'", file.getName()), e);
+    }
+  }
+
+  /**
+   * Formats the given source code in the same manner as {@code BugCheckerRefactoringTestHelper}.
+   */
+  private static String format(String source) {
+    try {
+      return new Formatter().formatSource(source);
+    } catch (FormatterException e) {
+      return source;
+    }
+  }
+
+  /** The result of compiling a set of source files. */
+  private static final class Compilation {
+    private final ImmutableMap<URI, JCCompilationUnit> compilationUnits;
+    private final ImmutableList<Diagnostic<? extends JavaFileObject>> errors;
+    private final String output;
+
+    private Compilation(
+        ImmutableMap<URI, JCCompilationUnit> compilationUnits,
+        ImmutableList<Diagnostic<? extends JavaFileObject>> errors,
+        String output) {
+      this.compilationUnits = compilationUnits;
+      this.errors = errors;
+      this.output = output;
+    }
+
+    /**
+     * Compiles the given source files in a single compiler invocation, and returns the resulting
+     * compilation units indexed by the {@link URI} of their source file, along with any errors.
+     */
+    static Compilation compile(ImmutableCollection<JavaFileObject> sources, Context context) {
+      DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+      StringWriter output = new StringWriter();
+      JavacTool javac = JavacTool.create();
+      JavacTask task =
+          javac.getTask(
+              new PrintWriter(output, /* autoFlush= */ true),
+              javac.getStandardFileManager(diagnostics, /* locale= */ null, UTF_8),
+              diagnostics,
+              ImmutableList.of(),
+              /* classes= */ null,
+              sources,
+              context);
+
+      ImmutableMap<URI, JCCompilationUnit> compilationUnits;
+      try {
+        compilationUnits =
+            ImmutableList.copyOf(task.parse()).stream()
+                .map(JCCompilationUnit.class::cast)
+                .collect(toImmutableMap(c -> c.sourcefile.toUri(), identity()));
+        task.analyze();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to compile test files", e);
+      }
+
+      return new Compilation(
+          compilationUnits,
+          diagnostics.getDiagnostics().stream()
+              .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+              .collect(toImmutableList()),
+          output.toString());
+    }
+
+    /**
+     * Returns the errors reported for the given source file, including errors not associated with
+     * any particular source file.
+     */
+    ImmutableList<Diagnostic<? extends JavaFileObject>> getErrors(JavaFileObject source) {
+      return errors.stream()
+          .filter(d -> d.getSource() == null || d.getSource().toUri().equals(source.toUri()))
+          .collect(toImmutableList());
+    }
+
+    void fail() {
+      assertWithMessage("Compilation failed: %s\n%s", output, errors).fail();
+    }
+  }
+
+  /** The validation and coverage report associated with a rule collection. */
+  private static final class Outcome {
+    private final Runnable validation;
+    private final @Nullable RefasterRuleCollectionCoverage coverage;
+
+    Outcome(Runnable validation, @Nullable RefasterRuleCollectionCoverage coverage) {
+      this.validation = validation;
+      this.coverage = coverage;
+    }
+  }
+
+  /** The matches reported by {@link RefasterRuleCollection} for a given compilation unit. */
+  private static final class Analysis {
+    private final JCCompilationUnit compilationUnit;
+    private final ImmutableList<Description> descriptions;
+
+    Analysis(JCCompilationUnit compilationUnit, ImmutableList<Description> descriptions) {
+      this.compilationUnit = compilationUnit;
+      this.descriptions = descriptions;
+    }
+
+    /** Returns the source code of the compilation unit, with all suggested fixes applied. */
+    String applyFixes() {
+      DescriptionBasedDiff diff =
+          DescriptionBasedDiff.create(compilationUnit, ImportOrganizer.STATIC_FIRST_ORGANIZER);
+      descriptions.forEach(diff::onDescribed);
+      try {
+        SourceFile sourceFile = SourceFile.create(compilationUnit.getSourceFile());
+        diff.applyDifferences(sourceFile);
+        return sourceFile.getSourceText();
+      } catch (IOException e) {
+        throw new UncheckedIOException(
+            String.format("Failed to read '%s'", compilationUnit.getSourceFile().getName()), e);
+      } catch (DiffNotApplicableException e) {
+        throw new IllegalStateException(
+            String.format(
+                "Failed to apply fixes to '%s'", compilationUnit.getSourceFile().getName()),
+            e);
+      }
+    }
+  }
+}
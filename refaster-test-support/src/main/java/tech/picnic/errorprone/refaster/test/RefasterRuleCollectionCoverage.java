@@ -0,0 +1,89 @@
+package tech.picnic.errorprone.refaster.test;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimaps;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A report of the extent to which the {@code @BeforeTemplate} methods and {@code Refaster#anyOf}
+ * alternatives of the Refaster rules in a rule collection are exercised by the associated test
+ * input file.
+ *
+ * <p>Branches are identified by labels of the form {@code @BeforeTemplate #1} and
+ * {@code @BeforeTemplate #1, Refaster.anyOf #2, alternative #3}, with indices referring to the
+ * (one-based) position of the associated element in the Refaster rule. An uncovered branch that is
+ * not exercised by realistic code is a candidate for removal.
+ *
+ * @see RefasterRuleCollectionBatch#getCoverage(Class)
+ */
+public final class RefasterRuleCollectionCoverage {
+  private final String ruleCollection;
+  private final ImmutableSetMultimap<String, String> branches;
+  private final ImmutableSetMultimap<String, String> coveredBranches;
+
+  RefasterRuleCollectionCoverage(
+      String ruleCollection,
+      ImmutableSetMultimap<String, String> branches,
+      ImmutableSetMultimap<String, String> coveredBranches) {
+    this.ruleCollection = ruleCollection;
+    this.branches = branches;
+    this.coveredBranches = coveredBranches;
+  }
+
+  /**
+   * Returns the simple class name of the Refaster rule collection to which this report applies.
+   *
+   * @return A non-{@code null} class name.
+   */
+  public String getRuleCollection() {
+    return ruleCollection;
+  }
+
+  /**
+   * Returns the labels of all branches of each Refaster rule in the collection.
+   *
+   * @return A mapping from Refaster rule names to branch labels.
+   */
+  public ImmutableSetMultimap<String, String> getBranches() {
+    return branches;
+  }
+
+  /**
+   * Returns the labels of the branches of each Refaster rule in the collection that are exercised
+   * by the associated test input file.
+   *
+   * @return A mapping from Refaster rule names to branch labels.
+   */
+  public ImmutableSetMultimap<String, String> getCoveredBranches() {
+    return coveredBranches;
+  }
+
+  /**
+   * Returns the labels of the branches of each Refaster rule in the collection that are not
+   * exercised by the associated test input file.
+   *
+   * @return A mapping from Refaster rule names to branch labels.
+   */
+  public ImmutableSetMultimap<String, String> getUncoveredBranches() {
+    return ImmutableSetMultimap.copyOf(
+        Multimaps.filterEntries(
+            branches, e -> !coveredBranches.containsEntry(e.getKey(), e.getValue())));
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder report =
+        new StringBuilder(
+            String.format(
+                "Refaster rule collection `%s`: %s of %s branches covered",
+                ruleCollection, coveredBranches.size(), branches.size()));
+    for (Map.Entry<String, Collection<String>> rule : getUncoveredBranches().asMap().entrySet()) {
+      report.append(String.format("%n- Rule `%s`, uncovered:", rule.getKey()));
+      for (String branch : rule.getValue()) {
+        report.append(String.format("%n  - %s", branch));
+      }
+    }
+    return report.toString();
+  }
+}
@@ -0,0 +1,42 @@
+package tech.picnic.errorprone.refaster.test;
+
+import com.google.errorprone.refaster.Refaster;
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+
+/**
+ * Refaster rule collection to validate the reporting of {@code @BeforeTemplate} methods and {@link
+ * Refaster#anyOf} alternatives that are not exercised by any test.
+ */
+final class PartialBranchCoverageRules {
+  private PartialBranchCoverageRules() {}
+
+  static final class StringIsEmpty {
+    @BeforeTemplate
+    boolean before(String string) {
+      return string.length() == 0;
+    }
+
+    @BeforeTemplate
+    boolean before2(String string) {
+      return Refaster.anyOf(string.toCharArray().length == 0, string.equals(""));
+    }
+
+    @AfterTemplate
+    boolean after(String string) {
+      return string.isEmpty();
+    }
+  }
+
+  static final class ConvertedStringIsEmpty {
+    @BeforeTemplate
+    boolean before(String string) {
+      return Refaster.anyOf(string.toString(), String.valueOf(string)).isEmpty();
+    }
+
+    @AfterTemplate
+    boolean after(String string) {
+      return string.isEmpty();
+    }
+  }
+}
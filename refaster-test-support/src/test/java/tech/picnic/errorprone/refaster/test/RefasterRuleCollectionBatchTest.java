@@ -0,0 +1,115 @@
+package tech.picnic.errorprone.refaster.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Validates {@link RefasterRuleCollectionBatch} error reporting, using the same rule collections as
+ * {@link RefasterRuleCollectionTest}.
+ */
+final class RefasterRuleCollectionBatchTest {
+  private static final RefasterRuleCollectionBatch BATCH =
+      RefasterRuleCollection.batch(
+          ImmutableSet.of(
+              MatchInWrongMethodRules.class,
+              MethodWithoutPrefixRules.class,
+              MisnamedTestClassRules.class,
+              MissingTestAndWrongTestRules.class,
+              PartialBranchCoverageRules.class,
+              PartialTestMatchRules.class,
+              RuleWithoutTestRules.class,
+              UncompilableTestOutputRules.class,
+              ValidRules.class));
+
+  @ParameterizedTest
+  @ValueSource(
+      classes = {
+        MatchInWrongMethodRules.class,
+        MethodWithoutPrefixRules.class,
+        MisnamedTestClassRules.class,
+        MissingTestAndWrongTestRules.class,
+        PartialBranchCoverageRules.class,
+        PartialTestMatchRules.class,
+        RuleWithoutTestRules.class,
+        ValidRules.class
+      })
+  void verifyRefasterRuleCollections(Class<?> clazz) {
+    BATCH.validate(clazz);
+  }
+
+  @Test
+  void validateUncompilableTestOutput() {
+    assertThatThrownBy(() -> BATCH.validate(UncompilableTestOutputRules.class))
+        .isInstanceOf(AssertionError.class)
+        .hasMessageContaining("Compilation of '")
+        .hasMessageContaining("UncompilableTestOutputRulesTestOutput.java' failed");
+  }
+
+  @Test
+  void getCoverage() {
+    RefasterRuleCollectionCoverage coverage = BATCH.getCoverage(PartialBranchCoverageRules.class);
+
+    assertThat(coverage.getRuleCollection()).isEqualTo("PartialBranchCoverageRules");
+    assertThat(coverage.getBranches())
+        .isEqualTo(
+            ImmutableSetMultimap.<String, String>builder()
+                .put("ConvertedStringIsEmpty", "@BeforeTemplate #1")
+                .put(
+                    "ConvertedStringIsEmpty",
+                    "@BeforeTemplate #1, Refaster.anyOf #1, alternative #1")
+                .put(
+                    "ConvertedStringIsEmpty",
+                    "@BeforeTemplate #1, Refaster.anyOf #1, alternative #2")
+                .put("StringIsEmpty", "@BeforeTemplate #1")
+                .put("StringIsEmpty", "@BeforeTemplate #2")
+                .put("StringIsEmpty", "@BeforeTemplate #2, Refaster.anyOf #1, alternative #1")
+                .put("StringIsEmpty", "@BeforeTemplate #2, Refaster.anyOf #1, alternative #2")
+                .build());
+    assertThat(coverage.getUncoveredBranches())
+        .isEqualTo(
+            ImmutableSetMultimap.of(
+                "ConvertedStringIsEmpty", "@BeforeTemplate #1, Refaster.anyOf #1, alternative #2",
+                "StringIsEmpty", "@BeforeTemplate #1",
+                "StringIsEmpty", "@BeforeTemplate #2, Refaster.anyOf #1, alternative #2"));
+    assertThat(coverage)
+        .hasToString(
+            String.join(
+                System.lineSeparator(),
+                "Refaster rule collection `PartialBranchCoverageRules`: 4 of 7 branches covered",
+                "- Rule `ConvertedStringIsEmpty`, uncovered:",
+                "  - @BeforeTemplate #1, Refaster.anyOf #1, alternative #2",
+                "- Rule `StringIsEmpty`, uncovered:",
+                "  - @BeforeTemplate #1",
+                "  - @BeforeTemplate #2, Refaster.anyOf #1, alternative #2"));
+  }
+
+  @Test
+  void getCoverageFullyCovered() {
+    RefasterRuleCollectionCoverage coverage = BATCH.getCoverage(ValidRules.class);
+
+    assertThat(coverage.getBranches().keySet())
+        .containsExactlyInAnyOrder(
+            "BlockRuleSetAddElement", "StaticImportStringLength", "StringIsEmpty2");
+    assertThat(coverage.getUncoveredBranches().entries()).isEmpty();
+  }
+
+  @Test
+  void validateUnknownRuleCollection() {
+    assertThatThrownBy(() -> BATCH.validate(String.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Rule collection 'class java.lang.String' is not part of this batch");
+  }
+
+  @Test
+  void getCoverageUnknownRuleCollection() {
+    assertThatThrownBy(() -> BATCH.getCoverage(String.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Rule collection 'class java.lang.String' is not part of this batch");
+  }
+}
@@ -0,0 +1,25 @@
+package tech.picnic.errorprone.refaster.test;
+
+import com.google.errorprone.refaster.annotation.AfterTemplate;
+import com.google.errorprone.refaster.annotation.BeforeTemplate;
+import java.util.Collection;
+
+/**
+ * Refaster rule collection to validate that a test output file that does not compile is reported,
+ * even if it matches the result of applying the rules to the test input file.
+ */
+final class UncompilableTestOutputRules {
+  private UncompilableTestOutputRules() {}
+
+  static final class CollectionSize {
+    @BeforeTemplate
+    long before(Collection<?> collection) {
+      return collection.stream().count();
+    }
+
+    @AfterTemplate
+    long after(Collection<?> collection) {
+      return collection.size();
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package tech.picnic.errorprone.refaster.test;
+
+/** Code to test the Refaster rules from {@link PartialBranchCoverageRules}. */
+final class PartialBranchCoverageRulesTest implements RefasterRuleCollectionTestCase {
+  boolean testStringIsEmpty() {
+    return "foo".toCharArray().length == 0;
+  }
+
+  boolean testConvertedStringIsEmpty() {
+    return String.valueOf("foo").toString().isEmpty();
+  }
+}
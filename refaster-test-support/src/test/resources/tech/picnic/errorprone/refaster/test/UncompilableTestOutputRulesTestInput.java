@@ -0,0 +1,11 @@
+package tech.picnic.errorprone.refaster.test;
+
+import java.util.List;
+
+/** Code to test the Refaster rules from {@link UncompilableTestOutputRules}. */
+final class UncompilableTestOutputRulesTest implements RefasterRuleCollectionTestCase {
+  Long testCollectionSize() {
+    Long size = List.of(1).stream().count();
+    return size;
+  }
+}